@@ -25,6 +25,9 @@
 --     quantite DECIMAL(10,2) NOT NULL,
 --     prix_unitaire_ht DECIMAL(10,2) NOT NULL,
 --     taux_tva DECIMAL(5,2) NOT NULL,
+--     total_ht DECIMAL(10,2) NOT NULL,
+--     total_tva DECIMAL(10,2) NOT NULL,
+--     total_ttc DECIMAL(10,2) NOT NULL,
 --     facture_id BIGINT NOT NULL REFERENCES factures(id)
 -- );
 
@@ -43,19 +46,19 @@ INSERT INTO factures (numero, date, client_id, total_ht, total_tva, total_ttc) V
 ('FAC-2024-0004', '2024-02-10', 1, 1200.00, 240.00, 1440.00);
 
 -- Lignes de facture détaillées
-INSERT INTO lignes_facture (description, quantite, prix_unitaire_ht, taux_tva, facture_id) VALUES 
+INSERT INTO lignes_facture (description, quantite, prix_unitaire_ht, taux_tva, total_ht, total_tva, total_ttc, facture_id) VALUES 
 -- Facture 1
-('Développement module de facturation', 20.00, 80.00, 20.00, 1),
-('Tests et validation', 5.00, 60.00, 20.00, 1),
-('Documentation technique', 3.00, 100.00, 20.00, 1),
-('Formation équipe', 2.00, 150.00, 20.00, 1),
+('Développement module de facturation', 20.00, 80.00, 20.00, 1600.00, 320.00, 1920.00, 1),
+('Tests et validation', 5.00, 60.00, 20.00, 300.00, 60.00, 360.00, 1),
+('Documentation technique', 3.00, 100.00, 20.00, 300.00, 60.00, 360.00, 1),
+('Formation équipe', 2.00, 150.00, 20.00, 300.00, 60.00, 360.00, 1),
 
 -- Facture 2
-('Audit sécurité application', 15.00, 90.00, 20.00, 2),
-('Rapport d\'audit', 1.00, 150.00, 20.00, 2),
+('Audit sécurité application', 15.00, 90.00, 20.00, 1350.00, 270.00, 1620.00, 2),
+('Rapport d\'audit', 1.00, 150.00, 20.00, 150.00, 30.00, 180.00, 2),
 
 -- Facture 3
-('Maintenance corrective', 8.00, 100.00, 20.00, 3),
+('Maintenance corrective', 8.00, 100.00, 20.00, 800.00, 160.00, 960.00, 3),
 
 -- Facture 4
-('Développement API REST', 12.00, 100.00, 20.00, 4);
+('Développement API REST', 12.00, 100.00, 20.00, 1200.00, 240.00, 1440.00, 4);
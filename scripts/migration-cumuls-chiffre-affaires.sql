@@ -0,0 +1,23 @@
+-- Migration : cumuls mensuels de chiffre d'affaires par client
+-- À exécuter une fois sur une base existante avant de déployer la version qui lit cette table.
+-- Chaque (client, mois) peut être réparti sur plusieurs tranches (slot) ; le cumul est leur somme.
+-- Le calcul initial reprend CumulChiffreAffairesRepository.reconstruire() (tranche 0).
+
+CREATE TABLE revenue_rollup (
+    client_id BIGINT NOT NULL,
+    year_month INTEGER NOT NULL,
+    slot INTEGER NOT NULL,
+    total_ht DECIMAL(15,2) NOT NULL,
+    total_tva DECIMAL(15,2) NOT NULL,
+    total_ttc DECIMAL(15,2) NOT NULL,
+    invoice_count BIGINT NOT NULL,
+    PRIMARY KEY (client_id, year_month, slot)
+);
+
+CREATE INDEX idx_revenue_rollup_year_month ON revenue_rollup (year_month);
+
+INSERT INTO revenue_rollup (client_id, year_month, slot, total_ht, total_tva, total_ttc, invoice_count)
+SELECT client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date), 0,
+       SUM(total_ht), SUM(total_tva), SUM(total_ttc), COUNT(*)
+FROM factures
+GROUP BY client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date);
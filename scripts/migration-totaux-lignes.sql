@@ -0,0 +1,21 @@
+-- Migration : stockage des totaux des lignes de facture
+-- À exécuter une fois sur une base existante avant de déployer la version qui lit ces colonnes.
+-- Les arrondis reproduisent LigneFacture.calculerTotaux() : HT arrondi à 2 décimales (HALF_UP),
+-- taux de TVA ramené à 4 décimales avant multiplication, TVA arrondie à 2 décimales.
+
+ALTER TABLE lignes_facture ADD COLUMN total_ht DECIMAL(10,2);
+ALTER TABLE lignes_facture ADD COLUMN total_tva DECIMAL(10,2);
+ALTER TABLE lignes_facture ADD COLUMN total_ttc DECIMAL(10,2);
+
+UPDATE lignes_facture
+SET total_ht = ROUND(quantite * prix_unitaire_ht, 2)
+WHERE total_ht IS NULL;
+
+UPDATE lignes_facture
+SET total_tva = ROUND(total_ht * ROUND(taux_tva / 100, 4), 2),
+    total_ttc = total_ht + ROUND(total_ht * ROUND(taux_tva / 100, 4), 2)
+WHERE total_tva IS NULL;
+
+ALTER TABLE lignes_facture ALTER COLUMN total_ht SET NOT NULL;
+ALTER TABLE lignes_facture ALTER COLUMN total_tva SET NOT NULL;
+ALTER TABLE lignes_facture ALTER COLUMN total_ttc SET NOT NULL;
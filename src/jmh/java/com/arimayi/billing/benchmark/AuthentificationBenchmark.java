@@ -0,0 +1,47 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.config.EncodeurMotDePasseEnCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'authentification httpBasic par requête : BCrypt seul ou avec le cache des identifiants vérifiés
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthentificationBenchmark {
+    
+    @Param({"bcrypt", "cache"})
+    public String encodeur;
+    
+    private DaoAuthenticationProvider provider;
+    
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        PasswordEncoder passwordEncoder = "cache".equals(encodeur)
+                ? new EncodeurMotDePasseEnCache(bcrypt, 1000, Duration.ofMinutes(5))
+                : bcrypt;
+        provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(new InMemoryUserDetailsManager(User.builder()
+                .username("admin")
+                .password(passwordEncoder.encode("admin123"))
+                .roles("ADMIN")
+                .build()));
+    }
+    
+    @Benchmark
+    public Authentication authentifier() {
+        return provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "admin123"));
+    }
+}
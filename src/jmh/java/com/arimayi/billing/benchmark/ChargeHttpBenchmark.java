@@ -0,0 +1,87 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.BillingModuleApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test de charge HTTP de l'application complète (Tomcat, sécurité, JPA, H2) avec 400 clients simultanés,
+ * au-delà des 200 threads de Tomcat : threads de plateforme ou threads virtuels (Java 21 requis).
+ * Le pool de 10 connexions JDBC reste le point de contre-pression dans les deux modes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+@Fork(jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+@State(Scope.Benchmark)
+public class ChargeHttpBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean threadsVirtuels;
+    
+    private ConfigurableApplicationContext application;
+    private HttpClient httpClient;
+    private HttpRequest facture;
+    private HttpRequest resumes;
+    
+    @Setup
+    public void setUp() {
+        if (threadsVirtuels && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Les threads virtuels nécessitent Java 21 (JVM actuelle : " + Runtime.version() + ")");
+        }
+        // Arguments de ligne de commande : prioritaires sur application.properties
+        application = new SpringApplicationBuilder(BillingModuleApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + threadsVirtuels,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.arimayi.billing=WARN",
+                "--logging.level.org.springframework.security=WARN");
+        String base = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString("user:user123".getBytes(StandardCharsets.UTF_8));
+        
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+        facture = HttpRequest.newBuilder(URI.create(base + "/api/factures/1"))
+                .header("Authorization", authorization).build();
+        resumes = HttpRequest.newBuilder(URI.create(base + "/api/factures/resumes?size=50"))
+                .header("Authorization", authorization).build();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+    
+    @Benchmark
+    public int lireFacture() throws IOException, InterruptedException {
+        return envoyer(facture);
+    }
+    
+    @Benchmark
+    public int listerResumes() throws IOException, InterruptedException {
+        return envoyer(resumes);
+    }
+    
+    private int envoyer(HttpRequest requete) throws IOException, InterruptedException {
+        HttpResponse<byte[]> reponse = httpClient.send(requete, HttpResponse.BodyHandlers.ofByteArray());
+        // 503 : requête rejetée faute de connexion JDBC disponible (contre-pression)
+        if (reponse.statusCode() != 200 && reponse.statusCode() != 503) {
+            throw new IllegalStateException("Réponse HTTP " + reponse.statusCode());
+        }
+        return reponse.statusCode();
+    }
+}
@@ -0,0 +1,35 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.entity.Facture;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des totaux d'une facture à partir de ses lignes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FactureBenchmark {
+    
+    @Param({"1", "100", "10000"})
+    public int lignes;
+    
+    @Param({JeuDeDonnees.TVA_NORMALE, JeuDeDonnees.TVA_MIXTE})
+    public String mixTva;
+    
+    private Facture facture;
+    
+    @Setup
+    public void setUp() {
+        facture = JeuDeDonnees.facture(1L, lignes, mixTva);
+    }
+    
+    @Benchmark
+    public BigDecimal calculerTotaux() {
+        facture.calculerTotaux();
+        return facture.getTotalTTC();
+    }
+}
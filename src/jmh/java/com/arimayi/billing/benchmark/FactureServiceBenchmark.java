@@ -0,0 +1,67 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.service.FactureService;
+import com.arimayi.billing.service.RegistreTauxTVA;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion entité vers DTO et validation des taux de TVA de FactureService (méthodes privées)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FactureServiceBenchmark {
+    
+    @Param({"1", "100", "10000"})
+    public int lignes;
+    
+    @Param({JeuDeDonnees.TVA_NORMALE, JeuDeDonnees.TVA_MIXTE})
+    public String mixTva;
+    
+    private final FactureService factureService = new FactureService();
+    private MethodHandle convertToDto;
+    private MethodHandle validateTauxTVA;
+    private Facture facture;
+    private List<LigneFactureDto> lignesDto;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(FactureService.class, MethodHandles.lookup());
+        // Minuteries enregistrées comme dans l'application, pour mesurer la conversion avec son instrumentation
+        lookup.findSetter(FactureService.class, "meterRegistry", MeterRegistry.class)
+                .invoke(factureService, new SimpleMeterRegistry());
+        lookup.findVirtual(FactureService.class, "initialiserMesures", MethodType.methodType(void.class))
+                .invoke(factureService);
+        // Taux de TVA par défaut (billing.tva.taux non lu hors de Spring)
+        lookup.findSetter(FactureService.class, "registreTauxTVA", RegistreTauxTVA.class)
+                .invoke(factureService, new RegistreTauxTVA());
+        convertToDto = lookup.findVirtual(FactureService.class, "convertToDto",
+                MethodType.methodType(FactureDto.class, Facture.class));
+        validateTauxTVA = lookup.findVirtual(FactureService.class, "validateTauxTVA",
+                MethodType.methodType(void.class, List.class));
+        facture = JeuDeDonnees.facture(1L, lignes, mixTva);
+        lignesDto = JeuDeDonnees.lignesDto(lignes, mixTva);
+    }
+    
+    @Benchmark
+    public FactureDto convertToDto() throws Throwable {
+        return (FactureDto) convertToDto.invokeExact(factureService, facture);
+    }
+    
+    @Benchmark
+    public List<LigneFactureDto> validateTauxTVA() throws Throwable {
+        validateTauxTVA.invokeExact(factureService, lignesDto);
+        return lignesDto;
+    }
+}
@@ -0,0 +1,72 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Coût CPU et taille sur le réseau d'une liste de factures selon le format négocié (JSON, Smile, CBOR),
+ * avec ou sans compression gzip, configurés comme l'API. Les tailles sont affichées à la préparation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FormatsReponseBenchmark {
+    
+    @Param({"100", "1000"})
+    public int factures;
+    
+    @Param({"json", "smile", "cbor"})
+    public String format;
+    
+    @Param({"false", "true"})
+    public boolean gzip;
+    
+    private ObjectMapper objectMapper;
+    private List<FactureDto> liste;
+    
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper(fabrique(format)).findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        liste = new ArrayList<>(factures);
+        for (int i = 1; i <= factures; i++) {
+            liste.add(JeuDeDonnees.factureDto(i, 3, JeuDeDonnees.TVA_MIXTE));
+        }
+        System.out.printf("%n%d factures en %s%s : %d octets%n", factures, format, gzip ? " + gzip" : "",
+                serialiser().length);
+    }
+    
+    @Benchmark
+    public byte[] serialiser() throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(64 * 1024);
+        if (gzip) {
+            try (GZIPOutputStream compression = new GZIPOutputStream(sortie, 8 * 1024)) {
+                objectMapper.writeValue(compression, liste);
+            }
+        } else {
+            objectMapper.writeValue(sortie, liste);
+        }
+        return sortie.toByteArray();
+    }
+    
+    private static JsonFactory fabrique(String format) {
+        return switch (format) {
+            case "smile" -> SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.entity.LigneFacture;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeux de données déterministes partagés par les benchmarks
+ */
+final class JeuDeDonnees {
+    
+    /**
+     * Tous les taux de TVA à 20 %
+     */
+    static final String TVA_NORMALE = "normale";
+    
+    /**
+     * Taux autorisés en alternance (0 %, 5,5 %, 10 %, 20 %)
+     */
+    static final String TVA_MIXTE = "mixte";
+    
+    private static final BigDecimal[] TAUX_MIXTES = {
+        BigDecimal.ZERO, new BigDecimal("5.5"), new BigDecimal("10"), new BigDecimal("20")
+    };
+    private static final BigDecimal TAUX_NORMAL = new BigDecimal("20");
+    
+    private JeuDeDonnees() {}
+    
+    static BigDecimal taux(String mixTva, int index) {
+        return TVA_MIXTE.equals(mixTva) ? TAUX_MIXTES[index % TAUX_MIXTES.length] : TAUX_NORMAL;
+    }
+    
+    static BigDecimal quantite(Random random) {
+        return BigDecimal.valueOf(1 + random.nextInt(10_000), 2);
+    }
+    
+    static BigDecimal prix(Random random) {
+        return BigDecimal.valueOf(random.nextInt(500_000), 2);
+    }
+    
+    static Client client() {
+        Client client = new Client("Entreprise Benchmark", "bench@example.com", "12345678901234");
+        client.setId(1L);
+        return client;
+    }
+    
+    static Facture facture(long id, int lignes, String mixTva) {
+        Random random = new Random(id);
+        Facture facture = new Facture(LocalDate.of(2024, 1, 15), client());
+        facture.setId(id);
+        facture.setNumero(String.format("FAC-2024-%04d", id));
+        List<LigneFacture> liste = new ArrayList<>(lignes);
+        for (int i = 0; i < lignes; i++) {
+            LigneFacture ligne = new LigneFacture("Prestation " + i, quantite(random), prix(random), taux(mixTva, i));
+            ligne.setId(id * 100_000 + i);
+            ligne.setFacture(facture);
+            liste.add(ligne);
+        }
+        facture.setLignes(liste);
+        facture.calculerTotaux();
+        return facture;
+    }
+    
+    static List<LigneFactureDto> lignesDto(int lignes, String mixTva) {
+        Random random = new Random(lignes);
+        List<LigneFactureDto> liste = new ArrayList<>(lignes);
+        for (int i = 0; i < lignes; i++) {
+            liste.add(new LigneFactureDto("Prestation " + i, quantite(random), prix(random), taux(mixTva, i)));
+        }
+        return liste;
+    }
+    
+    static FactureDto factureDto(long id, int lignes, String mixTva) {
+        Facture facture = facture(id, lignes, mixTva);
+        FactureDto dto = new FactureDto(facture.getDate(), 1L, new ArrayList<>(lignes));
+        dto.setId(id);
+        dto.setNumero(facture.getNumero());
+        ClientDto client = new ClientDto("Entreprise Benchmark", "bench@example.com", "12345678901234");
+        client.setId(1L);
+        client.setDateCreation(LocalDateTime.of(2024, 1, 1, 9, 0));
+        dto.setClient(client);
+        for (LigneFacture ligne : facture.getLignes()) {
+            LigneFactureDto ligneDto = new LigneFactureDto(ligne.getDescription(), ligne.getQuantite(),
+                    ligne.getPrixUnitaireHT(), ligne.getTauxTVA());
+            ligneDto.setId(ligne.getId());
+            ligneDto.setTotalHT(ligne.getTotalHT());
+            ligneDto.setTotalTVA(ligne.getTotalTVA());
+            ligneDto.setTotalTTC(ligne.getTotalTTC());
+            dto.getLignes().add(ligneDto);
+        }
+        dto.setTotalHT(facture.getTotalHT());
+        dto.setTotalTVA(facture.getTotalTVA());
+        dto.setTotalTTC(facture.getTotalTTC());
+        return dto;
+    }
+}
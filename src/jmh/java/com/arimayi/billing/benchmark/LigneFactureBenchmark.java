@@ -0,0 +1,63 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.calcul.CalculMontants;
+import com.arimayi.billing.entity.LigneFacture;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des totaux d'une ligne de facture
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class LigneFactureBenchmark {
+    
+    private static final int TAILLE = 1024;
+    
+    @Param({JeuDeDonnees.TVA_NORMALE, JeuDeDonnees.TVA_MIXTE})
+    public String mixTva;
+    
+    private final BigDecimal[] quantites = new BigDecimal[TAILLE];
+    private final BigDecimal[] prix = new BigDecimal[TAILLE];
+    private final BigDecimal[] taux = new BigDecimal[TAILLE];
+    private final long[] quantitesCentiemes = new long[TAILLE];
+    private final long[] prixCentimes = new long[TAILLE];
+    private final long[] tauxCentiemes = new long[TAILLE];
+    private int index;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(TAILLE);
+        for (int i = 0; i < TAILLE; i++) {
+            quantites[i] = JeuDeDonnees.quantite(random);
+            prix[i] = JeuDeDonnees.prix(random);
+            taux[i] = JeuDeDonnees.taux(mixTva, i);
+            quantitesCentiemes[i] = CalculMontants.versUnites(quantites[i]);
+            prixCentimes[i] = CalculMontants.versUnites(prix[i]);
+            tauxCentiemes[i] = CalculMontants.versUnites(taux[i]);
+        }
+    }
+    
+    /**
+     * Création d'une ligne, totaux calculés et convertis en BigDecimal
+     */
+    @Benchmark
+    public LigneFacture creerLigne() {
+        int i = index++ & (TAILLE - 1);
+        return new LigneFacture("Prestation", quantites[i], prix[i], taux[i]);
+    }
+    
+    /**
+     * Calcul seul des totaux HT et TVA en centimes
+     */
+    @Benchmark
+    public long totauxCentimes() {
+        int i = index++ & (TAILLE - 1);
+        long totalHT = CalculMontants.totalHT(quantitesCentiemes[i], prixCentimes[i]);
+        return totalHT + CalculMontants.totalTVA(totalHT, tauxCentiemes[i]);
+    }
+}
@@ -0,0 +1,70 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.service.NumerotationFactureService;
+import com.arimayi.billing.service.ReservationNumeros;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Débit d'attribution des numéros de facture par 8 threads : un aller-retour en base par bloc de numéros,
+ * simulé par une attente de latenceReservation microsecondes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+@State(Scope.Benchmark)
+public class NumerotationBenchmark {
+    
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 1);
+    
+    @Param({"0", "500"})
+    public long latenceReservation;
+    
+    @Param({"1", "50"})
+    public int tailleBloc;
+    
+    private NumerotationFactureService numerotation;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        numerotation = new NumerotationFactureService();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(NumerotationFactureService.class, MethodHandles.lookup());
+        lookup.findSetter(NumerotationFactureService.class, "reservationNumeros", ReservationNumeros.class)
+                .invoke(numerotation, new ReservationSimulee(TimeUnit.MICROSECONDS.toNanos(latenceReservation)));
+        lookup.findSetter(NumerotationFactureService.class, "tailleBloc", int.class)
+                .invoke(numerotation, tailleBloc);
+    }
+    
+    @Benchmark
+    public String allouerNumero() {
+        return numerotation.allouerNumero(DATE);
+    }
+    
+    /**
+     * Table compteurs_facture simulée en mémoire, avec la latence d'une réservation en base
+     */
+    private static final class ReservationSimulee extends ReservationNumeros {
+        
+        private final long latence;
+        private long dernierNumero;
+        
+        ReservationSimulee(long latence) {
+            this.latence = latence;
+        }
+        
+        @Override
+        public synchronized BlocReserve reserverBloc(int annee, int taille) {
+            if (latence > 0) {
+                LockSupport.parkNanos(latence);
+            }
+            long depart = dernierNumero;
+            dernierNumero += taille;
+            return new BlocReserve(depart + 1, depart + taille, List.of());
+        }
+    }
+}
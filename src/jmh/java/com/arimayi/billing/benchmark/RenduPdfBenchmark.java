@@ -0,0 +1,59 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.pdf.GabaritFacturePdf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu PDF d'un lot de factures réparti sur un pool de workers partageant le même gabarit
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RenduPdfBenchmark {
+    
+    @Param({"1", "4"})
+    public int workers;
+    
+    @Param({"100"})
+    public int factures;
+    
+    private GabaritFacturePdf gabarit;
+    private ExecutorService pool;
+    private List<FactureDto> liste;
+    
+    @Setup
+    public void setUp() {
+        gabarit = new GabaritFacturePdf("AriMayi");
+        pool = Executors.newFixedThreadPool(workers);
+        liste = new ArrayList<>(factures);
+        for (int i = 1; i <= factures; i++) {
+            liste.add(JeuDeDonnees.factureDto(i, 3, JeuDeDonnees.TVA_MIXTE));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+    
+    @Benchmark
+    public long rendreLot() {
+        List<CompletableFuture<byte[]>> rendus = new ArrayList<>(factures);
+        for (FactureDto facture : liste) {
+            rendus.add(CompletableFuture.supplyAsync(() -> gabarit.rendre(facture), pool));
+        }
+        long octets = 0;
+        for (CompletableFuture<byte[]> rendu : rendus) {
+            octets += rendu.join().length;
+        }
+        return octets;
+    }
+}
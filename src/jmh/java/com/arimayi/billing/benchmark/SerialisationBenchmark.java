@@ -0,0 +1,44 @@
+package com.arimayi.billing.benchmark;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation Jackson d'une liste de factures (3 lignes par facture), configurée comme l'API
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerialisationBenchmark {
+    
+    @Param({"1", "100", "10000"})
+    public int factures;
+    
+    @Param({JeuDeDonnees.TVA_NORMALE, JeuDeDonnees.TVA_MIXTE})
+    public String mixTva;
+    
+    private ObjectMapper objectMapper;
+    private List<FactureDto> liste;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        liste = new ArrayList<>(factures);
+        for (int i = 1; i <= factures; i++) {
+            liste.add(JeuDeDonnees.factureDto(i, 3, mixTva));
+        }
+    }
+    
+    @Benchmark
+    public byte[] serialiserJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(liste);
+    }
+}
@@ -0,0 +1,99 @@
+package com.arimayi.billing.calcul;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Moteur de calcul des montants de facture en virgule fixe sur des {@code long}.
+ * Les montants sont exprimés en centimes, les quantités en centièmes et les taux de TVA en centièmes
+ * de pourcent (20 % = 2000, soit le taux ramené à 4 décimales). Les arrondis suivent la règle HALF_UP
+ * à 2 décimales ; la conversion en {@link BigDecimal} n'a lieu qu'aux frontières (persistance, DTO).
+ * Les opérations sur des {@code long} n'allouent rien ; {@link #versUnites} et {@link #versMontant}
+ * créent un {@link BigDecimal} par valeur convertie.
+ */
+public final class CalculMontants {
+    
+    /**
+     * Nombre de décimales des montants, quantités et taux en pourcent
+     */
+    public static final int ECHELLE = 2;
+    
+    /**
+     * Valeur renvoyée quand un {@link BigDecimal} ne tient pas exactement sur un {@code long} à l'échelle demandée
+     */
+    public static final long NON_REPRESENTABLE = Long.MIN_VALUE;
+    
+    private static final long CENT = 100;
+    private static final long DIX_MILLE = 10_000;
+    private static final BigDecimal CENT_DECIMAL = BigDecimal.valueOf(100);
+    
+    private CalculMontants() {}
+    
+    /**
+     * Total HT d'une ligne en centimes : quantité × prix unitaire, arrondi HALF_UP au centime
+     *
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long totalHT(long quantiteCentiemes, long prixUnitaireCentimes) {
+        return arrondir(Math.multiplyExact(quantiteCentiemes, prixUnitaireCentimes), CENT);
+    }
+    
+    /**
+     * Total TVA en centimes : total HT × taux, arrondi HALF_UP au centime
+     *
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long totalTVA(long totalHTCentimes, long tauxCentiemesPourcent) {
+        return arrondir(Math.multiplyExact(totalHTCentimes, tauxCentiemesPourcent), DIX_MILLE);
+    }
+    
+    /**
+     * Division entière arrondie HALF_UP (la moitié s'arrondit en s'éloignant de zéro)
+     *
+     * @throws ArithmeticException en cas de dépassement de capacité
+     */
+    public static long arrondir(long valeur, long diviseur) {
+        long moitie = diviseur / 2;
+        return valeur >= 0
+                ? Math.addExact(valeur, moitie) / diviseur
+                : -(Math.subtractExact(moitie, valeur) / diviseur);
+    }
+    
+    /**
+     * Convertit un décimal en entier à l'échelle 2 (centimes, centièmes) sans arrondi
+     *
+     * @return la valeur, ou {@link #NON_REPRESENTABLE} si elle a plus de 2 décimales ou dépasse un {@code long}
+     */
+    public static long versUnites(BigDecimal valeur) {
+        if (valeur == null || valeur.scale() > ECHELLE) {
+            return NON_REPRESENTABLE;
+        }
+        try {
+            return valeur.movePointRight(ECHELLE).longValueExact();
+        } catch (ArithmeticException ex) {
+            return NON_REPRESENTABLE;
+        }
+    }
+    
+    /**
+     * Convertit des centimes en montant décimal à 2 décimales
+     */
+    public static BigDecimal versMontant(long centimes) {
+        return BigDecimal.valueOf(centimes, ECHELLE);
+    }
+    
+    /**
+     * Total HT en {@link BigDecimal}, pour les valeurs non représentables en virgule fixe
+     */
+    public static BigDecimal totalHT(BigDecimal quantite, BigDecimal prixUnitaireHT) {
+        return quantite.multiply(prixUnitaireHT).setScale(ECHELLE, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Total TVA en {@link BigDecimal}, pour les valeurs non représentables en virgule fixe
+     */
+    public static BigDecimal totalTVA(BigDecimal totalHT, BigDecimal tauxTVA) {
+        return totalHT.multiply(tauxTVA.divide(CENT_DECIMAL, 4, RoundingMode.HALF_UP))
+                .setScale(ECHELLE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,91 @@
+package com.arimayi.billing.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Encodeur de mots de passe qui mémorise pour une courte durée les vérifications réussies,
+ * pour ne pas payer une vérification BCrypt à chaque requête httpBasic.
+ * La clé du cache est un HMAC-SHA256 (clé aléatoire propre au processus) du mot de passe et de son empreinte :
+ * le cache ne contient aucun mot de passe et un changement d'empreinte invalide l'entrée.
+ * Les échecs ne sont jamais mis en cache et restent au coût complet de l'encodeur délégué.
+ */
+public class EncodeurMotDePasseEnCache implements PasswordEncoder {
+
+    private static final String ALGORITHME = "HmacSHA256";
+
+    private final PasswordEncoder delegue;
+    private final Cache<String, Boolean> verifies;
+    private final ThreadLocal<Mac> hmac;
+
+    public EncodeurMotDePasseEnCache(PasswordEncoder delegue, long tailleMax, Duration dureeDeVie) {
+        this.delegue = delegue;
+        this.verifies = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(dureeDeVie)
+                .build();
+
+        byte[] cle = new byte[32];
+        new SecureRandom().nextBytes(cle);
+        SecretKeySpec secret = new SecretKeySpec(cle, ALGORITHME);
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHME);
+                mac.init(secret);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 indisponible", ex);
+            }
+        });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegue.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegue.matches(rawPassword, encodedPassword);
+        }
+        String cle = cle(rawPassword, encodedPassword);
+        if (verifies.getIfPresent(cle) != null) {
+            return true;
+        }
+        boolean valide = delegue.matches(rawPassword, encodedPassword);
+        if (valide) {
+            verifies.put(cle, Boolean.TRUE);
+        }
+        return valide;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegue.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Vide le cache des vérifications (changement de mot de passe, révocation)
+     */
+    public void invalider() {
+        verifies.invalidateAll();
+    }
+
+    private String cle(CharSequence rawPassword, String encodedPassword) {
+        Mac mac = hmac.get();
+        mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(mac.doFinal());
+    }
+}
@@ -0,0 +1,39 @@
+package com.arimayi.billing.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formats binaires proposés en négociation de contenu à côté du JSON (en-tête Accept) :
+ * CBOR (application/cbor) et Smile (application/x-jackson-smile).
+ * Les convertisseurs reprennent la configuration Jackson de l'application (spring.jackson.*, modules).
+ */
+@Configuration
+public class FormatsBinairesConfig {
+    
+    /**
+     * Smile, avec références aux chaînes déjà écrites : les noms de champs et les valeurs répétées
+     * d'une liste de factures (client, descriptions) ne sont écrits qu'une fois
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory smile = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smile).build());
+    }
+    
+    /**
+     * CBOR (RFC 8949), sans extension, pour les clients qui disposent d'un décodeur standard
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
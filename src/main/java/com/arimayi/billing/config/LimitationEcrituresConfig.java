@@ -0,0 +1,50 @@
+package com.arimayi.billing.config;
+
+import com.arimayi.billing.limitation.LimiteurEcritures;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Limitation des écritures par utilisateur (seau à jetons par groupe d'endpoints) et des écritures simultanées ;
+ * le filtre correspondant est placé dans la chaîne de sécurité (SecurityConfig).
+ * Chaque écriture occupe une connexion du pool principal : le plafond d'écritures simultanées doit rester
+ * inférieur à la taille du pool pour laisser des connexions aux lectures.
+ */
+@Configuration
+@ConditionalOnProperty(name = "billing.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class LimitationEcrituresConfig {
+
+    @Bean
+    public LimiteurEcritures limiteurEcritures(
+            MeterRegistry meterRegistry,
+            @Value("${billing.rate-limit.factures.per-second:5}") double facturesParSeconde,
+            @Value("${billing.rate-limit.factures.burst:20}") int facturesRafale,
+            @Value("${billing.rate-limit.clients.per-second:2}") double clientsParSeconde,
+            @Value("${billing.rate-limit.clients.burst:10}") int clientsRafale,
+            @Value("${billing.rate-limit.max-concurrent-writes:5}") int ecrituresSimultanees,
+            @Value("${billing.rate-limit.max-wait:100ms}") Duration attenteMax,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int taillePool) {
+        verifierEcrituresSimultanees(ecrituresSimultanees, taillePool);
+        return new LimiteurEcritures(
+                Map.of("factures", new LimiteurEcritures.Debit(facturesParSeconde, facturesRafale),
+                        "clients", new LimiteurEcritures.Debit(clientsParSeconde, clientsRafale)),
+                ecrituresSimultanees, attenteMax, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Refuse au démarrage un plafond d'écritures simultanées qui pourrait occuper tout le pool de connexions
+     */
+    static void verifierEcrituresSimultanees(int ecrituresSimultanees, int taillePool) {
+        if (ecrituresSimultanees < 1 || ecrituresSimultanees >= taillePool) {
+            throw new IllegalStateException("billing.rate-limit.max-concurrent-writes (" + ecrituresSimultanees
+                    + ") doit être compris entre 1 et la taille du pool de connexions moins un ("
+                    + (taillePool - 1) + ", spring.datasource.hikari.maximum-pool-size=" + taillePool + ")");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.arimayi.billing.config;
+
+import com.arimayi.billing.profilage.FiltreProfilageSql;
+import com.arimayi.billing.profilage.ProfileurSql;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Profilage SQL par requête HTTP : la source de données est enveloppée par datasource-proxy
+ * et chaque requête HTTP ouvre un profil des requêtes SQL qu'elle exécute
+ */
+@Configuration
+@ConditionalOnProperty(name = "billing.sql.profiler.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilageSqlConfig {
+
+    @Bean
+    public ProfileurSql profileurSql(@Value("${billing.sql.profiler.slow-query:100ms}") Duration seuilRequeteLente) {
+        return new ProfileurSql(seuilRequeteLente);
+    }
+
+    /**
+     * Enveloppe les sources de données ; statique pour ne pas initialiser la configuration trop tôt
+     */
+    @Bean
+    public static BeanPostProcessor profilageSourceDeDonnees(ObjectProvider<ProfileurSql> profileur) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(profileur.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltreProfilageSql> filtreProfilageSql(
+            ProfileurSql profileur,
+            @Value("${billing.sql.profiler.sample-rate:0.01}") double tauxEchantillonnage,
+            @Value("${billing.sql.profiler.slow-request:200ms}") Duration seuilRequeteHttp,
+            @Value("${billing.sql.profiler.headers:false}") boolean entetes) {
+        FilterRegistrationBean<FiltreProfilageSql> enregistrement = new FilterRegistrationBean<>(
+                new FiltreProfilageSql(profileur, tauxEchantillonnage, seuilRequeteHttp, entetes));
+        enregistrement.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return enregistrement;
+    }
+}
@@ -0,0 +1,91 @@
+package com.arimayi.billing.config;
+
+import com.arimayi.billing.routage.EcrituresRecentes;
+import com.arimayi.billing.routage.PoolsConnexions;
+import com.arimayi.billing.routage.ReplicationSimulee;
+import com.arimayi.billing.routage.SourceDeDonneesRoutee;
+import com.arimayi.billing.routage.SurveillanceReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routage lecture/écriture : les transactions en lecture seule sont servies par les réplicas
+ * (billing.datasource.replicas.urls), les écritures par la base principale (spring.datasource.*).
+ * Le profil « replicas » l'active avec un réplica H2 local alimenté par une réplication simulée.
+ */
+@Configuration
+@ConditionalOnProperty(name = "billing.datasource.routing.enabled", havingValue = "true")
+public class RoutageSourceDeDonneesConfig {
+
+    @Bean(destroyMethod = "fermer")
+    public PoolsConnexions poolsConnexions(DataSourceProperties proprietes, Environment environment,
+                                           ObjectProvider<MeterRegistry> meterRegistry,
+                                           @Value("${billing.datasource.replicas.urls}") List<String> urlsReplicas) {
+        HikariDataSource primaire = pool(proprietes, environment, proprietes.determineUrl(), "primaire");
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urlsReplicas.size(); i++) {
+            HikariDataSource replica = pool(proprietes, environment, urlsReplicas.get(i), "replica-" + (i + 1));
+            // Les métriques du pool principal sont liées par Spring Boot via la source de données exposée
+            meterRegistry.ifAvailable(registre -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registre)));
+            replicas.add(replica);
+        }
+        return new PoolsConnexions(primaire, replicas);
+    }
+
+    @Bean(destroyMethod = "arreter")
+    @ConditionalOnProperty(name = "billing.datasource.replication.simulated", havingValue = "true")
+    public ReplicationSimulee replicationSimulee(PoolsConnexions pools,
+                                                 @Value("${billing.datasource.replication.interval:1s}") Duration intervalle) {
+        return new ReplicationSimulee(pools.primaire(), pools.replicas(), intervalle);
+    }
+
+    @Bean(initMethod = "demarrer", destroyMethod = "arreter")
+    public SurveillanceReplicas surveillanceReplicas(
+            PoolsConnexions pools, ObjectProvider<ReplicationSimulee> replication,
+            @Value("${billing.datasource.replicas.max-lag:5s}") Duration retardMax,
+            @Value("${billing.datasource.replicas.health-check-interval:2s}") Duration intervalle) {
+        return new SurveillanceReplicas(List.copyOf(pools.replicas()), replication.getIfAvailable(), retardMax, intervalle);
+    }
+
+    @Bean
+    public EcrituresRecentes ecrituresRecentes(@Value("${billing.datasource.read-your-writes:5s}") Duration fenetre) {
+        return new EcrituresRecentes(fenetre);
+    }
+
+    /**
+     * Source de données de l'application ; remplace celle de Spring Boot
+     */
+    @Bean
+    public DataSource dataSource(PoolsConnexions pools, SurveillanceReplicas surveillance,
+                                 EcrituresRecentes ecrituresRecentes) {
+        return new LazyConnectionDataSourceProxy(
+                new SourceDeDonneesRoutee(pools.primaire(), pools.replicas(), surveillance, ecrituresRecentes));
+    }
+
+    /**
+     * Pool configuré comme celui de Spring Boot (spring.datasource.*, spring.datasource.hikari.*)
+     */
+    private static HikariDataSource pool(DataSourceProperties proprietes, Environment environment, String url,
+                                         String nom) {
+        HikariDataSource pool = proprietes.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(nom);
+        return pool;
+    }
+}
@@ -1,7 +1,13 @@
 package com.arimayi.billing.config;
 
+import com.arimayi.billing.limitation.FiltreLimitationEcritures;
+import com.arimayi.billing.limitation.LimiteurEcritures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -11,6 +17,9 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+import java.time.Duration;
 
 /**
  * Configuration de sécurité Spring Security
@@ -23,11 +32,17 @@ public class SecurityConfig {
      * Configuration de la chaîne de filtres de sécurité
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ObjectProvider<LimiteurEcritures> limiteurEcritures,
+                                           ObjectMapper objectMapper) throws Exception {
+        // Limitation des écritures, une fois l'utilisateur authentifié et autorisé
+        limiteurEcritures.ifAvailable(limiteur -> http.addFilterAfter(
+            new FiltreLimitationEcritures(limiteur, objectMapper), AuthorizationFilter.class));
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/h2-console/**").permitAll()
+                .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/h2-console/**", "/actuator/health").permitAll()
+                .requestMatchers(HttpMethod.PUT, "/api/taux-tva").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/chiffre-affaires/cumuls/reconstruction").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .httpBasic(httpBasic -> {})
@@ -40,16 +55,16 @@ public class SecurityConfig {
      * Service de gestion des utilisateurs en mémoire
      */
     @Bean
-    public UserDetailsService userDetailsService() {
+    public UserDetailsService userDetailsService(PasswordEncoder passwordEncoder) {
         UserDetails admin = User.builder()
             .username("admin")
-            .password(passwordEncoder().encode("admin123"))
+            .password(passwordEncoder.encode("admin123"))
             .roles("ADMIN")
             .build();
             
         UserDetails user = User.builder()
             .username("user")
-            .password(passwordEncoder().encode("user123"))
+            .password(passwordEncoder.encode("user123"))
             .roles("USER")
             .build();
         
@@ -57,10 +72,12 @@ public class SecurityConfig {
     }
     
     /**
-     * Encodeur de mots de passe
+     * Encodeur de mots de passe : BCrypt, avec mise en cache des vérifications réussies
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${billing.security.credentials-cache.max-size:1000}") long tailleMax,
+            @Value("${billing.security.credentials-cache.ttl:5m}") Duration dureeDeVie) {
+        return new EncodeurMotDePasseEnCache(new BCryptPasswordEncoder(), tailleMax, dureeDeVie);
     }
 }
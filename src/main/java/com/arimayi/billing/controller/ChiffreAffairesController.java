@@ -0,0 +1,88 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.dto.ChiffreAffairesClientDto;
+import com.arimayi.billing.dto.ChiffreAffairesMensuelDto;
+import com.arimayi.billing.dto.ChiffreAffairesTauxDto;
+import com.arimayi.billing.dto.VerificationCumulsDto;
+import com.arimayi.billing.service.ChiffreAffairesService;
+import com.arimayi.billing.service.CumulChiffreAffairesService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Contrôleur REST pour le chiffre d'affaires
+ */
+@RestController
+@RequestMapping("/api/chiffre-affaires")
+@Tag(name = "Chiffre d'affaires", description = "API d'agrégation du chiffre d'affaires")
+public class ChiffreAffairesController {
+    
+    @Autowired
+    private ChiffreAffairesService chiffreAffairesService;
+    
+    @Autowired
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    /**
+     * Récupère le chiffre d'affaires par mois
+     */
+    @GetMapping("/mois")
+    @Operation(summary = "Chiffre d'affaires par mois", description = "Nombre de factures et totaux HT, TVA et TTC de chaque mois entre deux dates")
+    public ResponseEntity<List<ChiffreAffairesMensuelDto>> getParMois(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        List<ChiffreAffairesMensuelDto> chiffreAffaires = chiffreAffairesService.getParMois(dateDebut, dateFin);
+        return ResponseEntity.ok(chiffreAffaires);
+    }
+    
+    /**
+     * Récupère le chiffre d'affaires par client
+     */
+    @GetMapping("/clients")
+    @Operation(summary = "Chiffre d'affaires par client", description = "Nombre de factures et totaux HT, TVA et TTC de chaque client entre deux dates")
+    public ResponseEntity<List<ChiffreAffairesClientDto>> getParClient(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        List<ChiffreAffairesClientDto> chiffreAffaires = chiffreAffairesService.getParClient(dateDebut, dateFin);
+        return ResponseEntity.ok(chiffreAffaires);
+    }
+    
+    /**
+     * Récupère le chiffre d'affaires par taux de TVA
+     */
+    @GetMapping("/taux-tva")
+    @Operation(summary = "Chiffre d'affaires par taux de TVA", description = "Nombre de lignes et totaux HT, TVA et TTC de chaque taux de TVA entre deux dates")
+    public ResponseEntity<List<ChiffreAffairesTauxDto>> getParTauxTVA(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        List<ChiffreAffairesTauxDto> chiffreAffaires = chiffreAffairesService.getParTauxTVA(dateDebut, dateFin);
+        return ResponseEntity.ok(chiffreAffaires);
+    }
+    
+    /**
+     * Reconstruit les cumuls mensuels par client
+     */
+    @PostMapping("/cumuls/reconstruction")
+    @Operation(summary = "Reconstruire les cumuls", description = "Recalcule les cumuls mensuels par client à partir des factures puis les vérifie")
+    public ResponseEntity<VerificationCumulsDto> reconstruireCumuls() {
+        VerificationCumulsDto verification = cumulChiffreAffairesService.reconstruire();
+        return ResponseEntity.ok(verification);
+    }
+    
+    /**
+     * Vérifie les cumuls mensuels par client
+     */
+    @GetMapping("/cumuls/verification")
+    @Operation(summary = "Vérifier les cumuls", description = "Compare les cumuls mensuels par client aux totaux recalculés depuis les factures")
+    public ResponseEntity<VerificationCumulsDto> verifierCumuls() {
+        VerificationCumulsDto verification = cumulChiffreAffairesService.verifier();
+        return ResponseEntity.ok(verification);
+    }
+}
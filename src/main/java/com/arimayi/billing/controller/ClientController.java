@@ -1,6 +1,8 @@
 package com.arimayi.billing.controller;
 
+import com.arimayi.billing.dto.CacheStatistiquesDto;
 import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.PageDto;
 import com.arimayi.billing.service.ClientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,13 +26,28 @@ public class ClientController {
     private ClientService clientService;
     
     /**
-     * Récupère tous les clients
+     * Récupère les clients, au plus billing.pagination.list-max
+     *
+     * @deprecated utiliser /api/clients/page
      */
+    @Deprecated
     @GetMapping
-    @Operation(summary = "Récupérer tous les clients", description = "Retourne la liste de tous les clients")
+    @Operation(summary = "Récupérer tous les clients", deprecated = true,
+            description = "Obsolète : liste limitée à billing.pagination.list-max clients (1000) ; utiliser /api/clients/page, indiqué dans l'en-tête Link avec la suite de la liste")
     public ResponseEntity<List<ClientDto>> getAllClients() {
-        List<ClientDto> clients = clientService.getAllClients();
-        return ResponseEntity.ok(clients);
+        return ListesBornees.reponse(clientService.getAllClients(), "/api/clients/page");
+    }
+    
+    /**
+     * Récupère les clients page par page
+     */
+    @GetMapping("/page")
+    @Operation(summary = "Récupérer une page de clients", description = "Pagination par curseur : transmettre nextCursor dans le paramètre after pour obtenir la page suivante")
+    public ResponseEntity<PageDto<ClientDto>> getClientsPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        PageDto<ClientDto> page = clientService.getClientsPage(after, size);
+        return ResponseEntity.ok(page);
     }
     
     /**
@@ -43,6 +60,35 @@ public class ClientController {
         return ResponseEntity.ok(client);
     }
     
+    /**
+     * Récupère un client par son email
+     */
+    @GetMapping("/email/{email}")
+    @Operation(summary = "Récupérer un client par email", description = "Retourne le client correspondant à l'email")
+    public ResponseEntity<ClientDto> getClientByEmail(@PathVariable String email) {
+        ClientDto client = clientService.getClientByEmail(email);
+        return ResponseEntity.ok(client);
+    }
+    
+    /**
+     * Récupère un client par son SIRET
+     */
+    @GetMapping("/siret/{siret}")
+    @Operation(summary = "Récupérer un client par SIRET", description = "Retourne le client correspondant au SIRET")
+    public ResponseEntity<ClientDto> getClientBySiret(@PathVariable String siret) {
+        ClientDto client = clientService.getClientBySiret(siret);
+        return ResponseEntity.ok(client);
+    }
+    
+    /**
+     * Statistiques du cache des clients
+     */
+    @GetMapping("/cache/statistiques")
+    @Operation(summary = "Statistiques du cache des clients", description = "Taille, succès, échecs et évictions des caches par ID, email et SIRET")
+    public ResponseEntity<List<CacheStatistiquesDto>> getCacheStatistiques() {
+        return ResponseEntity.ok(clientService.getCacheStatistiques());
+    }
+    
     /**
      * Crée un nouveau client
      */
@@ -1,18 +1,34 @@
 package com.arimayi.billing.controller;
 
+import com.arimayi.billing.dto.FactureBatchResultDto;
 import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.FactureResumeDto;
+import com.arimayi.billing.dto.PageDto;
+import com.arimayi.billing.service.EtagsFactures;
 import com.arimayi.billing.service.FactureService;
+import com.arimayi.billing.service.IdempotenceFactures;
+import com.arimayi.billing.service.RenduPdfService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.security.Principal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Contrôleur REST pour la gestion des factures
@@ -22,17 +38,99 @@ import java.util.List;
 @Tag(name = "Factures", description = "API de gestion des factures")
 public class FactureController {
     
+    static final String ENTETE_IDEMPOTENCE = "Idempotency-Key";
+    static final String ENTETE_REJOUE = "Idempotent-Replayed";
+    
+    // Formats d'une facture (voir FormatsBinairesConfig), dans l'ordre de préférence à qualité égale
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.valueOf("application/x-jackson-smile"), MediaType.APPLICATION_CBOR);
+    
     @Autowired
     private FactureService factureService;
     
+    @Autowired
+    private RenduPdfService renduPdfService;
+    
+    @Autowired
+    private EtagsFactures etagsFactures;
+    
+    @Autowired
+    private IdempotenceFactures idempotenceFactures;
+    
+    // Durée pendant laquelle le client authentifié peut resservir une facture sans la revalider
+    @Value("${billing.http.factures.max-age:1h}")
+    private Duration dureeCache = Duration.ofHours(1);
+    
     /**
-     * Récupère toutes les factures
+     * Récupère les factures, au plus billing.pagination.list-max
+     *
+     * @deprecated utiliser /api/factures/page
      */
+    @Deprecated
     @GetMapping
-    @Operation(summary = "Récupérer toutes les factures", description = "Retourne la liste de toutes les factures")
+    @Operation(summary = "Récupérer toutes les factures", deprecated = true,
+            description = "Obsolète : liste limitée à billing.pagination.list-max factures (1000) ; utiliser /api/factures/page, indiqué dans l'en-tête Link avec la suite de la liste")
     public ResponseEntity<List<FactureDto>> getAllFactures() {
-        List<FactureDto> factures = factureService.getAllFactures();
-        return ResponseEntity.ok(factures);
+        return ListesBornees.reponse(factureService.getAllFactures(), "/api/factures/page");
+    }
+    
+    /**
+     * Récupère les factures page par page
+     */
+    @GetMapping("/page")
+    @Operation(summary = "Récupérer une page de factures", description = "Pagination par curseur : transmettre nextCursor dans le paramètre after pour obtenir la page suivante")
+    public ResponseEntity<PageDto<FactureDto>> getFacturesPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        PageDto<FactureDto> page = factureService.getFacturesPage(after, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    /**
+     * Récupère les résumés de factures page par page
+     */
+    @GetMapping("/resumes")
+    @Operation(summary = "Récupérer une page de résumés de factures", description = "Numéro, date, nom du client et totaux uniquement ; pagination par curseur")
+    public ResponseEntity<PageDto<FactureResumeDto>> getResumesPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        PageDto<FactureResumeDto> page = factureService.getResumesPage(after, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    /**
+     * Récupère les résumés des factures d'un client
+     */
+    @GetMapping("/resumes/client/{clientId}")
+    @Operation(summary = "Résumés des factures d'un client", description = "Numéro, date, nom du client et totaux des factures d'un client")
+    public ResponseEntity<List<FactureResumeDto>> getResumesByClient(@PathVariable Long clientId) {
+        List<FactureResumeDto> resumes = factureService.getResumesByClient(clientId);
+        return ResponseEntity.ok(resumes);
+    }
+    
+    /**
+     * Récupère les résumés des factures entre deux dates
+     */
+    @GetMapping("/resumes/periode")
+    @Operation(summary = "Résumés des factures d'une période", description = "Numéro, date, nom du client et totaux des factures entre deux dates")
+    public ResponseEntity<List<FactureResumeDto>> getResumesByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        List<FactureResumeDto> resumes = factureService.getResumesByDateRange(dateDebut, dateFin);
+        return ResponseEntity.ok(resumes);
+    }
+    
+    /**
+     * Recherche plein texte des factures
+     */
+    @GetMapping("/recherche")
+    @Operation(summary = "Rechercher des factures", description = "Recherche dans les descriptions des lignes et les noms des clients "
+            + "(sans accents ni casse, mots partiels acceptés) ; résumés classés par pertinence")
+    public ResponseEntity<List<FactureResumeDto>> rechercherFactures(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<FactureResumeDto> resumes = factureService.rechercherFactures(q, limit);
+        return ResponseEntity.ok(resumes);
     }
     
     /**
@@ -40,19 +138,42 @@ public class FactureController {
      */
     @GetMapping("/{id}")
     @Operation(summary = "Récupérer une facture par ID", description = "Retourne les détails d'une facture spécifique")
-    public ResponseEntity<FactureDto> getFactureById(@PathVariable Long id) {
-        FactureDto facture = factureService.getFactureById(id);
-        return ResponseEntity.ok(facture);
+    public ResponseEntity<FactureDto> getFactureById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseConditionnelle(id, ifNoneMatch, accept, factureService::getFactureById, cacheControl());
     }
     
     /**
      * Crée une nouvelle facture
      */
     @PostMapping
-    @Operation(summary = "Créer une nouvelle facture", description = "Crée une nouvelle facture avec calcul automatique des totaux")
-    public ResponseEntity<FactureDto> createFacture(@Valid @RequestBody FactureDto factureDto) {
-        FactureDto createdFacture = factureService.createFacture(factureDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdFacture);
+    @Operation(summary = "Créer une nouvelle facture", description = "Crée une nouvelle facture avec calcul automatique des totaux ; "
+            + "avec un en-tête Idempotency-Key, une requête rejouée retourne la facture déjà créée")
+    public ResponseEntity<FactureDto> createFacture(
+            @Valid @RequestBody FactureDto factureDto,
+            @RequestHeader(value = ENTETE_IDEMPOTENCE, required = false) String cleIdempotence,
+            Principal utilisateur) {
+        if (cleIdempotence == null) {
+            FactureDto createdFacture = factureService.createFacture(factureDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdFacture);
+        }
+        IdempotenceFactures.Resultat resultat = idempotenceFactures.creer(utilisateur.getName(), cleIdempotence,
+                factureDto, () -> factureService.createFacture(factureDto));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(ENTETE_REJOUE, Boolean.toString(resultat.rejoue()))
+                .body(resultat.facture());
+    }
+    
+    /**
+     * Crée une liste de factures par lot
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Créer des factures par lot", description = "Crée plusieurs factures en transactions groupées et retourne le résultat de chaque facture")
+    public ResponseEntity<FactureBatchResultDto> createFacturesBatch(@RequestBody List<FactureDto> factureDtos) {
+        FactureBatchResultDto resultat = factureService.createFacturesBatch(factureDtos);
+        return ResponseEntity.ok(resultat);
     }
     
     /**
@@ -88,13 +209,135 @@ public class FactureController {
         return ResponseEntity.ok(factures);
     }
     
+    /**
+     * Exporte en flux les factures entre deux dates
+     */
+    @GetMapping(value = "/periode/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exporter les factures d'une période en NDJSON", description = "Écrit une facture JSON par ligne au fil de la lecture, sans charger la période en mémoire")
+    public ResponseEntity<StreamingResponseBody> exportFacturesByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateDebut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFin) {
+        StreamingResponseBody corps = sortie -> factureService.exportFacturesNdjson(dateDebut, dateFin, sortie);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corps);
+    }
+    
     /**
      * Exporte une facture au format JSON
      */
     @GetMapping("/{id}/export")
     @Operation(summary = "Exporter une facture en JSON", description = "Retourne une facture complète au format JSON")
-    public ResponseEntity<FactureDto> exportFactureJson(@PathVariable Long id) {
-        FactureDto facture = factureService.exportFactureJson(id);
-        return ResponseEntity.ok(facture);
+    public ResponseEntity<FactureDto> exportFactureJson(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reponseConditionnelle(id, ifNoneMatch, accept, factureService::exportFactureJson, CacheControl.empty());
+    }
+    
+    /**
+     * Exporte une facture au format PDF ; comme l'export JSON, la réponse garde les en-têtes no-store de Spring Security
+     */
+    @GetMapping(value = "/{id}/export", params = "format=pdf", produces = MediaType.APPLICATION_PDF_VALUE)
+    @Operation(summary = "Exporter une facture en PDF", description = "Retourne le PDF de la facture, rendu sur le pool de rendu puis mis en cache")
+    public CompletableFuture<ResponseEntity<byte[]>> exportFacturePdf(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = etagsFactures.etag(id);
+        if (etag != null && EtagsFactures.correspond(ifNoneMatch, EtagsFactures.variante(etag, "pdf"))) {
+            return CompletableFuture.completedFuture(nonModifiee(EtagsFactures.variante(etag, "pdf")));
+        }
+        return renduPdfService.rendre(id).thenApply(pdf -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(EtagsFactures.variante(pdf.etag(), "pdf"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"facture-" + id + ".pdf\"")
+                .body(pdf.contenu()));
+    }
+    
+    /**
+     * Réponse 304 si l'ETag mémorisé de la facture correspond à If-None-Match, sans lire la base ;
+     * sinon la facture est chargée et renvoyée avec son ETag (Spring répond encore 304 s'il correspond).
+     * Chaque format a son propre ETag et la réponse varie selon Accept : un cache partagé ne doit pas
+     * resservir le CBOR d'une facture à un client qui attend du JSON.
+     * Sans Cache-Control (CacheControl.empty()), Spring Security pose ses en-têtes no-store.
+     */
+    private ResponseEntity<FactureDto> reponseConditionnelle(Long id, String ifNoneMatch, String accept,
+                                                             Function<Long, FactureDto> chargement,
+                                                             CacheControl cacheControl) {
+        MediaType format = format(accept);
+        String etag = etagFormat(etagsFactures.etag(id), format);
+        if (EtagsFactures.correspond(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        EtagsFactures.FactureEtiquetee lue = etagsFactures.charger(id, chargement);
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok()
+                .eTag(etagFormat(lue.etag(), format))
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT);
+        if (format != null) {
+            // Le format de l'ETag est imposé à la négociation de contenu
+            reponse.contentType(format);
+        }
+        return reponse.body(lue.facture());
+    }
+    
+    /**
+     * Format d'une facture demandé par l'en-tête Accept : le plus apprécié, d'après la qualité de la plage
+     * la plus précise qui l'inclut (RFC 9110) ; null si aucun ne convient, Spring répond alors 406
+     */
+    static MediaType format(String accept) {
+        List<MediaType> demandes;
+        try {
+            demandes = accept == null || accept.isBlank() ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return null;
+        }
+        MediaType choisi = null;
+        double qualiteChoisie = 0;
+        for (MediaType format : FORMATS) {
+            MediaType plage = null;
+            for (MediaType demande : demandes) {
+                if (demande.includes(format) && (plage == null || precision(demande) > precision(plage))) {
+                    plage = demande;
+                }
+            }
+            if (plage != null && plage.getQualityValue() > qualiteChoisie) {
+                choisi = format;
+                qualiteChoisie = plage.getQualityValue();
+            }
+        }
+        return choisi;
+    }
+    
+    private static int precision(MediaType plage) {
+        return plage.isWildcardType() ? 0 : plage.isWildcardSubtype() ? 1 : 2;
+    }
+    
+    /**
+     * ETag du format : celui de la facture pour le JSON, une variante par format binaire
+     */
+    private static String etagFormat(String etag, MediaType format) {
+        if (etag == null || format == null || MediaType.APPLICATION_JSON.equals(format)) {
+            return etag;
+        }
+        return EtagsFactures.variante(etag, format.getSubtype());
+    }
+    
+    private <T> ResponseEntity<T> nonModifiee(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .build();
+    }
+    
+    /**
+     * Cache du seul client authentifié, jamais d'un cache partagé (la réponse ne varie pas selon Authorization) ;
+     * revalidation par ETag une fois la durée écoulée
+     */
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(dureeCache).cachePrivate().mustRevalidate();
     }
 }
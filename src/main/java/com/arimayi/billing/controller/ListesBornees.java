@@ -0,0 +1,26 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.dto.PageDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Réponses des listes complètes, obsolètes et bornées : l'en-tête Link renvoie vers la pagination par curseur,
+ * avec la page suivante quand la liste a été tronquée
+ */
+final class ListesBornees {
+    
+    private ListesBornees() {}
+    
+    static <T> ResponseEntity<List<T>> reponse(PageDto<T> page, String cheminPage) {
+        String liens = "<" + cheminPage + ">; rel=\"successor-version\"";
+        if (page.getNextCursor() != null) {
+            liens += ", <" + cheminPage + "?after=" + page.getNextCursor() + ">; rel=\"next\"";
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, liens)
+                .body(page.getItems());
+    }
+}
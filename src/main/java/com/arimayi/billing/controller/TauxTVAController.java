@@ -0,0 +1,41 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.service.RegistreTauxTVA;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Contrôleur REST des taux de TVA autorisés
+ */
+@RestController
+@RequestMapping("/api/taux-tva")
+@Tag(name = "Taux de TVA", description = "API de consultation et de mise à jour des taux de TVA autorisés")
+public class TauxTVAController {
+    
+    @Autowired
+    private RegistreTauxTVA registreTauxTVA;
+    
+    /**
+     * Récupère les taux de TVA autorisés
+     */
+    @GetMapping
+    @Operation(summary = "Récupérer les taux de TVA autorisés", description = "Taux croissants, à 2 décimales")
+    public ResponseEntity<List<BigDecimal>> getTaux() {
+        return ResponseEntity.ok(registreTauxTVA.getTaux());
+    }
+    
+    /**
+     * Remplace les taux de TVA autorisés, sans redémarrage (réservé aux administrateurs)
+     */
+    @PutMapping
+    @Operation(summary = "Remplacer les taux de TVA autorisés", description = "S'applique aux factures créées ensuite ; les factures existantes ne sont pas modifiées. Réservé au rôle ADMIN")
+    public ResponseEntity<List<BigDecimal>> remplacerTaux(@RequestBody List<BigDecimal> taux) {
+        return ResponseEntity.ok(registreTauxTVA.remplacer(taux));
+    }
+}
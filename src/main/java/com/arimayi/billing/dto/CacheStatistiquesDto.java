@@ -0,0 +1,45 @@
+package com.arimayi.billing.dto;
+
+/**
+ * DTO pour les statistiques d'un cache
+ */
+public class CacheStatistiquesDto {
+    
+    private String nom;
+    private long taille;
+    private long succes;
+    private long echecs;
+    private long evictions;
+    private double tauxSucces;
+    
+    // Constructeurs
+    public CacheStatistiquesDto() {}
+    
+    public CacheStatistiquesDto(String nom, long taille, long succes, long echecs, long evictions, double tauxSucces) {
+        this.nom = nom;
+        this.taille = taille;
+        this.succes = succes;
+        this.echecs = echecs;
+        this.evictions = evictions;
+        this.tauxSucces = tauxSucces;
+    }
+    
+    // Getters et Setters
+    public String getNom() { return nom; }
+    public void setNom(String nom) { this.nom = nom; }
+    
+    public long getTaille() { return taille; }
+    public void setTaille(long taille) { this.taille = taille; }
+    
+    public long getSucces() { return succes; }
+    public void setSucces(long succes) { this.succes = succes; }
+    
+    public long getEchecs() { return echecs; }
+    public void setEchecs(long echecs) { this.echecs = echecs; }
+    
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+    
+    public double getTauxSucces() { return tauxSucces; }
+    public void setTauxSucces(double tauxSucces) { this.tauxSucces = tauxSucces; }
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO du chiffre d'affaires d'un client (agrégation SQL sur les factures)
+ */
+public record ChiffreAffairesClientDto(
+        Long clientId,
+        String clientNom,
+        Long nombreFactures,
+        BigDecimal totalHT,
+        BigDecimal totalTVA,
+        BigDecimal totalTTC) {
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO du chiffre d'affaires d'un mois (agrégation SQL sur les factures)
+ */
+public record ChiffreAffairesMensuelDto(
+        Integer annee,
+        Integer mois,
+        Long nombreFactures,
+        BigDecimal totalHT,
+        BigDecimal totalTVA,
+        BigDecimal totalTTC) {
+}
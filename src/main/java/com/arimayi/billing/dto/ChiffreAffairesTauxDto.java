@@ -0,0 +1,14 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO du chiffre d'affaires d'un taux de TVA (agrégation SQL sur les lignes de facture)
+ */
+public record ChiffreAffairesTauxDto(
+        BigDecimal tauxTVA,
+        Long nombreLignes,
+        BigDecimal totalHT,
+        BigDecimal totalTVA,
+        BigDecimal totalTTC) {
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO du chiffre d'affaires d'un client pour un mois (AAAAMM), utilisé pour vérifier les cumuls
+ */
+public record CumulChiffreAffairesDto(
+        Long clientId,
+        Integer anneeMois,
+        Long nombreFactures,
+        BigDecimal totalHT,
+        BigDecimal totalTVA,
+        BigDecimal totalTTC) {
+}
@@ -0,0 +1,10 @@
+package com.arimayi.billing.dto;
+
+/**
+ * Description d'une ligne avec sa facture et son client (projection JPQL pour l'index de recherche)
+ */
+public record DescriptionLigneDto(
+        Long factureId,
+        Long clientId,
+        String description) {
+}
@@ -0,0 +1,49 @@
+package com.arimayi.billing.dto;
+
+/**
+ * DTO pour le résultat d'une facture au sein d'un lot
+ */
+public class FactureBatchItemDto {
+    
+    private int index;
+    private boolean succes;
+    private Long factureId;
+    private String numero;
+    private String erreur;
+    
+    // Constructeurs
+    public FactureBatchItemDto() {}
+    
+    public static FactureBatchItemDto succes(int index, Long factureId, String numero) {
+        FactureBatchItemDto item = new FactureBatchItemDto();
+        item.index = index;
+        item.succes = true;
+        item.factureId = factureId;
+        item.numero = numero;
+        return item;
+    }
+    
+    public static FactureBatchItemDto echec(int index, String erreur) {
+        FactureBatchItemDto item = new FactureBatchItemDto();
+        item.index = index;
+        item.succes = false;
+        item.erreur = erreur;
+        return item;
+    }
+    
+    // Getters et Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    
+    public boolean isSucces() { return succes; }
+    public void setSucces(boolean succes) { this.succes = succes; }
+    
+    public Long getFactureId() { return factureId; }
+    public void setFactureId(Long factureId) { this.factureId = factureId; }
+    
+    public String getNumero() { return numero; }
+    public void setNumero(String numero) { this.numero = numero; }
+    
+    public String getErreur() { return erreur; }
+    public void setErreur(String erreur) { this.erreur = erreur; }
+}
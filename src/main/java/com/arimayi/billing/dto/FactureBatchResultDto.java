@@ -0,0 +1,33 @@
+package com.arimayi.billing.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO pour le résultat d'une création de factures par lot
+ */
+public class FactureBatchResultDto {
+    
+    private int nombreSucces;
+    private int nombreEchecs;
+    private List<FactureBatchItemDto> resultats = new ArrayList<>();
+    
+    // Constructeurs
+    public FactureBatchResultDto() {}
+    
+    public FactureBatchResultDto(List<FactureBatchItemDto> resultats) {
+        this.resultats = resultats;
+        this.nombreSucces = (int) resultats.stream().filter(FactureBatchItemDto::isSucces).count();
+        this.nombreEchecs = resultats.size() - nombreSucces;
+    }
+    
+    // Getters et Setters
+    public int getNombreSucces() { return nombreSucces; }
+    public void setNombreSucces(int nombreSucces) { this.nombreSucces = nombreSucces; }
+    
+    public int getNombreEchecs() { return nombreEchecs; }
+    public void setNombreEchecs(int nombreEchecs) { this.nombreEchecs = nombreEchecs; }
+    
+    public List<FactureBatchItemDto> getResultats() { return resultats; }
+    public void setResultats(List<FactureBatchItemDto> resultats) { this.resultats = resultats; }
+}
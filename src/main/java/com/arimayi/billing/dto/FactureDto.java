@@ -25,12 +25,15 @@ public class FactureDto {
     
     @NotEmpty(message = "Une facture doit avoir au moins une ligne")
     @Valid
-    private List<LigneFactureDto> lignes;
+    private List<@NotNull(message = "Une ligne de facture ne peut pas être vide") LigneFactureDto> lignes;
     
     private BigDecimal totalHT;
     private BigDecimal totalTVA;
     private BigDecimal totalTTC;
     
+    // Calculée à la création de la facture ; ignorée dans les demandes
+    private List<VentilationTVADto> ventilationTVA;
+    
     // Constructeurs
     public FactureDto() {}
     
@@ -67,4 +70,7 @@ public class FactureDto {
     
     public BigDecimal getTotalTTC() { return totalTTC; }
     public void setTotalTTC(BigDecimal totalTTC) { this.totalTTC = totalTTC; }
+    
+    public List<VentilationTVADto> getVentilationTVA() { return ventilationTVA; }
+    public void setVentilationTVA(List<VentilationTVADto> ventilationTVA) { this.ventilationTVA = ventilationTVA; }
 }
@@ -0,0 +1,17 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO résumé d'une facture pour les listes (projection JPQL, sans client ni lignes détaillés)
+ */
+public record FactureResumeDto(
+        Long id,
+        String numero,
+        LocalDate date,
+        String clientNom,
+        BigDecimal totalHT,
+        BigDecimal totalTVA,
+        BigDecimal totalTTC) {
+}
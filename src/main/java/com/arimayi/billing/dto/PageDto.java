@@ -0,0 +1,33 @@
+package com.arimayi.billing.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour une page de résultats paginée par curseur
+ */
+public class PageDto<T> {
+    
+    private List<T> items;
+    
+    /**
+     * Curseur opaque à transmettre dans le paramètre "after" pour obtenir la page suivante (null sur la dernière page)
+     */
+    private String nextCursor;
+    
+    // Constructeurs
+    public PageDto() {}
+    
+    public PageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters et Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasNext() { return nextCursor != null; }
+}
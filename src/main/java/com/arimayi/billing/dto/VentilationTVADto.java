@@ -0,0 +1,12 @@
+package com.arimayi.billing.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de la ventilation de la TVA d'une facture pour un taux (base HT et montant de TVA)
+ */
+public record VentilationTVADto(
+        BigDecimal tauxTVA,
+        BigDecimal baseHT,
+        BigDecimal montantTVA) {
+}
@@ -0,0 +1,29 @@
+package com.arimayi.billing.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour le résultat de la vérification des cumuls de chiffre d'affaires
+ */
+public class VerificationCumulsDto {
+    
+    private int nombreCumuls;
+    private List<String> ecarts;
+    
+    // Constructeurs
+    public VerificationCumulsDto() {}
+    
+    public VerificationCumulsDto(int nombreCumuls, List<String> ecarts) {
+        this.nombreCumuls = nombreCumuls;
+        this.ecarts = ecarts;
+    }
+    
+    // Getters et Setters
+    public int getNombreCumuls() { return nombreCumuls; }
+    public void setNombreCumuls(int nombreCumuls) { this.nombreCumuls = nombreCumuls; }
+    
+    public List<String> getEcarts() { return ecarts; }
+    public void setEcarts(List<String> ecarts) { this.ecarts = ecarts; }
+    
+    public boolean isCoherent() { return ecarts.isEmpty(); }
+}
@@ -11,11 +11,18 @@ import java.util.List;
  * Entité représentant un client
  */
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", uniqueConstraints = {
+    @UniqueConstraint(name = Client.CONTRAINTE_EMAIL, columnNames = "email"),
+    @UniqueConstraint(name = Client.CONTRAINTE_SIRET, columnNames = "siret")
+})
 public class Client {
     
+    public static final String CONTRAINTE_EMAIL = "uk_clients_email";
+    public static final String CONTRAINTE_SIRET = "uk_clients_siret";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+    @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Le nom du client est obligatoire")
@@ -25,12 +32,12 @@ public class Client {
     
     @NotBlank(message = "L'email est obligatoire")
     @Email(message = "Format d'email invalide")
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
     
     @NotBlank(message = "Le SIRET est obligatoire")
     @Size(min = 14, max = 14, message = "Le SIRET doit contenir exactement 14 caractères")
-    @Column(nullable = false, unique = true, length = 14)
+    @Column(nullable = false, length = 14)
     private String siret;
     
     @Column(name = "date_creation", nullable = false)
@@ -0,0 +1,35 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Entité représentant le compteur de numérotation des factures pour une année
+ */
+@Entity
+@Table(name = "compteurs_facture")
+public class CompteurFacture {
+    
+    @Id
+    private Integer annee;
+    
+    /**
+     * Dernier numéro réservé (les numéros jusqu'à cette valeur sont attribués à un nœud)
+     */
+    @Column(name = "dernier_numero", nullable = false)
+    private Long dernierNumero;
+    
+    // Constructeurs
+    public CompteurFacture() {}
+    
+    public CompteurFacture(Integer annee, Long dernierNumero) {
+        this.annee = annee;
+        this.dernierNumero = dernierNumero;
+    }
+    
+    // Getters et Setters
+    public Integer getAnnee() { return annee; }
+    public void setAnnee(Integer annee) { this.annee = annee; }
+    
+    public Long getDernierNumero() { return dernierNumero; }
+    public void setDernierNumero(Long dernierNumero) { this.dernierNumero = dernierNumero; }
+}
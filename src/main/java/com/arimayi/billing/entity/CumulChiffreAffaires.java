@@ -0,0 +1,106 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Entité représentant le cumul du chiffre d'affaires d'un client pour un mois.
+ * Chaque (client, mois) est réparti sur plusieurs tranches pour que les créations de factures
+ * concurrentes ne se bloquent pas sur une même ligne ; le cumul est la somme des tranches.
+ */
+@Entity
+@Table(name = "revenue_rollup", indexes = @Index(name = "idx_revenue_rollup_year_month", columnList = "year_month"))
+@IdClass(CumulChiffreAffaires.Cle.class)
+public class CumulChiffreAffaires {
+    
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+    
+    /**
+     * Mois au format AAAAMM
+     */
+    @Id
+    @Column(name = "year_month")
+    private Integer anneeMois;
+    
+    @Id
+    @Column(name = "slot")
+    private Integer tranche;
+    
+    @Column(name = "total_ht", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalHT = BigDecimal.ZERO;
+    
+    @Column(name = "total_tva", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalTVA = BigDecimal.ZERO;
+    
+    @Column(name = "total_ttc", nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalTTC = BigDecimal.ZERO;
+    
+    @Column(name = "invoice_count", nullable = false)
+    private Long nombreFactures = 0L;
+    
+    // Constructeurs
+    public CumulChiffreAffaires() {}
+    
+    public CumulChiffreAffaires(Long clientId, Integer anneeMois, Integer tranche) {
+        this.clientId = clientId;
+        this.anneeMois = anneeMois;
+        this.tranche = tranche;
+    }
+    
+    // Getters et Setters
+    public Long getClientId() { return clientId; }
+    public void setClientId(Long clientId) { this.clientId = clientId; }
+    
+    public Integer getAnneeMois() { return anneeMois; }
+    public void setAnneeMois(Integer anneeMois) { this.anneeMois = anneeMois; }
+    
+    public Integer getTranche() { return tranche; }
+    public void setTranche(Integer tranche) { this.tranche = tranche; }
+    
+    public BigDecimal getTotalHT() { return totalHT; }
+    public void setTotalHT(BigDecimal totalHT) { this.totalHT = totalHT; }
+    
+    public BigDecimal getTotalTVA() { return totalTVA; }
+    public void setTotalTVA(BigDecimal totalTVA) { this.totalTVA = totalTVA; }
+    
+    public BigDecimal getTotalTTC() { return totalTTC; }
+    public void setTotalTTC(BigDecimal totalTTC) { this.totalTTC = totalTTC; }
+    
+    public Long getNombreFactures() { return nombreFactures; }
+    public void setNombreFactures(Long nombreFactures) { this.nombreFactures = nombreFactures; }
+    
+    /**
+     * Clé primaire (client, mois, tranche)
+     */
+    public static class Cle implements Serializable {
+        private Long clientId;
+        private Integer anneeMois;
+        private Integer tranche;
+        
+        public Cle() {}
+        
+        public Cle(Long clientId, Integer anneeMois, Integer tranche) {
+            this.clientId = clientId;
+            this.anneeMois = anneeMois;
+            this.tranche = tranche;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Cle cle)) return false;
+            return Objects.equals(clientId, cle.clientId) && Objects.equals(anneeMois, cle.anneeMois)
+                    && Objects.equals(tranche, cle.tranche);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, anneeMois, tranche);
+        }
+    }
+}
@@ -1,21 +1,26 @@
 package com.arimayi.billing.entity;
 
+import com.arimayi.billing.calcul.CalculMontants;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Entité représentant une facture
  */
 @Entity
-@Table(name = "factures")
+@Table(name = "factures", indexes = @Index(name = "idx_factures_date_id", columnList = "date, id"))
 public class Facture {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "factures_seq")
+    @SequenceGenerator(name = "factures_seq", sequenceName = "factures_seq", allocationSize = 50)
     private Long id;
     
     @Column(unique = true, nullable = false)
@@ -29,7 +34,9 @@ public class Facture {
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
     
+    // Les lignes de plusieurs factures sont chargées en une seule requête (évite le N+1)
     @OneToMany(mappedBy = "facture", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<LigneFacture> lignes = new ArrayList<>();
     
     @Column(name = "total_ht", precision = 10, scale = 2)
@@ -41,6 +48,11 @@ public class Facture {
     @Column(name = "total_ttc", precision = 10, scale = 2)
     private BigDecimal totalTTC;
     
+    // Base HT et TVA par taux, calculées avec les totaux et lues avec la facture
+    @Convert(converter = VentilationTVAConverter.class)
+    @Column(name = "ventilation_tva", length = 500)
+    private List<VentilationTVA> ventilationTVA = new ArrayList<>();
+    
     // Constructeurs
     public Facture() {}
     
@@ -53,18 +65,72 @@ public class Facture {
     }
     
     /**
-     * Calcule automatiquement les totaux de la facture
+     * Calcule automatiquement les totaux de la facture et leur ventilation par taux de TVA,
+     * en un seul parcours des lignes (sommes en centimes des totaux des lignes)
      */
     public void calculerTotaux() {
-        this.totalHT = lignes.stream()
-            .map(LigneFacture::getTotalHT)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-        this.totalTVA = lignes.stream()
-            .map(LigneFacture::getTotalTVA)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
+        long totalHTCentimes = 0;
+        long totalTVACentimes = 0;
+        // Taux en centièmes de pourcent -> {base HT, TVA} en centimes, triés par taux
+        Map<Long, long[]> parTaux = new TreeMap<>();
+        try {
+            for (LigneFacture ligne : lignes) {
+                long ligneHT = ligne.getTotalHTCentimes();
+                long ligneTVA = ligne.getTotalTVACentimes();
+                long taux = ligne.getTauxTVACentiemes();
+                if (ligneHT == CalculMontants.NON_REPRESENTABLE || ligneTVA == CalculMontants.NON_REPRESENTABLE
+                        || taux == CalculMontants.NON_REPRESENTABLE) {
+                    calculerTotauxDecimaux();
+                    return;
+                }
+                totalHTCentimes = Math.addExact(totalHTCentimes, ligneHT);
+                totalTVACentimes = Math.addExact(totalTVACentimes, ligneTVA);
+                long[] montants = parTaux.computeIfAbsent(taux, t -> new long[2]);
+                montants[0] = Math.addExact(montants[0], ligneHT);
+                montants[1] = Math.addExact(montants[1], ligneTVA);
+            }
+            this.totalTTC = CalculMontants.versMontant(Math.addExact(totalHTCentimes, totalTVACentimes));
+        } catch (ArithmeticException ex) {
+            calculerTotauxDecimaux();
+            return;
+        }
+        
+        this.totalHT = CalculMontants.versMontant(totalHTCentimes);
+        this.totalTVA = CalculMontants.versMontant(totalTVACentimes);
+        List<VentilationTVA> ventilation = new ArrayList<>(parTaux.size());
+        parTaux.forEach((taux, montants) -> ventilation.add(new VentilationTVA(CalculMontants.versMontant(taux),
+                CalculMontants.versMontant(montants[0]), CalculMontants.versMontant(montants[1]))));
+        this.ventilationTVA = ventilation;
+    }
+    
+    /**
+     * Calcul des totaux et de la ventilation en BigDecimal, pour les montants hors de portée du calcul en centimes
+     */
+    private void calculerTotauxDecimaux() {
+        BigDecimal sommeHT = BigDecimal.ZERO;
+        BigDecimal sommeTVA = BigDecimal.ZERO;
+        // Clés comparées par valeur (compareTo) : 20 et 20.00 désignent le même taux
+        Map<BigDecimal, BigDecimal[]> parTaux = new TreeMap<>();
+        for (LigneFacture ligne : lignes) {
+            sommeHT = sommeHT.add(ligne.getTotalHT());
+            sommeTVA = sommeTVA.add(ligne.getTotalTVA());
+            BigDecimal[] montants = parTaux.computeIfAbsent(ligne.getTauxTVA(),
+                    t -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            montants[0] = montants[0].add(ligne.getTotalHT());
+            montants[1] = montants[1].add(ligne.getTotalTVA());
+        }
+        this.totalHT = sommeHT;
+        this.totalTVA = sommeTVA;
         this.totalTTC = totalHT.add(totalTVA);
+        
+        List<VentilationTVA> ventilation = new ArrayList<>(parTaux.size());
+        parTaux.forEach((taux, montants) -> {
+            BigDecimal normalise = taux.stripTrailingZeros();
+            ventilation.add(new VentilationTVA(
+                    normalise.scale() < CalculMontants.ECHELLE ? normalise.setScale(CalculMontants.ECHELLE) : normalise,
+                    montants[0], montants[1]));
+        });
+        this.ventilationTVA = ventilation;
     }
     
     // Getters et Setters
@@ -91,4 +157,7 @@ public class Facture {
     
     public BigDecimal getTotalTTC() { return totalTTC; }
     public void setTotalTTC(BigDecimal totalTTC) { this.totalTTC = totalTTC; }
+    
+    public List<VentilationTVA> getVentilationTVA() { return ventilationTVA; }
+    public void setVentilationTVA(List<VentilationTVA> ventilationTVA) { this.ventilationTVA = ventilationTVA; }
 }
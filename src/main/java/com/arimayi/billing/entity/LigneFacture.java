@@ -1,11 +1,11 @@
 package com.arimayi.billing.entity;
 
+import com.arimayi.billing.calcul.CalculMontants;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 /**
  * Entité représentant une ligne de facture
@@ -15,7 +15,8 @@ import java.math.RoundingMode;
 public class LigneFacture {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lignes_facture_seq")
+    @SequenceGenerator(name = "lignes_facture_seq", sequenceName = "lignes_facture_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "La description est obligatoire")
@@ -36,6 +37,26 @@ public class LigneFacture {
     @Column(name = "taux_tva", nullable = false, precision = 5, scale = 2)
     private BigDecimal tauxTVA;
     
+    @Column(name = "total_ht", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalHT;
+    
+    @Column(name = "total_tva", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalTVA;
+    
+    @Column(name = "total_ttc", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalTTC;
+    
+    // Totaux en centimes, renseignés par calculerTotaux() ou à la première lecture
+    @Transient
+    private long totalHTCentimes = CalculMontants.NON_REPRESENTABLE;
+    
+    @Transient
+    private long totalTVACentimes = CalculMontants.NON_REPRESENTABLE;
+    
+    // Taux en centièmes de pourcent (20, 20.0 et 20.00 donnent 2000), pour la ventilation de la facture
+    @Transient
+    private long tauxTVACentiemes = CalculMontants.NON_REPRESENTABLE;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "facture_id", nullable = false)
     private Facture facture;
@@ -48,28 +69,129 @@ public class LigneFacture {
         this.quantite = quantite;
         this.prixUnitaireHT = prixUnitaireHT;
         this.tauxTVA = tauxTVA;
+        calculerTotaux();
+    }
+    
+    /**
+     * Calcule les totaux HT, TVA et TTC de la ligne ; ils sont ensuite stockés et relus tels quels.
+     * Le calcul se fait en centimes sur des long, avec repli en BigDecimal pour les valeurs hors échelle ;
+     * il n'alloue que la conversion des opérandes et des trois totaux enregistrés.
+     */
+    public void calculerTotaux() {
+        long quantiteCentiemes = CalculMontants.versUnites(quantite);
+        long prixCentimes = CalculMontants.versUnites(prixUnitaireHT);
+        long tauxCentiemes = centiemes(tauxTVA);
+        this.tauxTVACentiemes = tauxCentiemes;
+        
+        if (quantiteCentiemes != CalculMontants.NON_REPRESENTABLE
+                && prixCentimes != CalculMontants.NON_REPRESENTABLE
+                && tauxCentiemes != CalculMontants.NON_REPRESENTABLE) {
+            try {
+                long ht = CalculMontants.totalHT(quantiteCentiemes, prixCentimes);
+                long tva = CalculMontants.totalTVA(ht, tauxCentiemes);
+                this.totalHTCentimes = ht;
+                this.totalTVACentimes = tva;
+                this.totalHT = CalculMontants.versMontant(ht);
+                this.totalTVA = CalculMontants.versMontant(tva);
+                this.totalTTC = CalculMontants.versMontant(ht + tva);
+                return;
+            } catch (ArithmeticException ex) {
+                // Dépassement de capacité : calcul exact en BigDecimal ci-dessous
+            }
+        }
+        
+        this.totalHT = CalculMontants.totalHT(quantite, prixUnitaireHT);
+        this.totalTVA = CalculMontants.totalTVA(totalHT, tauxTVA);
+        this.totalTTC = totalHT.add(totalTVA);
+        this.totalHTCentimes = CalculMontants.versUnites(totalHT);
+        this.totalTVACentimes = CalculMontants.versUnites(totalTVA);
     }
     
     /**
-     * Calcule le total HT de la ligne
+     * Recalcule les totaux après la modification de la quantité, du prix ou du taux ; tant que l'un d'eux
+     * manque, les totaux sont effacés et seront calculés avant l'insertion
+     */
+    private void recalculerTotaux() {
+        if (quantite != null && prixUnitaireHT != null && tauxTVA != null) {
+            calculerTotaux();
+            return;
+        }
+        this.totalHT = null;
+        this.totalTVA = null;
+        this.totalTTC = null;
+        this.totalHTCentimes = CalculMontants.NON_REPRESENTABLE;
+        this.totalTVACentimes = CalculMontants.NON_REPRESENTABLE;
+        this.tauxTVACentiemes = CalculMontants.NON_REPRESENTABLE;
+    }
+    
+    /**
+     * Garantit des totaux renseignés pour une ligne construite sans calculerTotaux()
+     */
+    @PrePersist
+    void calculerTotauxAvantInsertion() {
+        if (totalHT == null) {
+            calculerTotaux();
+        }
+    }
+    
+    /**
+     * Total HT de la ligne
      */
     public BigDecimal getTotalHT() {
-        return quantite.multiply(prixUnitaireHT).setScale(2, RoundingMode.HALF_UP);
+        return totalHT;
     }
     
     /**
-     * Calcule le total TVA de la ligne
+     * Total TVA de la ligne
      */
     public BigDecimal getTotalTVA() {
-        return getTotalHT().multiply(tauxTVA.divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP))
-                .setScale(2, RoundingMode.HALF_UP);
+        return totalTVA;
     }
     
     /**
-     * Calcule le total TTC de la ligne
+     * Total TTC de la ligne
      */
     public BigDecimal getTotalTTC() {
-        return getTotalHT().add(getTotalTVA());
+        return totalTTC;
+    }
+    
+    /**
+     * Total HT de la ligne en centimes
+     */
+    public long getTotalHTCentimes() {
+        if (totalHTCentimes == CalculMontants.NON_REPRESENTABLE) {
+            totalHTCentimes = CalculMontants.versUnites(totalHT);
+        }
+        return totalHTCentimes;
+    }
+    
+    /**
+     * Total TVA de la ligne en centimes
+     */
+    public long getTotalTVACentimes() {
+        if (totalTVACentimes == CalculMontants.NON_REPRESENTABLE) {
+            totalTVACentimes = CalculMontants.versUnites(totalTVA);
+        }
+        return totalTVACentimes;
+    }
+    
+    /**
+     * Taux de TVA de la ligne en centièmes de pourcent, quelle que soit son échelle
+     */
+    public long getTauxTVACentiemes() {
+        if (tauxTVACentiemes == CalculMontants.NON_REPRESENTABLE) {
+            tauxTVACentiemes = centiemes(tauxTVA);
+        }
+        return tauxTVACentiemes;
+    }
+    
+    // Les zéros non significatifs ne sont retirés que pour un taux à plus de 2 décimales (20.000)
+    private static long centiemes(BigDecimal taux) {
+        long centiemes = CalculMontants.versUnites(taux);
+        if (centiemes == CalculMontants.NON_REPRESENTABLE && taux != null) {
+            centiemes = CalculMontants.versUnites(taux.stripTrailingZeros());
+        }
+        return centiemes;
     }
     
     // Getters et Setters
@@ -80,13 +202,22 @@ public class LigneFacture {
     public void setDescription(String description) { this.description = description; }
     
     public BigDecimal getQuantite() { return quantite; }
-    public void setQuantite(BigDecimal quantite) { this.quantite = quantite; }
+    public void setQuantite(BigDecimal quantite) {
+        this.quantite = quantite;
+        recalculerTotaux();
+    }
     
     public BigDecimal getPrixUnitaireHT() { return prixUnitaireHT; }
-    public void setPrixUnitaireHT(BigDecimal prixUnitaireHT) { this.prixUnitaireHT = prixUnitaireHT; }
+    public void setPrixUnitaireHT(BigDecimal prixUnitaireHT) {
+        this.prixUnitaireHT = prixUnitaireHT;
+        recalculerTotaux();
+    }
     
     public BigDecimal getTauxTVA() { return tauxTVA; }
-    public void setTauxTVA(BigDecimal tauxTVA) { this.tauxTVA = tauxTVA; }
+    public void setTauxTVA(BigDecimal tauxTVA) {
+        this.tauxTVA = tauxTVA;
+        recalculerTotaux();
+    }
     
     public Facture getFacture() { return facture; }
     public void setFacture(Facture facture) { this.facture = facture; }
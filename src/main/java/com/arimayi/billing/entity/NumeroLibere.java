@@ -0,0 +1,62 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Entité représentant un numéro de facture attribué puis libéré (transaction annulée, bloc restitué),
+ * à réattribuer en priorité ; conservé en base pour survivre aux redémarrages
+ */
+@Entity
+@Table(name = "numeros_liberes")
+@IdClass(NumeroLibere.Cle.class)
+public class NumeroLibere {
+    
+    @Id
+    private Integer annee;
+    
+    @Id
+    private Long numero;
+    
+    // Constructeurs
+    public NumeroLibere() {}
+    
+    public NumeroLibere(Integer annee, Long numero) {
+        this.annee = annee;
+        this.numero = numero;
+    }
+    
+    // Getters et Setters
+    public Integer getAnnee() { return annee; }
+    public void setAnnee(Integer annee) { this.annee = annee; }
+    
+    public Long getNumero() { return numero; }
+    public void setNumero(Long numero) { this.numero = numero; }
+    
+    /**
+     * Clé composée (année, numéro)
+     */
+    public static class Cle implements Serializable {
+        private Integer annee;
+        private Long numero;
+        
+        public Cle() {}
+        
+        public Cle(Integer annee, Long numero) {
+            this.annee = annee;
+            this.numero = numero;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cle cle && Objects.equals(annee, cle.annee) && Objects.equals(numero, cle.numero);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(annee, numero);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Entité représentant un taux de TVA autorisé, à 2 décimales ; la table est partagée par tous les nœuds
+ */
+@Entity
+@Table(name = "taux_tva")
+public class TauxTVA {
+    
+    @Id
+    @Column(precision = 5, scale = 2)
+    private BigDecimal taux;
+    
+    // Constructeurs
+    public TauxTVA() {}
+    
+    public TauxTVA(BigDecimal taux) {
+        this.taux = taux;
+    }
+    
+    // Getters et Setters
+    public BigDecimal getTaux() { return taux; }
+    public void setTaux(BigDecimal taux) { this.taux = taux; }
+}
@@ -0,0 +1,9 @@
+package com.arimayi.billing.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * Ventilation de la TVA d'une facture pour un taux : base HT et montant de TVA des lignes à ce taux
+ */
+public record VentilationTVA(BigDecimal tauxTVA, BigDecimal baseHT, BigDecimal montantTVA) {
+}
@@ -0,0 +1,56 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stocke la ventilation de la TVA dans une colonne de la facture, au format "taux:base:tva;taux:base:tva".
+ * Elle est ainsi lue avec la facture, sans requête supplémentaire pour les listes de factures.
+ */
+@Converter
+public class VentilationTVAConverter implements AttributeConverter<List<VentilationTVA>, String> {
+
+    private static final String SEPARATEUR_TAUX = ";";
+    private static final String SEPARATEUR_MONTANTS = ":";
+
+    @Override
+    public String convertToDatabaseColumn(List<VentilationTVA> ventilation) {
+        if (ventilation == null) {
+            return null;
+        }
+        StringBuilder colonne = new StringBuilder(ventilation.size() * 24);
+        for (VentilationTVA taux : ventilation) {
+            if (!colonne.isEmpty()) {
+                colonne.append(SEPARATEUR_TAUX);
+            }
+            colonne.append(taux.tauxTVA().toPlainString()).append(SEPARATEUR_MONTANTS)
+                    .append(taux.baseHT().toPlainString()).append(SEPARATEUR_MONTANTS)
+                    .append(taux.montantTVA().toPlainString());
+        }
+        return colonne.toString();
+    }
+
+    @Override
+    public List<VentilationTVA> convertToEntityAttribute(String colonne) {
+        if (colonne == null) {
+            return null;
+        }
+        List<VentilationTVA> ventilation = new ArrayList<>();
+        if (colonne.isEmpty()) {
+            return ventilation;
+        }
+        for (String taux : colonne.split(SEPARATEUR_TAUX)) {
+            String[] montants = taux.split(SEPARATEUR_MONTANTS);
+            if (montants.length != 3) {
+                throw new IllegalArgumentException("Ventilation de TVA illisible : " + colonne);
+            }
+            ventilation.add(new VentilationTVA(
+                    new BigDecimal(montants[0]), new BigDecimal(montants[1]), new BigDecimal(montants[2])));
+        }
+        return ventilation;
+    }
+}
@@ -0,0 +1,27 @@
+package com.arimayi.billing.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Ligne de garde des cumuls de chiffre d'affaires : les transactions qui modifient les cumuls en verrouillent
+ * une, leur reconstruction les verrouille toutes
+ */
+@Entity
+@Table(name = "revenue_rollup_lock")
+public class VerrouCumul {
+    
+    @Id
+    @Column(name = "slot")
+    private Integer tranche;
+    
+    // Constructeurs
+    public VerrouCumul() {}
+    
+    public VerrouCumul(Integer tranche) {
+        this.tranche = tranche;
+    }
+    
+    // Getters et Setters
+    public Integer getTranche() { return tranche; }
+    public void setTranche(Integer tranche) { this.tranche = tranche; }
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.exception;
+
+/**
+ * Exception levée quand une clé d'idempotence est invalide ou réutilisée pour une autre requête
+ */
+public class IdempotencyKeyException extends RuntimeException {
+    
+    public IdempotencyKeyException(String message) {
+        super(message);
+    }
+    
+    public IdempotencyKeyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
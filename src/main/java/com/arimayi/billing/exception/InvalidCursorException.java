@@ -0,0 +1,15 @@
+package com.arimayi.billing.exception;
+
+/**
+ * Exception levée quand un curseur de pagination est invalide
+ */
+public class InvalidCursorException extends RuntimeException {
+    
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+    
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.exception;
+
+/**
+ * Exception levée quand une facture ne respecte pas les contraintes de validation
+ */
+public class InvalidFactureException extends RuntimeException {
+    
+    public InvalidFactureException(String message) {
+        super(message);
+    }
+    
+    public InvalidFactureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
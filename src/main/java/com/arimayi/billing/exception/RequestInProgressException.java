@@ -0,0 +1,15 @@
+package com.arimayi.billing.exception;
+
+/**
+ * Exception levée quand une requête de même clé d'idempotence est encore en cours de traitement
+ */
+public class RequestInProgressException extends RuntimeException {
+    
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+    
+    public RequestInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
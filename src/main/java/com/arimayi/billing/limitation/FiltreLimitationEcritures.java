@@ -0,0 +1,95 @@
+package com.arimayi.billing.limitation;
+
+import com.arimayi.billing.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applique la limitation des écritures aux requêtes authentifiées (placé après l'autorisation dans la chaîne
+ * de sécurité). Au-delà du débit de l'utilisateur : 429 ; toutes les écritures simultanées occupées : 503.
+ * Les deux réponses indiquent dans Retry-After quand réessayer.
+ */
+public class FiltreLimitationEcritures extends OncePerRequestFilter {
+
+    private static final Set<String> METHODES_ECRITURE = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    // Groupe d'endpoints de chaque préfixe de chemin
+    private static final Map<String, String> GROUPES = Map.of(
+            "/api/factures", "factures",
+            "/api/clients", "clients");
+
+    private final LimiteurEcritures limiteur;
+    private final ObjectMapper objectMapper;
+
+    public FiltreLimitationEcritures(LimiteurEcritures limiteur, ObjectMapper objectMapper) {
+        this.limiteur = limiteur;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String groupe = groupe(request);
+        Principal principal = request.getUserPrincipal();
+        if (groupe == null || principal == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Duration attente = limiteur.prelever(principal.getName(), groupe);
+        if (!attente.isZero()) {
+            rejeter(response, HttpStatus.TOO_MANY_REQUESTS, attente,
+                    "Trop de requêtes d'écriture, veuillez réessayer plus tard");
+            return;
+        }
+        if (!limiteur.entrer(principal.getName(), groupe)) {
+            rejeter(response, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Service momentanément surchargé, veuillez réessayer");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiteur.sortir();
+        }
+    }
+
+    static String groupe(HttpServletRequest request) {
+        if (!METHODES_ECRITURE.contains(request.getMethod())) {
+            return null;
+        }
+        String chemin = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, String> groupe : GROUPES.entrySet()) {
+            if (chemin.equals(groupe.getKey()) || chemin.startsWith(groupe.getKey() + "/")) {
+                return groupe.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void rejeter(HttpServletResponse response, HttpStatus statut, Duration attente, String message)
+            throws IOException {
+        // Retry-After en secondes entières, arrondi au supérieur
+        long secondes = Math.max(1, (attente.toMillis() + 999) / 1000);
+        response.setStatus(statut.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(secondes));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new GlobalExceptionHandler.ErrorResponse(statut.value(), message, LocalDateTime.now()));
+    }
+}
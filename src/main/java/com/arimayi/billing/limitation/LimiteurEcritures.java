@@ -0,0 +1,108 @@
+package com.arimayi.billing.limitation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitation des écritures : un seau à jetons par utilisateur et par groupe d'endpoints, puis un nombre maximal
+ * d'écritures simultanées pour toute l'application. Une requête refusée l'est immédiatement (pas de file
+ * d'attente) et compte dans billing.limitation.rejets, étiquetée par groupe, utilisateur et motif.
+ */
+public class LimiteurEcritures {
+
+    public static final String MOTIF_DEBIT = "debit";
+    public static final String MOTIF_CONCURRENCE = "concurrence";
+
+    private final Map<String, Debit> debits;
+    private final Semaphore ecritures;
+    private final Duration attenteMax;
+    private final LongSupplier horloge;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger enCours = new AtomicInteger();
+    private final Cache<String, SeauJetons> seaux = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .maximumSize(100_000)
+            .build();
+
+    /**
+     * @param debits     débit autorisé par utilisateur, pour chaque groupe d'endpoints
+     * @param attenteMax attente maximale d'une place quand toutes les écritures simultanées sont occupées
+     */
+    public LimiteurEcritures(Map<String, Debit> debits, int ecrituresSimultanees, Duration attenteMax,
+                             MeterRegistry meterRegistry, LongSupplier horloge) {
+        this.debits = Map.copyOf(debits);
+        this.ecritures = new Semaphore(ecrituresSimultanees);
+        this.attenteMax = attenteMax;
+        this.meterRegistry = meterRegistry;
+        this.horloge = horloge;
+        Gauge.builder("billing.limitation.ecritures.en.cours", enCours, AtomicInteger::get)
+                .description("Écritures en cours de traitement")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prélève un jeton du seau de l'utilisateur pour le groupe ; retourne 0 si la requête est admise,
+     * sinon le délai avant qu'elle puisse l'être
+     */
+    public Duration prelever(String utilisateur, String groupe) {
+        Debit debit = debits.get(groupe);
+        long maintenant = horloge.getAsLong();
+        SeauJetons seau = seaux.get(groupe + ':' + utilisateur,
+                cle -> new SeauJetons(debit.rafale(), debit.parSeconde(), maintenant));
+        long attente = seau.prelever(maintenant);
+        if (attente > 0) {
+            rejet(groupe, utilisateur, MOTIF_DEBIT);
+            return Duration.ofNanos(attente);
+        }
+        return Duration.ZERO;
+    }
+
+    /**
+     * Réserve une place parmi les écritures simultanées ; false si aucune ne s'est libérée à temps
+     */
+    public boolean entrer(String utilisateur, String groupe) {
+        try {
+            if (ecritures.tryAcquire(attenteMax.toNanos(), TimeUnit.NANOSECONDS)) {
+                enCours.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        rejet(groupe, utilisateur, MOTIF_CONCURRENCE);
+        return false;
+    }
+
+    /**
+     * Libère la place réservée par {@link #entrer}
+     */
+    public void sortir() {
+        enCours.decrementAndGet();
+        ecritures.release();
+    }
+
+    private void rejet(String groupe, String utilisateur, String motif) {
+        Counter.builder("billing.limitation.rejets")
+                .description("Écritures refusées par la limitation de débit ou de concurrence")
+                .tag("groupe", groupe)
+                .tag("utilisateur", utilisateur)
+                .tag("motif", motif)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Débit soutenu (requêtes par seconde) et rafale maximale d'un utilisateur
+     */
+    public record Debit(double parSeconde, int rafale) {}
+}
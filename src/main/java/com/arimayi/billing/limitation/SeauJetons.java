@@ -0,0 +1,33 @@
+package com.arimayi.billing.limitation;
+
+/**
+ * Seau à jetons : il se remplit en continu jusqu'à sa capacité (rafale autorisée)
+ * et chaque requête admise y prélève un jeton
+ */
+final class SeauJetons {
+
+    private final double capacite;
+    private final double jetonsParNano;
+    private double jetons;
+    private long derniereRecharge;
+
+    SeauJetons(double capacite, double jetonsParSeconde, long maintenant) {
+        this.capacite = capacite;
+        this.jetonsParNano = jetonsParSeconde / 1_000_000_000.0;
+        this.jetons = capacite;
+        this.derniereRecharge = maintenant;
+    }
+
+    /**
+     * Prélève un jeton ; retourne 0 si la requête est admise, sinon le délai en nanosecondes avant le prochain jeton
+     */
+    synchronized long prelever(long maintenant) {
+        jetons = Math.min(capacite, jetons + (maintenant - derniereRecharge) * jetonsParNano);
+        derniereRecharge = maintenant;
+        if (jetons >= 1) {
+            jetons -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - jetons) / jetonsParNano);
+    }
+}
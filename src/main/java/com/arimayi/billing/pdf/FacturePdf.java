@@ -0,0 +1,6 @@
+package com.arimayi.billing.pdf;
+
+/**
+ * PDF rendu d'une facture, avec l'ETag de la facture dont il est issu
+ */
+public record FacturePdf(String etag, byte[] contenu) {}
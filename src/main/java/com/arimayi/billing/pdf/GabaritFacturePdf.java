@@ -0,0 +1,155 @@
+package com.arimayi.billing.pdf;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.VentilationTVADto;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Gabarit des factures PDF. Les polices, libellés, largeurs de colonnes et cellules d'en-tête
+ * sont préparés une seule fois à la construction puis partagés entre les rendus : ils ne sont
+ * jamais modifiés (PdfPTable copie les cellules ajoutées), le gabarit peut donc servir
+ * à plusieurs rendus simultanés.
+ */
+public final class GabaritFacturePdf {
+
+    private static final String[] ENTETES = {"Description", "Quantité", "PU HT", "TVA", "Total HT"};
+    private static final float[] LARGEURS = {46f, 12f, 14f, 10f, 18f};
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String FORMAT_MONTANT = "#,##0.00";
+    private static final DecimalFormatSymbols SYMBOLES = symboles();
+    private static final Color COULEUR_ENTETE = new Color(0x2F, 0x4F, 0x6F);
+
+    private final String emetteur;
+    private final Font policeTitre = new Font(Font.HELVETICA, 18, Font.BOLD);
+    private final Font policeGras = new Font(Font.HELVETICA, 10, Font.BOLD);
+    private final Font policeTexte = new Font(Font.HELVETICA, 9, Font.NORMAL);
+    private final PdfPCell[] cellulesEntete;
+
+    public GabaritFacturePdf(String emetteur) {
+        this.emetteur = emetteur;
+        Font policeEntete = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
+        cellulesEntete = new PdfPCell[ENTETES.length];
+        for (int i = 0; i < ENTETES.length; i++) {
+            PdfPCell cellule = new PdfPCell(new Phrase(ENTETES[i], policeEntete));
+            cellule.setBackgroundColor(COULEUR_ENTETE);
+            cellule.setPadding(4f);
+            cellule.setHorizontalAlignment(i == 0 ? Element.ALIGN_LEFT : Element.ALIGN_RIGHT);
+            cellulesEntete[i] = cellule;
+        }
+    }
+
+    /**
+     * Produit le PDF d'une facture
+     */
+    public byte[] rendre(FactureDto facture) {
+        // DecimalFormat n'est pas thread-safe : un format par rendu
+        NumberFormat montants = new DecimalFormat(FORMAT_MONTANT, SYMBOLES);
+
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(8 * 1024);
+        Document document = new Document(PageSize.A4, 40f, 40f, 40f, 40f);
+        try {
+            PdfWriter.getInstance(document, sortie);
+            document.addTitle("Facture " + facture.getNumero());
+            document.addCreator(emetteur);
+            document.open();
+
+            document.add(new Paragraph(emetteur, policeGras));
+            Paragraph titre = new Paragraph("Facture " + facture.getNumero(), policeTitre);
+            titre.setSpacingBefore(12f);
+            document.add(titre);
+            document.add(new Paragraph("Date : " + facture.getDate().format(FORMAT_DATE), policeTexte));
+
+            ClientDto client = facture.getClient();
+            if (client != null) {
+                Paragraph destinataire = new Paragraph(client.getNom(), policeGras);
+                destinataire.setSpacingBefore(12f);
+                document.add(destinataire);
+                document.add(new Paragraph(client.getEmail() + " - SIRET " + client.getSiret(), policeTexte));
+            }
+
+            PdfPTable lignes = new PdfPTable(LARGEURS);
+            lignes.setWidthPercentage(100f);
+            lignes.setSpacingBefore(16f);
+            lignes.setHeaderRows(1);
+            for (PdfPCell cellule : cellulesEntete) {
+                lignes.addCell(cellule);
+            }
+            for (LigneFactureDto ligne : facture.getLignes()) {
+                lignes.addCell(cellule(ligne.getDescription(), Element.ALIGN_LEFT));
+                lignes.addCell(cellule(montants.format(ligne.getQuantite()), Element.ALIGN_RIGHT));
+                lignes.addCell(cellule(montants.format(ligne.getPrixUnitaireHT()) + " €", Element.ALIGN_RIGHT));
+                lignes.addCell(cellule(montants.format(ligne.getTauxTVA()) + " %", Element.ALIGN_RIGHT));
+                lignes.addCell(cellule(montants.format(ligne.getTotalHT()) + " €", Element.ALIGN_RIGHT));
+            }
+            document.add(lignes);
+
+            PdfPTable totaux = new PdfPTable(new float[]{70f, 30f});
+            totaux.setWidthPercentage(50f);
+            totaux.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            totaux.setSpacingBefore(12f);
+            ajouterTotal(totaux, "Total HT", facture.getTotalHT(), montants, policeTexte);
+            if (facture.getVentilationTVA() == null || facture.getVentilationTVA().isEmpty()) {
+                ajouterTotal(totaux, "TVA", facture.getTotalTVA(), montants, policeTexte);
+            } else {
+                // Une ligne de TVA par taux, avec sa base HT
+                for (VentilationTVADto taux : facture.getVentilationTVA()) {
+                    ajouterTotal(totaux, "TVA " + montants.format(taux.tauxTVA()) + " % sur "
+                            + montants.format(taux.baseHT()) + " €", taux.montantTVA(), montants, policeTexte);
+                }
+            }
+            ajouterTotal(totaux, "Total TTC", facture.getTotalTTC(), montants, policeGras);
+            document.add(totaux);
+        } catch (DocumentException ex) {
+            throw new IllegalStateException("Rendu PDF impossible pour la facture " + facture.getNumero(), ex);
+        } finally {
+            document.close();
+        }
+        return sortie.toByteArray();
+    }
+
+    private static DecimalFormatSymbols symboles() {
+        DecimalFormatSymbols symboles = DecimalFormatSymbols.getInstance(Locale.FRANCE);
+        // L'espace fine insécable du format français n'existe pas dans les polices standard du PDF
+        symboles.setGroupingSeparator('\u00A0');
+        return symboles;
+    }
+
+    private PdfPCell cellule(String texte, int alignement) {
+        PdfPCell cellule = new PdfPCell(new Phrase(texte, policeTexte));
+        cellule.setPadding(4f);
+        cellule.setHorizontalAlignment(alignement);
+        return cellule;
+    }
+
+    private static void ajouterTotal(PdfPTable totaux, String libelle, BigDecimal montant,
+                                     NumberFormat montants, Font police) {
+        PdfPCell cellLibelle = new PdfPCell(new Phrase(libelle, police));
+        cellLibelle.setBorder(Rectangle.NO_BORDER);
+        totaux.addCell(cellLibelle);
+        PdfPCell cellMontant = new PdfPCell(new Phrase(montants.format(montant) + " €", police));
+        cellMontant.setBorder(Rectangle.NO_BORDER);
+        cellMontant.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        totaux.addCell(cellMontant);
+    }
+}
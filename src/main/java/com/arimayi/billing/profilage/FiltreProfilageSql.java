@@ -0,0 +1,95 @@
+package com.arimayi.billing.profilage;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ouvre un profil SQL pour chaque requête HTTP. Les requêtes échantillonnées sont détaillées et,
+ * si leur temps SQL cumulé dépasse le seuil, journalisées requête SQL par requête SQL.
+ * Les totaux peuvent être renvoyés dans les en-têtes X-Sql-Count et Server-Timing (hors production).
+ */
+public class FiltreProfilageSql extends OncePerRequestFilter {
+
+    public static final String ENTETE_NOMBRE = "X-Sql-Count";
+    public static final String ENTETE_DUREE = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(FiltreProfilageSql.class);
+
+    private final ProfileurSql profileur;
+    private final double tauxEchantillonnage;
+    private final long seuilRequeteHttpNanos;
+    private final boolean entetes;
+
+    public FiltreProfilageSql(ProfileurSql profileur, double tauxEchantillonnage, Duration seuilRequeteHttp,
+                              boolean entetes) {
+        this.profileur = profileur;
+        this.tauxEchantillonnage = tauxEchantillonnage;
+        this.seuilRequeteHttpNanos = seuilRequeteHttp.toNanos();
+        this.entetes = entetes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean detaille = tauxEchantillonnage > 0 && ThreadLocalRandom.current().nextDouble() < tauxEchantillonnage;
+        ProfilSql profil = profileur.demarrer(detaille);
+        // Les en-têtes doivent être posés avant l'envoi du début de la réponse
+        HttpServletResponse reponse = entetes ? new ReponseAvecTotaux(response, profil) : response;
+        try {
+            filterChain.doFilter(request, reponse);
+        } finally {
+            profileur.terminer();
+            if (entetes && !response.isCommitted()) {
+                ajouterTotaux(response, profil);
+            }
+            if (detaille && profil.getDureeNanos() >= seuilRequeteHttpNanos) {
+                journaliser(request, profil);
+            }
+        }
+    }
+
+    private static void ajouterTotaux(HttpServletResponse response, ProfilSql profil) {
+        response.setHeader(ENTETE_NOMBRE, Integer.toString(profil.getRequetes()));
+        response.setHeader(ENTETE_DUREE, "sql;dur=" + ProfileurSql.millis(profil.getDureeNanos()));
+    }
+
+    private static void journaliser(HttpServletRequest request, ProfilSql profil) {
+        StringBuilder detail = new StringBuilder();
+        for (ProfilSql.MesureSql mesure : profil.getMesures()) {
+            detail.append("\n  ").append(ProfileurSql.millis(mesure.dureeNanos())).append(" ms  ")
+                    .append(mesure.sql()).append(' ').append(mesure.parametres());
+        }
+        if (profil.getRequetes() > profil.getMesures().size()) {
+            detail.append("\n  ... ").append(profil.getRequetes() - profil.getMesures().size()).append(" autres");
+        }
+        log.info("{} {} : {} requêtes SQL, {} ms{}", request.getMethod(), request.getRequestURI(),
+                profil.getRequetes(), ProfileurSql.millis(profil.getDureeNanos()), detail);
+    }
+
+    /**
+     * Réponse qui ajoute les totaux SQL au moment où elle est validée (premier envoi du corps)
+     */
+    private static final class ReponseAvecTotaux extends OnCommittedResponseWrapper {
+        private final ProfilSql profil;
+
+        ReponseAvecTotaux(HttpServletResponse response, ProfilSql profil) {
+            super(response);
+            this.profil = profil;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            ajouterTotaux((HttpServletResponse) getResponse(), profil);
+        }
+    }
+}
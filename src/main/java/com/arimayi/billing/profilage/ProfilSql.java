@@ -0,0 +1,50 @@
+package com.arimayi.billing.profilage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Requêtes SQL exécutées pendant une requête HTTP : nombre et durée cumulée toujours,
+ * détail de chaque requête seulement pour les requêtes HTTP échantillonnées.
+ * Propre au thread qui traite la requête, il n'est pas partagé.
+ */
+public final class ProfilSql {
+    
+    // Au-delà, les requêtes restent comptées mais ne sont plus détaillées
+    static final int MESURES_MAX = 200;
+    
+    private final boolean detaille;
+    private final List<MesureSql> mesures;
+    private int requetes;
+    private long dureeNanos;
+    
+    ProfilSql(boolean detaille) {
+        this.detaille = detaille;
+        this.mesures = detaille ? new ArrayList<>() : Collections.emptyList();
+    }
+    
+    /**
+     * Durée d'exécution d'une requête SQL
+     */
+    public record MesureSql(String sql, String parametres, long dureeNanos) {}
+    
+    void ajouter(long duree) {
+        requetes++;
+        dureeNanos += duree;
+    }
+    
+    void detailler(MesureSql mesure) {
+        if (mesures.size() < MESURES_MAX) {
+            mesures.add(mesure);
+        }
+    }
+    
+    public boolean isDetaille() { return detaille; }
+    
+    public int getRequetes() { return requetes; }
+    
+    public long getDureeNanos() { return dureeNanos; }
+    
+    public List<MesureSql> getMesures() { return Collections.unmodifiableList(mesures); }
+}
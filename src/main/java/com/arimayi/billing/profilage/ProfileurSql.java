@@ -0,0 +1,111 @@
+package com.arimayi.billing.profilage;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Profileur SQL branché sur la source de données (datasource-proxy).
+ * Chaque requête SQL est chronométrée ; celles qui dépassent le seuil sont journalisées avec la forme
+ * de leurs paramètres (types, jamais les valeurs). Quand une requête HTTP est en cours sur le thread,
+ * ses requêtes SQL sont ajoutées à son profil.
+ */
+public class ProfileurSql implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileurSql.class);
+    private static final String DEBUT = ProfileurSql.class.getName() + ".debut";
+    private static final Pattern ESPACES = Pattern.compile("\\s+");
+
+    private final long seuilRequeteLenteNanos;
+    private final ThreadLocal<ProfilSql> profils = new ThreadLocal<>();
+
+    public ProfileurSql(Duration seuilRequeteLente) {
+        this.seuilRequeteLenteNanos = seuilRequeteLente.toNanos();
+    }
+
+    /**
+     * Ouvre le profil de la requête HTTP traitée par le thread courant
+     */
+    public ProfilSql demarrer(boolean detaille) {
+        ProfilSql profil = new ProfilSql(detaille);
+        profils.set(profil);
+        return profil;
+    }
+
+    /**
+     * Ferme le profil du thread courant et le retourne (null si aucun n'était ouvert)
+     */
+    public ProfilSql terminer() {
+        ProfilSql profil = profils.get();
+        profils.remove();
+        return profil;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(DEBUT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long debut = execInfo.getCustomValue(DEBUT, Long.class);
+        if (debut == null) {
+            return;
+        }
+        long duree = System.nanoTime() - debut;
+        ProfilSql profil = profils.get();
+        if (profil != null) {
+            profil.ajouter(duree);
+        }
+        boolean lente = duree >= seuilRequeteLenteNanos;
+        if (lente || (profil != null && profil.isDetaille())) {
+            ProfilSql.MesureSql mesure = new ProfilSql.MesureSql(sql(queryInfoList), parametres(execInfo, queryInfoList), duree);
+            if (profil != null && profil.isDetaille()) {
+                profil.detailler(mesure);
+            }
+            if (lente) {
+                log.warn("Requête SQL lente ({} ms) : {} ; paramètres {}", millis(duree), mesure.sql(), mesure.parametres());
+            }
+        }
+    }
+
+    /**
+     * Durée en millisecondes avec trois décimales, pour les journaux et les en-têtes
+     */
+    public static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        StringJoiner sql = new StringJoiner(" ; ");
+        for (QueryInfo queryInfo : queryInfoList) {
+            sql.add(ESPACES.matcher(queryInfo.getQuery()).replaceAll(" ").trim());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Forme des paramètres liés : type de chaque paramètre du premier jeu, et nombre de jeux pour un lot
+     */
+    static String parametres(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty() || queryInfoList.get(0).getParametersList().isEmpty()) {
+            return "[]";
+        }
+        StringJoiner forme = new StringJoiner(", ", "[", "]");
+        for (ParameterSetOperation operation : queryInfoList.get(0).getParametersList().get(0)) {
+            Object valeur = operation.getArgs().length > 1 ? operation.getArgs()[1] : null;
+            forme.add(ParameterSetOperation.isSetNullParameterOperation(operation) || valeur == null
+                    ? "null" : valeur.getClass().getSimpleName());
+        }
+        return execInfo.isBatch() ? forme + " x" + execInfo.getBatchSize() : forme.toString();
+    }
+}
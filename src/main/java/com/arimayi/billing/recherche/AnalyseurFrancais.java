@@ -0,0 +1,64 @@
+package com.arimayi.billing.recherche;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Découpage d'un texte français en termes de recherche : minuscules sans accents (« Sécurité » → « securite »),
+ * ligatures développées, élisions et mots vides retirés, pluriels simples ramenés au singulier.
+ * Le même découpage est appliqué aux textes indexés et aux requêtes.
+ */
+public final class AnalyseurFrancais {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "au", "aux", "avec", "ce", "ces", "cet", "cette", "dans", "de", "des", "du", "en", "et", "la", "le",
+            "les", "leur", "leurs", "ou", "par", "pour", "qu", "que", "qui", "sa", "sans", "ses", "son", "sur",
+            "un", "une");
+
+    private AnalyseurFrancais() {
+    }
+
+    /**
+     * Termes du texte, dans leur ordre d'apparition (doublons conservés)
+     */
+    public static List<String> termes(String texte) {
+        List<String> termes = new ArrayList<>();
+        if (texte == null || texte.isBlank()) {
+            return termes;
+        }
+        String normalise = Normalizer.normalize(texte.toLowerCase(Locale.FRENCH), Normalizer.Form.NFD);
+        normalise = DIACRITIQUES.matcher(normalise).replaceAll("")
+                .replace("œ", "oe")
+                .replace("æ", "ae");
+        for (String mot : SEPARATEURS.split(normalise)) {
+            // Les lettres isolées proviennent surtout des élisions (l', d', j'...)
+            if (mot.isEmpty() || (mot.length() == 1 && !Character.isDigit(mot.charAt(0)))) {
+                continue;
+            }
+            if (!MOTS_VIDES.contains(mot)) {
+                termes.add(singulier(mot));
+            }
+        }
+        return termes;
+    }
+
+    /**
+     * Retire la marque du pluriel (s, x) des mots de plus de trois lettres, sauf après un s (« process »)
+     */
+    private static String singulier(String mot) {
+        if (mot.length() > 3 && !Character.isDigit(mot.charAt(0))) {
+            char fin = mot.charAt(mot.length() - 1);
+            if ((fin == 's' && mot.charAt(mot.length() - 2) != 's') || fin == 'x') {
+                return mot.substring(0, mot.length() - 1);
+            }
+        }
+        return mot;
+    }
+}
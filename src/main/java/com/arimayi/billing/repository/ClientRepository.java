@@ -1,9 +1,12 @@
 package com.arimayi.billing.repository;
 
 import com.arimayi.billing.entity.Client;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,6 +15,11 @@ import java.util.Optional;
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
     
+    /**
+     * Page de clients d'ID strictement supérieur à la dernière clé lue, triés par ID
+     */
+    List<Client> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
     /**
      * Recherche un client par son email
      */
@@ -22,6 +30,18 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
      */
     Optional<Client> findBySiret(String siret);
     
+    /**
+     * Liste tous les emails (chargement de l'index d'unicité)
+     */
+    @Query("SELECT c.email FROM Client c")
+    List<String> findAllEmails();
+    
+    /**
+     * Liste tous les SIRET (chargement de l'index d'unicité)
+     */
+    @Query("SELECT c.siret FROM Client c")
+    List<String> findAllSirets();
+    
     /**
      * Vérifie si un email existe déjà
      */
@@ -0,0 +1,79 @@
+package com.arimayi.billing.repository;
+
+import com.arimayi.billing.dto.ChiffreAffairesClientDto;
+import com.arimayi.billing.dto.ChiffreAffairesMensuelDto;
+import com.arimayi.billing.dto.CumulChiffreAffairesDto;
+import com.arimayi.billing.entity.CumulChiffreAffaires;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repository pour l'entité CumulChiffreAffaires
+ */
+@Repository
+public interface CumulChiffreAffairesRepository extends JpaRepository<CumulChiffreAffaires, CumulChiffreAffaires.Cle> {
+    
+    /**
+     * Ajoute des montants à une tranche existante ; retourne 0 si la tranche n'existe pas encore
+     */
+    @Modifying
+    @Query("UPDATE CumulChiffreAffaires c SET c.totalHT = c.totalHT + :totalHT, c.totalTVA = c.totalTVA + :totalTVA, "
+            + "c.totalTTC = c.totalTTC + :totalTTC, c.nombreFactures = c.nombreFactures + :nombreFactures "
+            + "WHERE c.clientId = :clientId AND c.anneeMois = :anneeMois AND c.tranche = :tranche")
+    int incrementer(@Param("clientId") Long clientId, @Param("anneeMois") Integer anneeMois,
+                    @Param("tranche") Integer tranche, @Param("nombreFactures") Long nombreFactures,
+                    @Param("totalHT") BigDecimal totalHT, @Param("totalTVA") BigDecimal totalTVA,
+                    @Param("totalTTC") BigDecimal totalTTC);
+    
+    /**
+     * Recalcule tous les cumuls depuis les factures (à exécuter sur une table vide)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revenue_rollup (client_id, year_month, slot, total_ht, total_tva, total_ttc, invoice_count) "
+            + "SELECT client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date), 0, "
+            + "SUM(total_ht), SUM(total_tva), SUM(total_ttc), COUNT(*) FROM factures "
+            + "GROUP BY client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date)", nativeQuery = true)
+    int reconstruire();
+    
+    /**
+     * Supprime les cumuls d'un client
+     */
+    @Modifying
+    @Query("DELETE FROM CumulChiffreAffaires c WHERE c.clientId = :clientId")
+    void deleteByClientId(@Param("clientId") Long clientId);
+    
+    /**
+     * Cumuls par client et par mois (somme des tranches)
+     */
+    @Query("SELECT new com.arimayi.billing.dto.CumulChiffreAffairesDto("
+            + "c.clientId, c.anneeMois, SUM(c.nombreFactures), SUM(c.totalHT), SUM(c.totalTVA), SUM(c.totalTTC)) "
+            + "FROM CumulChiffreAffaires c GROUP BY c.clientId, c.anneeMois")
+    List<CumulChiffreAffairesDto> sumByClientEtMois();
+    
+    /**
+     * Chiffre d'affaires par mois entre deux mois (AAAAMM) inclus
+     */
+    @Query("SELECT new com.arimayi.billing.dto.ChiffreAffairesMensuelDto("
+            + "c.anneeMois / 100, MOD(c.anneeMois, 100), SUM(c.nombreFactures), SUM(c.totalHT), SUM(c.totalTVA), SUM(c.totalTTC)) "
+            + "FROM CumulChiffreAffaires c WHERE c.anneeMois BETWEEN :moisDebut AND :moisFin "
+            + "GROUP BY c.anneeMois ORDER BY c.anneeMois")
+    List<ChiffreAffairesMensuelDto> sumByMois(@Param("moisDebut") Integer moisDebut,
+                                              @Param("moisFin") Integer moisFin);
+    
+    /**
+     * Chiffre d'affaires par client entre deux mois (AAAAMM) inclus, du plus important au plus faible
+     */
+    @Query("SELECT new com.arimayi.billing.dto.ChiffreAffairesClientDto("
+            + "cl.id, cl.nom, SUM(c.nombreFactures), SUM(c.totalHT), SUM(c.totalTVA), SUM(c.totalTTC)) "
+            + "FROM CumulChiffreAffaires c JOIN Client cl ON cl.id = c.clientId "
+            + "WHERE c.anneeMois BETWEEN :moisDebut AND :moisFin "
+            + "GROUP BY cl.id, cl.nom ORDER BY SUM(c.totalHT) DESC, cl.id")
+    List<ChiffreAffairesClientDto> sumByClient(@Param("moisDebut") Integer moisDebut,
+                                               @Param("moisFin") Integer moisFin);
+}
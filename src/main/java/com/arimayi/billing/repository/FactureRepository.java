@@ -1,45 +1,174 @@
 package com.arimayi.billing.repository;
 
+import com.arimayi.billing.dto.ChiffreAffairesClientDto;
+import com.arimayi.billing.dto.ChiffreAffairesMensuelDto;
+import com.arimayi.billing.dto.CumulChiffreAffairesDto;
+import com.arimayi.billing.dto.FactureResumeDto;
 import com.arimayi.billing.entity.Facture;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
- * Repository pour la gestion des factures
+ * Repository pour la gestion des factures.
+ * Les recherches chargent le client par jointure ; les lignes sont chargées par lots (@BatchSize sur Facture).
  */
 @Repository
 public interface FactureRepository extends JpaRepository<Facture, Long> {
     
+    /**
+     * Nombre de lignes lues par aller-retour lors d'un parcours en flux
+     */
+    int STREAM_FETCH_SIZE = 500;
+    
+    /**
+     * Expression de construction des résumés de facture (aucune entité n'est chargée)
+     */
+    String SELECT_RESUME = "SELECT new com.arimayi.billing.dto.FactureResumeDto("
+            + "f.id, f.numero, f.date, c.nom, f.totalHT, f.totalTVA, f.totalTTC) "
+            + "FROM Facture f JOIN f.client c ";
+    
+    /**
+     * Récupère toutes les factures avec leur client
+     */
+    @Override
+    @EntityGraph(attributePaths = "client")
+    List<Facture> findAll();
+    
+    /**
+     * Recherche une facture par son ID avec son client
+     */
+    @Override
+    @EntityGraph(attributePaths = "client")
+    Optional<Facture> findById(Long id);
+    
+    /**
+     * Première page des factures, triées par date puis ID
+     */
+    @EntityGraph(attributePaths = "client")
+    @Query("SELECT f FROM Facture f ORDER BY f.date, f.id")
+    List<Facture> findFirstPage(Limit limit);
+    
+    /**
+     * Page suivante des factures après la clé (date, id) de la dernière facture lue
+     */
+    @EntityGraph(attributePaths = "client")
+    @Query("SELECT f FROM Facture f WHERE f.date > :date OR (f.date = :date AND f.id > :id) ORDER BY f.date, f.id")
+    List<Facture> findPageAfter(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+    
     /**
      * Recherche les factures d'un client
      */
+    @EntityGraph(attributePaths = "client")
     List<Facture> findByClientId(Long clientId);
     
     /**
      * Recherche les factures par date
      */
+    @EntityGraph(attributePaths = "client")
     List<Facture> findByDate(LocalDate date);
     
     /**
      * Recherche les factures entre deux dates
      */
+    @EntityGraph(attributePaths = "client")
     List<Facture> findByDateBetween(LocalDate dateDebut, LocalDate dateFin);
     
+    /**
+     * Parcourt les factures entre deux dates avec un curseur en lecture seule (export en flux)
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(attributePaths = "client")
+    @Query("SELECT f FROM Facture f WHERE f.date BETWEEN :dateDebut AND :dateFin ORDER BY f.date, f.id")
+    Stream<Facture> streamByDateBetween(@Param("dateDebut") LocalDate dateDebut, @Param("dateFin") LocalDate dateFin);
+    
     /**
      * Recherche les factures d'un client entre deux dates
      */
+    @EntityGraph(attributePaths = "client")
     @Query("SELECT f FROM Facture f WHERE f.client.id = :clientId AND f.date BETWEEN :dateDebut AND :dateFin")
     List<Facture> findByClientIdAndDateBetween(@Param("clientId") Long clientId, 
                                                @Param("dateDebut") LocalDate dateDebut, 
                                                @Param("dateFin") LocalDate dateFin);
     
     /**
-     * Compte le nombre de factures pour générer le numéro
+     * Première page des résumés de factures, triés par date puis ID
+     */
+    @Query(SELECT_RESUME + "ORDER BY f.date, f.id")
+    List<FactureResumeDto> findResumesFirstPage(Limit limit);
+    
+    /**
+     * Page suivante des résumés de factures après la clé (date, id)
+     */
+    @Query(SELECT_RESUME + "WHERE f.date > :date OR (f.date = :date AND f.id > :id) ORDER BY f.date, f.id")
+    List<FactureResumeDto> findResumesPageAfter(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Résumés des factures d'un client
+     */
+    @Query(SELECT_RESUME + "WHERE c.id = :clientId ORDER BY f.date, f.id")
+    List<FactureResumeDto> findResumesByClientId(@Param("clientId") Long clientId);
+    
+    /**
+     * Résumés des factures d'une liste d'IDs, dans un ordre quelconque
+     */
+    @Query(SELECT_RESUME + "WHERE f.id IN :ids")
+    List<FactureResumeDto> findResumesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Chiffre d'affaires par mois des factures entre deux dates
+     */
+    @Query("SELECT new com.arimayi.billing.dto.ChiffreAffairesMensuelDto("
+            + "YEAR(f.date), MONTH(f.date), COUNT(f), SUM(f.totalHT), SUM(f.totalTVA), SUM(f.totalTTC)) "
+            + "FROM Facture f WHERE f.date BETWEEN :dateDebut AND :dateFin "
+            + "GROUP BY YEAR(f.date), MONTH(f.date) ORDER BY YEAR(f.date), MONTH(f.date)")
+    List<ChiffreAffairesMensuelDto> sumByMois(@Param("dateDebut") LocalDate dateDebut,
+                                              @Param("dateFin") LocalDate dateFin);
+    
+    /**
+     * Chiffre d'affaires par client des factures entre deux dates, du plus important au plus faible
+     */
+    @Query("SELECT new com.arimayi.billing.dto.ChiffreAffairesClientDto("
+            + "c.id, c.nom, COUNT(f), SUM(f.totalHT), SUM(f.totalTVA), SUM(f.totalTTC)) "
+            + "FROM Facture f JOIN f.client c WHERE f.date BETWEEN :dateDebut AND :dateFin "
+            + "GROUP BY c.id, c.nom ORDER BY SUM(f.totalHT) DESC, c.id")
+    List<ChiffreAffairesClientDto> sumByClient(@Param("dateDebut") LocalDate dateDebut,
+                                               @Param("dateFin") LocalDate dateFin);
+    
+    /**
+     * Chiffre d'affaires par client et par mois (AAAAMM) de toutes les factures
+     */
+    @Query("SELECT new com.arimayi.billing.dto.CumulChiffreAffairesDto("
+            + "f.client.id, YEAR(f.date) * 100 + MONTH(f.date), COUNT(f), SUM(f.totalHT), SUM(f.totalTVA), SUM(f.totalTTC)) "
+            + "FROM Facture f GROUP BY f.client.id, YEAR(f.date) * 100 + MONTH(f.date)")
+    List<CumulChiffreAffairesDto> sumByClientEtMois();
+    
+    /**
+     * Résumés des factures entre deux dates
+     */
+    @Query(SELECT_RESUME + "WHERE f.date BETWEEN :dateDebut AND :dateFin ORDER BY f.date, f.id")
+    List<FactureResumeDto> findResumesByDateBetween(@Param("dateDebut") LocalDate dateDebut,
+                                                    @Param("dateFin") LocalDate dateFin);
+    
+    /**
+     * Compte le nombre de factures d'une année (initialisation du compteur de numérotation)
      */
     @Query("SELECT COUNT(f) FROM Facture f WHERE YEAR(f.date) = :annee")
     Long countByYear(@Param("annee") int annee);
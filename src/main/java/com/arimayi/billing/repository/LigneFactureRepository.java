@@ -0,0 +1,43 @@
+package com.arimayi.billing.repository;
+
+import com.arimayi.billing.dto.ChiffreAffairesTauxDto;
+import com.arimayi.billing.dto.DescriptionLigneDto;
+import com.arimayi.billing.entity.LigneFacture;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Repository pour l'entité LigneFacture
+ */
+@Repository
+public interface LigneFactureRepository extends JpaRepository<LigneFacture, Long> {
+    
+    /**
+     * Chiffre d'affaires par taux de TVA des factures entre deux dates
+     */
+    @Query("SELECT new com.arimayi.billing.dto.ChiffreAffairesTauxDto("
+            + "l.tauxTVA, COUNT(l), SUM(l.totalHT), SUM(l.totalTVA), SUM(l.totalTTC)) "
+            + "FROM LigneFacture l JOIN l.facture f "
+            + "WHERE f.date BETWEEN :dateDebut AND :dateFin "
+            + "GROUP BY l.tauxTVA ORDER BY l.tauxTVA")
+    List<ChiffreAffairesTauxDto> sumByTauxTVA(@Param("dateDebut") LocalDate dateDebut,
+                                              @Param("dateFin") LocalDate dateFin);
+    
+    /**
+     * Parcourt les descriptions de toutes les lignes, par facture, avec leur client (construction de l'index de recherche)
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + FactureRepository.STREAM_FETCH_SIZE))
+    @Query("SELECT new com.arimayi.billing.dto.DescriptionLigneDto(f.id, f.client.id, l.description) "
+            + "FROM LigneFacture l JOIN l.facture f ORDER BY f.id")
+    Stream<DescriptionLigneDto> streamDescriptions();
+}
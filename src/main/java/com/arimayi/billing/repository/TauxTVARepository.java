@@ -0,0 +1,14 @@
+package com.arimayi.billing.repository;
+
+import com.arimayi.billing.entity.TauxTVA;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Repository des taux de TVA autorisés
+ */
+@Repository
+public interface TauxTVARepository extends JpaRepository<TauxTVA, BigDecimal> {
+}
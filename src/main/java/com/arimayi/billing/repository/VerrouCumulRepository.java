@@ -0,0 +1,33 @@
+package com.arimayi.billing.repository;
+
+import com.arimayi.billing.entity.VerrouCumul;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository des lignes de garde des cumuls de chiffre d'affaires
+ */
+@Repository
+public interface VerrouCumulRepository extends JpaRepository<VerrouCumul, Integer> {
+    
+    /**
+     * Verrouille une ligne de garde jusqu'à la fin de la transaction (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VerrouCumul v WHERE v.tranche = :tranche")
+    Optional<VerrouCumul> verrouiller(@Param("tranche") Integer tranche);
+    
+    /**
+     * Verrouille toutes les lignes de garde, dans l'ordre des tranches
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VerrouCumul v ORDER BY v.tranche")
+    List<VerrouCumul> verrouillerTout();
+}
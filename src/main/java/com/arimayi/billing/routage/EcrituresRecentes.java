@@ -0,0 +1,51 @@
+package com.arimayi.billing.routage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Utilisateurs ayant validé une écriture récemment. Pendant la fenêtre qui suit leur écriture, leurs lectures
+ * sont servies par la base principale : un réplica en retard ne doit pas leur cacher ce qu'ils viennent d'écrire.
+ */
+public class EcrituresRecentes {
+
+    private final Cache<String, Boolean> utilisateurs;
+
+    public EcrituresRecentes(Duration fenetre) {
+        this.utilisateurs = Caffeine.newBuilder()
+                .expireAfterWrite(fenetre)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Ouvre (ou prolonge) la fenêtre de lecture sur la base principale de l'utilisateur
+     */
+    public void enregistrer(String utilisateur) {
+        utilisateurs.put(utilisateur, Boolean.TRUE);
+    }
+
+    /**
+     * Indique si l'utilisateur a écrit pendant la fenêtre
+     */
+    public boolean estRecente(String utilisateur) {
+        return utilisateurs.getIfPresent(utilisateur) != null;
+    }
+
+    /**
+     * Utilisateur authentifié du thread courant, ou null
+     */
+    public static String utilisateurCourant() {
+        Authentication authentification = SecurityContextHolder.getContext().getAuthentication();
+        if (authentification == null || !authentification.isAuthenticated()
+                || authentification instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentification.getName();
+    }
+}
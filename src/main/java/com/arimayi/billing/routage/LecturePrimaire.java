@@ -0,0 +1,40 @@
+package com.arimayi.billing.routage;
+
+import java.util.function.Supplier;
+
+/**
+ * Lectures à servir par la base principale même en transaction en lecture seule : celles qui alimentent un cache.
+ * Un réplica en retard y remettrait l'état précédant une modification, qui y resterait après l'invalidation
+ * bien au-delà du retard de réplication.
+ * La connexion étant choisie à la première requête SQL, la lecture doit être la première de sa transaction ;
+ * les requêtes suivantes de la transaction restent alors sur la base principale.
+ */
+public final class LecturePrimaire {
+
+    private static final ThreadLocal<Boolean> DEMANDEE = new ThreadLocal<>();
+
+    private LecturePrimaire() {
+    }
+
+    /**
+     * Exécute le chargement en demandant la base principale
+     */
+    public static <T> T executer(Supplier<T> chargement) {
+        Boolean precedente = DEMANDEE.get();
+        DEMANDEE.set(Boolean.TRUE);
+        try {
+            return chargement.get();
+        } finally {
+            if (precedente == null) {
+                DEMANDEE.remove();
+            }
+        }
+    }
+
+    /**
+     * Indique si le thread courant exécute une lecture à servir par la base principale
+     */
+    public static boolean estDemandee() {
+        return DEMANDEE.get() != null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.arimayi.billing.routage;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+/**
+ * Pools de connexions de la base principale et des réplicas, derrière la source de données routée
+ */
+public record PoolsConnexions(HikariDataSource primaire, List<HikariDataSource> replicas) {
+
+    public void fermer() {
+        replicas.forEach(HikariDataSource::close);
+        primaire.close();
+    }
+}
@@ -0,0 +1,187 @@
+package com.arimayi.billing.routage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplication de substitution entre bases H2, pour le développement et les tests : à intervalle régulier,
+ * un instantané cohérent de la base principale est recopié dans chaque réplica, en une transaction
+ * (les lectures sur le réplica voient l'ancienne copie jusqu'à sa validation).
+ * Le retard de réplication est l'âge du dernier instantané recopié.
+ */
+public class ReplicationSimulee implements RetardReplication {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationSimulee.class);
+    private static final String TABLES = "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+            + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'";
+
+    private final DataSource primaire;
+    private final List<DataSource> replicas;
+    private final Duration intervalle;
+
+    // Instant (System.nanoTime) de l'instantané recopié dans chaque réplica ; 0 tant qu'aucune copie n'a eu lieu
+    private final long[] instantanes;
+    private ScheduledExecutorService planificateur;
+
+    public ReplicationSimulee(DataSource primaire, List<? extends DataSource> replicas, Duration intervalle) {
+        this.primaire = primaire;
+        this.replicas = List.copyOf(replicas);
+        this.intervalle = intervalle;
+        this.instantanes = new long[replicas.size()];
+    }
+
+    /**
+     * Démarre la réplication une fois l'application prête : le schéma et les données initiales existent alors
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "replication-simulee");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(() -> {
+            try {
+                synchroniser();
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Échec de la réplication simulée : {}", ex.getMessage());
+            }
+        }, 0, intervalle.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+        }
+    }
+
+    @Override
+    public Duration retard(int replica) {
+        long instantane;
+        synchronized (instantanes) {
+            instantane = instantanes[replica];
+        }
+        return instantane == 0 ? Duration.ofNanos(Long.MAX_VALUE) : Duration.ofNanos(System.nanoTime() - instantane);
+    }
+
+    /**
+     * Recopie l'état actuel de la base principale dans tous les réplicas
+     */
+    public synchronized void synchroniser() throws SQLException {
+        long instantane = System.nanoTime();
+        try (Connection source = primaire.getConnection()) {
+            source.setAutoCommit(false);
+            // Lecture répétable : toutes les tables sont lues dans le même instantané
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                Set<String> tables = tables(source);
+                for (int i = 0; i < replicas.size(); i++) {
+                    try (Connection cible = replicas.get(i).getConnection()) {
+                        if (!tables(cible).containsAll(tables)) {
+                            creerSchema(source, cible);
+                        }
+                        copier(source, cible, tables);
+                    }
+                    synchronized (instantanes) {
+                        instantanes[i] = instantane;
+                    }
+                }
+            } finally {
+                source.rollback();
+            }
+        }
+    }
+
+    /**
+     * Recrée le schéma de la base principale dans le réplica, sans les clés étrangères :
+     * l'intégrité est garantie par la base principale et les tables sont recopiées dans un ordre quelconque
+     */
+    private static void creerSchema(Connection source, Connection cible) throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        try (Statement statement = source.createStatement();
+             ResultSet script = statement.executeQuery("SCRIPT NODATA NOPASSWORDS NOSETTINGS")) {
+            while (script.next()) {
+                String instruction = script.getString(1);
+                if (!instruction.startsWith("CREATE USER") && !instruction.contains("FOREIGN KEY")) {
+                    ddl.add(instruction);
+                }
+            }
+        }
+        try (Statement statement = cible.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String instruction : ddl) {
+                statement.execute(instruction);
+            }
+        }
+        log.info("Schéma recréé sur le réplica ({} instructions)", ddl.size());
+    }
+
+    private static void copier(Connection source, Connection cible, Set<String> tables) throws SQLException {
+        cible.setAutoCommit(false);
+        try {
+            for (String table : tables) {
+                try (Statement statement = cible.createStatement()) {
+                    statement.executeUpdate("DELETE FROM \"" + table + "\"");
+                }
+                copierTable(source, cible, table);
+            }
+            cible.commit();
+        } catch (SQLException | RuntimeException ex) {
+            cible.rollback();
+            throw ex;
+        } finally {
+            cible.setAutoCommit(true);
+        }
+    }
+
+    private static void copierTable(Connection source, Connection cible, String table) throws SQLException {
+        try (Statement lecture = source.createStatement();
+             ResultSet lignes = lecture.executeQuery("SELECT * FROM \"" + table + "\"")) {
+            int colonnes = lignes.getMetaData().getColumnCount();
+            String insertion = "INSERT INTO \"" + table + "\" VALUES ("
+                    + String.join(", ", Collections.nCopies(colonnes, "?")) + ")";
+            try (PreparedStatement ecriture = cible.prepareStatement(insertion)) {
+                int lot = 0;
+                while (lignes.next()) {
+                    for (int c = 1; c <= colonnes; c++) {
+                        ecriture.setObject(c, lignes.getObject(c));
+                    }
+                    ecriture.addBatch();
+                    if (++lot % 500 == 0) {
+                        ecriture.executeBatch();
+                    }
+                }
+                ecriture.executeBatch();
+            }
+        }
+    }
+
+    private static Set<String> tables(Connection connexion) throws SQLException {
+        Set<String> tables = new TreeSet<>();
+        try (Statement statement = connexion.createStatement();
+             ResultSet resultat = statement.executeQuery(TABLES)) {
+            while (resultat.next()) {
+                tables.add(resultat.getString(1));
+            }
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,15 @@
+package com.arimayi.billing.routage;
+
+import java.time.Duration;
+
+/**
+ * Mesure du retard de réplication d'un réplica, consultée par les vérifications de santé
+ */
+@FunctionalInterface
+public interface RetardReplication {
+
+    /**
+     * Retard du réplica d'indice donné sur la base principale
+     */
+    Duration retard(int replica);
+}
@@ -0,0 +1,71 @@
+package com.arimayi.billing.routage;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source de données qui envoie les transactions en lecture seule vers un réplica disponible et tout le reste
+ * (écritures, accès hors transaction) vers la base principale. Les lectures d'un utilisateur qui vient d'écrire
+ * restent sur la base principale pendant la fenêtre de {@link EcrituresRecentes}, comme les lectures qui alimentent
+ * un cache ({@link LecturePrimaire}).
+ * Doit être enveloppée dans un LazyConnectionDataSourceProxy : la connexion n'est alors choisie qu'à la première
+ * requête SQL, quand le caractère lecture seule de la transaction est connu.
+ */
+public class SourceDeDonneesRoutee extends AbstractRoutingDataSource {
+
+    static final String PRIMAIRE = "primaire";
+
+    private final SurveillanceReplicas surveillance;
+    private final EcrituresRecentes ecrituresRecentes;
+
+    public SourceDeDonneesRoutee(DataSource primaire, List<? extends DataSource> replicas,
+                                 SurveillanceReplicas surveillance, EcrituresRecentes ecrituresRecentes) {
+        this.surveillance = surveillance;
+        this.ecrituresRecentes = ecrituresRecentes;
+        Map<Object, Object> cibles = new HashMap<>();
+        cibles.put(PRIMAIRE, primaire);
+        for (int i = 0; i < replicas.size(); i++) {
+            cibles.put(i, replicas.get(i));
+        }
+        setTargetDataSources(cibles);
+        setDefaultTargetDataSource(primaire);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String utilisateur = EcrituresRecentes.utilisateurCourant();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            suivreEcriture(utilisateur);
+            return PRIMAIRE;
+        }
+        if (LecturePrimaire.estDemandee()
+                || utilisateur != null && ecrituresRecentes.estRecente(utilisateur)) {
+            return PRIMAIRE;
+        }
+        Integer replica = surveillance.choisir();
+        return replica != null ? replica : PRIMAIRE;
+    }
+
+    /**
+     * Ouvre la fenêtre de lecture sur la base principale de l'utilisateur quand sa transaction est validée
+     */
+    private void suivreEcriture(String utilisateur) {
+        if (utilisateur == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ecrituresRecentes.enregistrer(utilisateur);
+            }
+        });
+    }
+}
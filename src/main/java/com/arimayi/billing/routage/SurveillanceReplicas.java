@@ -0,0 +1,119 @@
+package com.arimayi.billing.routage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vérifie périodiquement les réplicas et répartit les lectures entre ceux qui sont disponibles.
+ * Un réplica est écarté s'il ne répond pas ou si son retard de réplication dépasse le maximum ;
+ * sans réplica disponible, les lectures sont servies par la base principale.
+ */
+public class SurveillanceReplicas {
+
+    private static final Logger log = LoggerFactory.getLogger(SurveillanceReplicas.class);
+    private static final int DELAI_VALIDATION_SECONDES = 2;
+
+    private final List<DataSource> replicas;
+    private final RetardReplication retardReplication;
+    private final Duration retardMax;
+    private final Duration intervalle;
+    private final AtomicInteger suivant = new AtomicInteger();
+
+    // Indices des réplicas disponibles, remplacés en bloc à chaque vérification
+    private volatile int[] disponibles = new int[0];
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * @param retardReplication mesure du retard, ou null si elle n'est pas connue (seule la connexion est vérifiée)
+     */
+    public SurveillanceReplicas(List<DataSource> replicas, RetardReplication retardReplication, Duration retardMax,
+                                Duration intervalle) {
+        this.replicas = List.copyOf(replicas);
+        this.retardReplication = retardReplication;
+        this.retardMax = retardMax;
+        this.intervalle = intervalle;
+    }
+
+    public void demarrer() {
+        planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "surveillance-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(this::verifier, 0, intervalle.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+        }
+    }
+
+    /**
+     * Vérifie chaque réplica et met à jour ceux qui reçoivent les lectures
+     */
+    public synchronized void verifier() {
+        List<Integer> valides = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            String probleme = probleme(i);
+            boolean etaitDisponible = isDisponible(i);
+            if (probleme == null) {
+                valides.add(i);
+                if (!etaitDisponible) {
+                    log.info("Réplica {} disponible pour les lectures", i + 1);
+                }
+            } else if (etaitDisponible) {
+                log.warn("Réplica {} écarté des lectures : {}", i + 1, probleme);
+            }
+        }
+        disponibles = valides.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Choisit à tour de rôle un réplica disponible ; null s'il n'y en a aucun
+     */
+    public Integer choisir() {
+        int[] candidats = disponibles;
+        if (candidats.length == 0) {
+            return null;
+        }
+        return candidats[Math.floorMod(suivant.getAndIncrement(), candidats.length)];
+    }
+
+    public boolean isDisponible(int replica) {
+        for (int disponible : disponibles) {
+            if (disponible == replica) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String probleme(int replica) {
+        try (Connection connexion = replicas.get(replica).getConnection()) {
+            if (!connexion.isValid(DELAI_VALIDATION_SECONDES)) {
+                return "connexion invalide";
+            }
+        } catch (SQLException ex) {
+            return ex.getMessage();
+        }
+        if (retardReplication != null) {
+            Duration retard = retardReplication.retard(replica);
+            if (retard.compareTo(retardMax) > 0) {
+                return "retard de réplication de " + retard.toMillis() + " ms";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.CacheStatistiquesDto;
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.repository.ClientRepository;
+import com.arimayi.billing.routage.LecturePrimaire;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache en lecture des clients, placé devant ClientRepository pour les recherches par ID, email et SIRET.
+ * Les clients mis en cache sont des copies détachées (sans factures) à traiter en lecture seule.
+ * Les clients absents du cache sont lus sur la base principale, jamais sur un réplica en retard :
+ * une recherche doit donc précéder les autres requêtes de la transaction.
+ */
+@Component
+public class CacheClients {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Value("${billing.cache.clients.max-size:10000}")
+    private long tailleMax = 10_000;
+
+    @Value("${billing.cache.clients.ttl:10m}")
+    private Duration dureeDeVie = Duration.ofMinutes(10);
+
+    private Cache<Long, Client> parId;
+    private Cache<String, Long> parEmail;
+    private Cache<String, Long> parSiret;
+
+    // Incrémenté à chaque invalidation, pour ne pas remettre en cache une valeur lue avant celle-ci
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void initialiser() {
+        parId = nouveauCache();
+        parEmail = nouveauCache();
+        parSiret = nouveauCache();
+    }
+
+    /**
+     * Recherche un client par son ID
+     */
+    public Optional<Client> findById(Long id) {
+        Client client = parId.getIfPresent(id);
+        if (client == null) {
+            long generationLecture = generation.get();
+            client = LecturePrimaire.executer(() -> clientRepository.findById(id)).map(this::copier).orElse(null);
+            if (client != null) {
+                mettreEnCache(parId, id, client, generationLecture);
+            }
+        }
+        return Optional.ofNullable(client);
+    }
+
+    /**
+     * Vérifie l'existence d'un client
+     */
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    /**
+     * Recherche un client par son email
+     */
+    public Optional<Client> findByEmail(String email) {
+        return rechercherParCle(parEmail, email, clientRepository::findByEmail)
+                .filter(client -> client.getEmail().equals(email));
+    }
+
+    /**
+     * Recherche un client par son SIRET
+     */
+    public Optional<Client> findBySiret(String siret) {
+        return rechercherParCle(parSiret, siret, clientRepository::findBySiret)
+                .filter(client -> client.getSiret().equals(siret));
+    }
+
+    /**
+     * Retire un client du cache, immédiatement et à nouveau à la fin de la transaction courante
+     * pour qu'une lecture concurrente ne remette pas en cache l'état précédant la modification.
+     * À appeler avant de modifier l'email ou le SIRET du client.
+     */
+    public void invalider(Client client) {
+        Long id = client.getId();
+        String email = client.getEmail();
+        String siret = client.getSiret();
+        retirer(id, email, siret);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    retirer(id, email, siret);
+                }
+            });
+        }
+    }
+
+    /**
+     * Statistiques des caches (succès, échecs, évictions)
+     */
+    public List<CacheStatistiquesDto> statistiques() {
+        return List.of(
+            statistiques("clients.id", parId),
+            statistiques("clients.email", parEmail),
+            statistiques("clients.siret", parSiret)
+        );
+    }
+
+    private Optional<Client> rechercherParCle(Cache<String, Long> index, String cle,
+                                              Function<String, Optional<Client>> chargement) {
+        Long id = index.getIfPresent(cle);
+        if (id == null) {
+            long generationLecture = generation.get();
+            Optional<Client> client = LecturePrimaire.executer(() -> chargement.apply(cle));
+            if (client.isEmpty()) {
+                return Optional.empty();
+            }
+            id = client.get().getId();
+            mettreEnCache(parId, id, copier(client.get()), generationLecture);
+            mettreEnCache(index, cle, id, generationLecture);
+        }
+        return findById(id);
+    }
+
+    /**
+     * Ajoute une entrée lue en base, sauf si une invalidation a eu lieu depuis la lecture.
+     * Le chargement se fait hors de Cache.get(clé, fonction), qui exécute la fonction sous le verrou
+     * d'une entrée de ConcurrentHashMap et bloquerait le thread porteur d'un thread virtuel pendant la requête ;
+     * le compteur de générations remplace la garantie qu'offrait ce verrou face aux invalidations concurrentes.
+     */
+    private <K, V> void mettreEnCache(Cache<K, V> cache, K cle, V valeur, long generationLecture) {
+        cache.put(cle, valeur);
+        if (generation.get() != generationLecture) {
+            cache.invalidate(cle);
+        }
+    }
+
+    private void retirer(Long id, String email, String siret) {
+        generation.incrementAndGet();
+        parId.invalidate(id);
+        parEmail.invalidate(email);
+        parSiret.invalidate(siret);
+    }
+
+    private <K, V> Cache<K, V> nouveauCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(dureeDeVie)
+                .recordStats()
+                .build();
+    }
+
+    private static CacheStatistiquesDto statistiques(String nom, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatistiquesDto(nom, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    /**
+     * Copie détachée du client, sans la collection de factures
+     */
+    private Client copier(Client client) {
+        Client copie = new Client(client.getNom(), client.getEmail(), client.getSiret());
+        copie.setId(client.getId());
+        copie.setDateCreation(client.getDateCreation());
+        return copie;
+    }
+}
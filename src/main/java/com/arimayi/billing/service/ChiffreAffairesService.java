@@ -0,0 +1,71 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.ChiffreAffairesClientDto;
+import com.arimayi.billing.dto.ChiffreAffairesMensuelDto;
+import com.arimayi.billing.dto.ChiffreAffairesTauxDto;
+import com.arimayi.billing.repository.CumulChiffreAffairesRepository;
+import com.arimayi.billing.repository.FactureRepository;
+import com.arimayi.billing.repository.LigneFactureRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service de calcul du chiffre d'affaires : les sommes sont calculées par la base (GROUP BY),
+ * seules les lignes agrégées sont transférées. Les périodes en mois entiers sont lues
+ * dans les cumuls mensuels par client plutôt que dans les factures.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ChiffreAffairesService {
+    
+    @Autowired
+    private FactureRepository factureRepository;
+    
+    @Autowired
+    private LigneFactureRepository ligneFactureRepository;
+    
+    @Autowired
+    private CumulChiffreAffairesRepository cumulRepository;
+    
+    /**
+     * Chiffre d'affaires par mois entre deux dates
+     */
+    public List<ChiffreAffairesMensuelDto> getParMois(LocalDate dateDebut, LocalDate dateFin) {
+        if (moisComplets(dateDebut, dateFin)) {
+            return cumulRepository.sumByMois(CumulChiffreAffairesService.anneeMois(dateDebut),
+                    CumulChiffreAffairesService.anneeMois(dateFin));
+        }
+        return factureRepository.sumByMois(dateDebut, dateFin);
+    }
+    
+    /**
+     * Chiffre d'affaires par client entre deux dates
+     */
+    public List<ChiffreAffairesClientDto> getParClient(LocalDate dateDebut, LocalDate dateFin) {
+        if (moisComplets(dateDebut, dateFin)) {
+            return cumulRepository.sumByClient(CumulChiffreAffairesService.anneeMois(dateDebut),
+                    CumulChiffreAffairesService.anneeMois(dateFin));
+        }
+        return factureRepository.sumByClient(dateDebut, dateFin);
+    }
+    
+    /**
+     * Chiffre d'affaires par taux de TVA entre deux dates
+     */
+    public List<ChiffreAffairesTauxDto> getParTauxTVA(LocalDate dateDebut, LocalDate dateFin) {
+        return ligneFactureRepository.sumByTauxTVA(dateDebut, dateFin);
+    }
+    
+    /**
+     * Indique si la période couvre des mois entiers, auquel cas les cumuls mensuels suffisent
+     */
+    private static boolean moisComplets(LocalDate dateDebut, LocalDate dateFin) {
+        return dateDebut.getDayOfMonth() == 1
+                && dateFin.getDayOfMonth() == dateFin.lengthOfMonth()
+                && !dateDebut.isAfter(dateFin);
+    }
+}
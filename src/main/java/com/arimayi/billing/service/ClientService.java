@@ -1,15 +1,21 @@
 package com.arimayi.billing.service;
 
+import com.arimayi.billing.dto.CacheStatistiquesDto;
 import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.PageDto;
 import com.arimayi.billing.entity.Client;
 import com.arimayi.billing.exception.ResourceNotFoundException;
 import com.arimayi.billing.exception.DuplicateResourceException;
 import com.arimayi.billing.repository.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -22,14 +28,62 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
     
+    @Autowired
+    private CacheClients cacheClients;
+    
+    @Autowired
+    private IndexUniciteClients indexUnicite;
+    
+    @Autowired
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    @Autowired
+    private EtagsFactures etagsFactures;
+    
+    @Autowired
+    private IndexRechercheFactures indexRecherche;
+    
+    @Autowired
+    private CurseurPagination curseurPagination;
+    
+    // Nombre maximal de clients renvoyés par la liste complète (obsolète, remplacée par la pagination)
+    @Value("${billing.pagination.list-max:1000}")
+    private int listeMax = 1000;
+    
+    /**
+     * Récupère les clients triés par ID, au plus billing.pagination.list-max ;
+     * nextCursor est renseigné si la liste est tronquée et se poursuit avec getClientsPage
+     *
+     * @deprecated charge jusqu'à list-max clients en une fois : utiliser getClientsPage
+     */
+    @Deprecated
+    @Transactional(readOnly = true)
+    public PageDto<ClientDto> getAllClients() {
+        return pageClients(null, listeMax);
+    }
+    
     /**
-     * Récupère tous les clients
+     * Récupère une page de clients triés par ID, à partir du curseur "after"
      */
     @Transactional(readOnly = true)
-    public List<ClientDto> getAllClients() {
-        return clientRepository.findAll().stream()
+    public PageDto<ClientDto> getClientsPage(String after, int size) {
+        return pageClients(after, CurseurPagination.bornerTaille(size));
+    }
+    
+    private PageDto<ClientDto> pageClients(String after, int taille) {
+        Long dernierId = after == null ? 0L : curseurPagination.decoder(after, 1, cles -> Long.valueOf(cles[0]));
+        
+        List<Client> clients = clientRepository.findByIdGreaterThanOrderByIdAsc(dernierId, Limit.of(taille + 1));
+        
+        String nextCursor = null;
+        if (clients.size() > taille) {
+            clients = clients.subList(0, taille);
+            nextCursor = curseurPagination.encoder(clients.get(taille - 1).getId());
+        }
+        
+        return new PageDto<>(clients.stream()
                 .map(this::convertToDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), nextCursor);
     }
     
     /**
@@ -37,27 +91,56 @@ public class ClientService {
      */
     @Transactional(readOnly = true)
     public ClientDto getClientById(Long id) {
-        Client client = clientRepository.findById(id)
+        Client client = cacheClients.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec l'ID: " + id));
         return convertToDto(client);
     }
     
+    /**
+     * Récupère un client par son email
+     */
+    @Transactional(readOnly = true)
+    public ClientDto getClientByEmail(String email) {
+        Client client = cacheClients.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec l'email: " + email));
+        return convertToDto(client);
+    }
+    
+    /**
+     * Récupère un client par son SIRET
+     */
+    @Transactional(readOnly = true)
+    public ClientDto getClientBySiret(String siret) {
+        Client client = cacheClients.findBySiret(siret)
+                .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec le SIRET: " + siret));
+        return convertToDto(client);
+    }
+    
+    /**
+     * Statistiques du cache des clients
+     */
+    public List<CacheStatistiquesDto> getCacheStatistiques() {
+        return cacheClients.statistiques();
+    }
+    
     /**
      * Crée un nouveau client
      */
     public ClientDto createClient(ClientDto clientDto) {
-        // Vérification de l'unicité de l'email
-        if (clientRepository.existsByEmail(clientDto.getEmail())) {
+        // Vérification de l'unicité de l'email (requête uniquement si l'index ne garantit pas l'absence)
+        if (indexUnicite.emailPeutExister(clientDto.getEmail()) && clientRepository.existsByEmail(clientDto.getEmail())) {
             throw new DuplicateResourceException("Un client avec cet email existe déjà: " + clientDto.getEmail());
         }
         
         // Vérification de l'unicité du SIRET
-        if (clientRepository.existsBySiret(clientDto.getSiret())) {
+        if (indexUnicite.siretPeutExister(clientDto.getSiret()) && clientRepository.existsBySiret(clientDto.getSiret())) {
             throw new DuplicateResourceException("Un client avec ce SIRET existe déjà: " + clientDto.getSiret());
         }
         
         Client client = convertToEntity(clientDto);
-        Client savedClient = clientRepository.save(client);
+        Client savedClient = sauvegarder(client);
+        indexUnicite.ajouter(savedClient.getEmail(), savedClient.getSiret());
+        indexRecherche.indexerClientApresValidation(savedClient.getId(), savedClient.getNom());
         return convertToDto(savedClient);
     }
     
@@ -67,24 +150,33 @@ public class ClientService {
     public ClientDto updateClient(Long id, ClientDto clientDto) {
         Client existingClient = clientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec l'ID: " + id));
+        String ancienEmail = existingClient.getEmail();
+        String ancienSiret = existingClient.getSiret();
+        boolean emailModifie = !ancienEmail.equals(clientDto.getEmail());
+        boolean siretModifie = !ancienSiret.equals(clientDto.getSiret());
         
         // Vérification de l'unicité de l'email (sauf pour le client actuel)
-        if (!existingClient.getEmail().equals(clientDto.getEmail()) && 
+        if (emailModifie && indexUnicite.emailPeutExister(clientDto.getEmail()) &&
             clientRepository.existsByEmail(clientDto.getEmail())) {
             throw new DuplicateResourceException("Un client avec cet email existe déjà: " + clientDto.getEmail());
         }
         
         // Vérification de l'unicité du SIRET (sauf pour le client actuel)
-        if (!existingClient.getSiret().equals(clientDto.getSiret()) && 
+        if (siretModifie && indexUnicite.siretPeutExister(clientDto.getSiret()) &&
             clientRepository.existsBySiret(clientDto.getSiret())) {
             throw new DuplicateResourceException("Un client avec ce SIRET existe déjà: " + clientDto.getSiret());
         }
         
+        cacheClients.invalider(existingClient);
+        etagsFactures.invaliderClient(id);
         existingClient.setNom(clientDto.getNom());
         existingClient.setEmail(clientDto.getEmail());
         existingClient.setSiret(clientDto.getSiret());
         
-        Client updatedClient = clientRepository.save(existingClient);
+        Client updatedClient = sauvegarder(existingClient);
+        indexUnicite.ajouter(updatedClient.getEmail(), updatedClient.getSiret());
+        indexUnicite.retirerApresValidation(emailModifie ? ancienEmail : null, siretModifie ? ancienSiret : null);
+        indexRecherche.indexerClientApresValidation(id, updatedClient.getNom());
         return convertToDto(updatedClient);
     }
     
@@ -92,10 +184,33 @@ public class ClientService {
      * Supprime un client
      */
     public void deleteClient(Long id) {
-        if (!clientRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Client non trouvé avec l'ID: " + id);
+        Client client = clientRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec l'ID: " + id));
+        cacheClients.invalider(client);
+        etagsFactures.invaliderClient(id);
+        cumulChiffreAffairesService.supprimerClient(id);
+        clientRepository.delete(client);
+        indexUnicite.retirerApresValidation(client.getEmail(), client.getSiret());
+        indexRecherche.retirerClientApresValidation(id);
+    }
+    
+    /**
+     * Écrit le client immédiatement en base pour traduire une violation des contraintes d'unicité
+     * (écriture concurrente passée entre la vérification et l'insertion) en DuplicateResourceException
+     */
+    private Client sauvegarder(Client client) {
+        try {
+            return clientRepository.saveAndFlush(client);
+        } catch (DataIntegrityViolationException ex) {
+            String contrainte = ex.getMostSpecificCause().getMessage().toLowerCase(Locale.ROOT);
+            if (contrainte.contains(Client.CONTRAINTE_EMAIL)) {
+                throw new DuplicateResourceException("Un client avec cet email existe déjà: " + client.getEmail(), ex);
+            }
+            if (contrainte.contains(Client.CONTRAINTE_SIRET)) {
+                throw new DuplicateResourceException("Un client avec ce SIRET existe déjà: " + client.getSiret(), ex);
+            }
+            throw ex;
         }
-        clientRepository.deleteById(id);
     }
     
     /**
@@ -0,0 +1,234 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.CumulChiffreAffairesDto;
+import com.arimayi.billing.dto.VerificationCumulsDto;
+import com.arimayi.billing.entity.CumulChiffreAffaires;
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.entity.VerrouCumul;
+import com.arimayi.billing.repository.CumulChiffreAffairesRepository;
+import com.arimayi.billing.repository.FactureRepository;
+import com.arimayi.billing.repository.VerrouCumulRepository;
+import com.arimayi.billing.routage.LecturePrimaire;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service de maintenance des cumuls mensuels de chiffre d'affaires par client (table revenue_rollup).
+ * Les cumuls sont mis à jour dans la transaction qui crée les factures.
+ * Chaque transaction qui modifie les cumuls verrouille une ligne de garde (table revenue_rollup_lock) jusqu'à
+ * sa fin ; la reconstruction les verrouille toutes et s'exécute donc sans écriture concurrente des cumuls.
+ */
+@Service
+@Transactional
+public class CumulChiffreAffairesService {
+
+    @Autowired
+    private CumulChiffreAffairesRepository cumulRepository;
+
+    @Autowired
+    private FactureRepository factureRepository;
+
+    @Autowired
+    private VerrouCumulRepository verrouCumulRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Nombre de tranches par (client, mois) : les écritures concurrentes se répartissent entre elles
+    @Value("${billing.rollup.slots:8}")
+    private int tranches = 8;
+
+    // Crée une tranche vide si elle n'existe pas (instruction MERGE standard)
+    private static final String CREATION_TRANCHE = "MERGE INTO revenue_rollup r "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS INTEGER))) t (client_id, year_month, slot) "
+            + "ON r.client_id = t.client_id AND r.year_month = t.year_month AND r.slot = t.slot "
+            + "WHEN NOT MATCHED THEN INSERT (client_id, year_month, slot, total_ht, total_tva, total_ttc, invoice_count) "
+            + "VALUES (t.client_id, t.year_month, t.slot, 0, 0, 0, 0)";
+
+    /**
+     * Crée les lignes de garde manquantes, une par tranche
+     */
+    @PostConstruct
+    void initialiser() {
+        Set<Integer> existantes = LecturePrimaire.executer(verrouCumulRepository::findAll).stream()
+                .map(VerrouCumul::getTranche)
+                .collect(Collectors.toSet());
+        List<VerrouCumul> manquantes = new ArrayList<>();
+        for (int tranche = 0; tranche < tranches; tranche++) {
+            if (!existantes.contains(tranche)) {
+                manquantes.add(new VerrouCumul(tranche));
+            }
+        }
+        try {
+            verrouCumulRepository.saveAll(manquantes);
+        } catch (DataIntegrityViolationException ex) {
+            // Un autre nœud les a créées en même temps
+        }
+    }
+
+    /**
+     * Ajoute des factures nouvellement créées aux cumuls de leur client et de leur mois
+     */
+    public void ajouter(Collection<Facture> factures) {
+        if (factures.isEmpty()) {
+            return;
+        }
+        verrouillerEcriture();
+        Map<CumulChiffreAffaires.Cle, CumulChiffreAffaires> deltas = new LinkedHashMap<>();
+        for (Facture facture : factures) {
+            Long clientId = facture.getClient().getId();
+            Integer anneeMois = anneeMois(facture.getDate());
+            CumulChiffreAffaires delta = deltas.computeIfAbsent(new CumulChiffreAffaires.Cle(clientId, anneeMois, 0),
+                    cle -> new CumulChiffreAffaires(clientId, anneeMois, 0));
+            delta.setNombreFactures(delta.getNombreFactures() + 1);
+            delta.setTotalHT(delta.getTotalHT().add(facture.getTotalHT()));
+            delta.setTotalTVA(delta.getTotalTVA().add(facture.getTotalTVA()));
+            delta.setTotalTTC(delta.getTotalTTC().add(facture.getTotalTTC()));
+        }
+        deltas.values().forEach(this::incrementer);
+    }
+
+    /**
+     * Supprime les cumuls d'un client (ses factures sont supprimées avec lui)
+     */
+    public void supprimerClient(Long clientId) {
+        verrouillerEcriture();
+        cumulRepository.deleteByClientId(clientId);
+    }
+
+    /**
+     * Recalcule tous les cumuls à partir des factures puis les vérifie. Les lignes de garde sont verrouillées
+     * d'abord : les transactions en cours sont validées avant la lecture des factures, les suivantes attendent
+     * la fin de la reconstruction pour ajouter leur delta.
+     */
+    public VerificationCumulsDto reconstruire() {
+        verrouCumulRepository.verrouillerTout();
+        cumulRepository.deleteAllInBatch();
+        cumulRepository.reconstruire();
+        return verifier();
+    }
+
+    /**
+     * Compare les cumuls aux totaux recalculés depuis la table des factures
+     */
+    @Transactional(readOnly = true)
+    public VerificationCumulsDto verifier() {
+        Map<String, CumulChiffreAffairesDto> attendus = indexer(factureRepository.sumByClientEtMois());
+        Map<String, CumulChiffreAffairesDto> cumuls = indexer(cumulRepository.sumByClientEtMois());
+
+        List<String> ecarts = new ArrayList<>();
+        attendus.forEach((cle, attendu) -> {
+            CumulChiffreAffairesDto cumul = cumuls.remove(cle);
+            if (cumul == null) {
+                ecarts.add("Cumul manquant pour " + cle + " : " + decrire(attendu));
+            } else if (!identiques(attendu, cumul)) {
+                ecarts.add("Cumul erroné pour " + cle + " : " + decrire(cumul) + ", attendu " + decrire(attendu));
+            }
+        });
+        cumuls.forEach((cle, cumul) -> {
+            if (cumul.nombreFactures() != 0) {
+                ecarts.add("Cumul sans facture pour " + cle + " : " + decrire(cumul));
+            }
+        });
+        return new VerificationCumulsDto(attendus.size(), ecarts);
+    }
+
+    /**
+     * Mois d'une date au format AAAAMM
+     */
+    public static int anneeMois(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    /**
+     * Verrouille la ligne de garde du thread jusqu'à la fin de la transaction. Une transaction restant sur
+     * son thread, elle ne prend qu'une ligne, quel que soit le nombre d'appels : pas d'interblocage avec
+     * la reconstruction, qui les prend toutes dans l'ordre.
+     */
+    private void verrouillerEcriture() {
+        int tranche = (int) Math.floorMod(Thread.currentThread().getId(), (long) tranches);
+        verrouCumulRepository.verrouiller(tranche).orElseThrow(() ->
+                new IllegalStateException("Ligne de garde des cumuls absente pour la tranche " + tranche));
+    }
+
+    /**
+     * Ajoute un delta à une tranche tirée au hasard ; la tranche est créée à sa première utilisation,
+     * dans la transaction de la facture et sur sa connexion
+     */
+    private void incrementer(CumulChiffreAffaires delta) {
+        int tranche = ThreadLocalRandom.current().nextInt(tranches);
+        if (appliquer(delta, tranche) == 0) {
+            creerTranche(delta.getClientId(), delta.getAnneeMois(), tranche);
+            appliquer(delta, tranche);
+        }
+    }
+
+    private int appliquer(CumulChiffreAffaires delta, int tranche) {
+        return cumulRepository.incrementer(delta.getClientId(), delta.getAnneeMois(), tranche,
+                delta.getNombreFactures(), delta.getTotalHT(), delta.getTotalTVA(), delta.getTotalTTC());
+    }
+
+    /**
+     * Crée la tranche si elle manque. Si une transaction concurrente la crée au même moment, l'instruction échoue
+     * sur la clé primaire : elle est annulée seule (point de reprise), sans faire échouer la transaction de la facture,
+     * et la tranche créée par l'autre transaction est utilisée.
+     */
+    private void creerTranche(Long clientId, Integer anneeMois, int tranche) {
+        entityManager.unwrap(Session.class).doWork(connexion -> {
+            Savepoint pointDeReprise = connexion.setSavepoint();
+            try (PreparedStatement creation = connexion.prepareStatement(CREATION_TRANCHE)) {
+                creation.setLong(1, clientId);
+                creation.setInt(2, anneeMois);
+                creation.setInt(3, tranche);
+                creation.executeUpdate();
+                connexion.releaseSavepoint(pointDeReprise);
+            } catch (SQLException ex) {
+                connexion.rollback(pointDeReprise);
+                // Classe 23 : violation de contrainte d'intégrité
+                if (ex.getSQLState() == null || !ex.getSQLState().startsWith("23")) {
+                    throw ex;
+                }
+            }
+        });
+    }
+
+    private static Map<String, CumulChiffreAffairesDto> indexer(List<CumulChiffreAffairesDto> cumuls) {
+        return cumuls.stream().collect(Collectors.toMap(
+                cumul -> "client " + cumul.clientId() + ", mois " + cumul.anneeMois(),
+                Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static boolean identiques(CumulChiffreAffairesDto attendu, CumulChiffreAffairesDto cumul) {
+        return Objects.equals(attendu.nombreFactures(), cumul.nombreFactures())
+                && attendu.totalHT().compareTo(cumul.totalHT()) == 0
+                && attendu.totalTVA().compareTo(cumul.totalTVA()) == 0
+                && attendu.totalTTC().compareTo(cumul.totalTTC()) == 0;
+    }
+
+    private static String decrire(CumulChiffreAffairesDto cumul) {
+        return cumul.nombreFactures() + " facture(s), HT " + cumul.totalHT() + ", TVA " + cumul.totalTVA()
+                + ", TTC " + cumul.totalTTC();
+    }
+}
@@ -0,0 +1,116 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.exception.InvalidCursorException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.DateTimeException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Encodage des curseurs de pagination par clé (keyset) et bornage de la taille des pages.
+ * Les curseurs sont signés (HMAC-SHA256 tronqué) : un curseur modifié ou abîmé est refusé
+ * au lieu de reprendre la pagination à une position arbitraire.
+ */
+@Component
+class CurseurPagination {
+
+    static final int TAILLE_PAGE_MAX = 200;
+
+    private static final Logger log = LoggerFactory.getLogger(CurseurPagination.class);
+    private static final String SEPARATEUR = "|";
+    private static final char SEPARATEUR_SIGNATURE = '.';
+    private static final String ALGORITHME = "HmacSHA256";
+    private static final int TAILLE_SIGNATURE = 12;
+
+    // Clé commune aux nœuds qui se partagent les requêtes ; aléatoire si elle n'est pas configurée
+    @Value("${billing.pagination.cursor-key:}")
+    private String cleConfiguree = "";
+
+    private ThreadLocal<Mac> hmac;
+
+    @PostConstruct
+    void initialiser() {
+        byte[] cle;
+        if (cleConfiguree.isBlank()) {
+            cle = new byte[32];
+            new SecureRandom().nextBytes(cle);
+            log.info("billing.pagination.cursor-key absent : les curseurs ne sont valables que sur ce nœud, jusqu'à son arrêt");
+        } else {
+            cle = cleConfiguree.getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec secret = new SecretKeySpec(cle, ALGORITHME);
+        hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHME);
+                mac.init(secret);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 indisponible", ex);
+            }
+        });
+    }
+
+    /**
+     * Ramène la taille demandée dans l'intervalle [1, TAILLE_PAGE_MAX]
+     */
+    static int bornerTaille(int taille) {
+        return Math.max(1, Math.min(taille, TAILLE_PAGE_MAX));
+    }
+
+    /**
+     * Encode les valeurs de clé de la dernière ligne d'une page en curseur opaque et signé
+     */
+    String encoder(Object... cles) {
+        StringBuilder valeur = new StringBuilder();
+        for (Object cle : cles) {
+            if (valeur.length() > 0) {
+                valeur.append(SEPARATEUR);
+            }
+            valeur.append(cle);
+        }
+        byte[] contenu = valeur.toString().getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(contenu) + SEPARATEUR_SIGNATURE + base64.encodeToString(signer(contenu));
+    }
+
+    /**
+     * Décode un curseur, vérifie sa signature et son nombre de clés et les convertit avec le lecteur fourni
+     */
+    <T> T decoder(String curseur, int nombreCles, Function<String[], T> lecteur) {
+        try {
+            int separateur = curseur.lastIndexOf(SEPARATEUR_SIGNATURE);
+            if (separateur < 0) {
+                throw new InvalidCursorException("Curseur de pagination invalide: " + curseur);
+            }
+            byte[] contenu = Base64.getUrlDecoder().decode(curseur.substring(0, separateur));
+            byte[] signature = Base64.getUrlDecoder().decode(curseur.substring(separateur + 1));
+            if (!MessageDigest.isEqual(signer(contenu), signature)) {
+                throw new InvalidCursorException("Curseur de pagination invalide: " + curseur);
+            }
+            String[] cles = new String(contenu, StandardCharsets.UTF_8).split(Pattern.quote(SEPARATEUR), -1);
+            if (cles.length != nombreCles) {
+                throw new InvalidCursorException("Curseur de pagination invalide: " + curseur);
+            }
+            return lecteur.apply(cles);
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new InvalidCursorException("Curseur de pagination invalide: " + curseur, ex);
+        }
+    }
+
+    private byte[] signer(byte[] contenu) {
+        return Arrays.copyOf(hmac.get().doFinal(contenu), TAILLE_SIGNATURE);
+    }
+}
@@ -0,0 +1,153 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.routage.LecturePrimaire;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * ETags des factures, calculés à partir de leur contenu (facture, lignes et client) et mémorisés par ID
+ * pour répondre aux requêtes conditionnelles sans lire la base.
+ * Une facture n'est jamais modifiée après sa création, mais elle embarque les coordonnées de son client :
+ * les ETags d'un client sont retirés quand il est modifié ou supprimé.
+ */
+@Component
+public class EtagsFactures {
+
+    private static final char SEPARATEUR = '\u001F';
+
+    @Value("${billing.http.etags.max-size:100000}")
+    private long tailleMax = 100_000;
+
+    private Cache<Long, Entree> etags;
+
+    // Incrémenté à chaque invalidation, pour ne pas mémoriser un ETag calculé avant celle-ci
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void initialiser() {
+        etags = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .build();
+    }
+
+    /**
+     * ETag connu d'une facture, ou null s'il faut la lire pour le calculer
+     */
+    public String etag(Long id) {
+        Entree entree = etags.getIfPresent(id);
+        return entree != null ? entree.etag() : null;
+    }
+
+    /**
+     * Charge une facture sur la base principale et mémorise son ETag, sauf si une invalidation a eu lieu
+     * pendant la lecture. Lu sur un réplica en retard, l'ETag d'un client déjà modifié resterait mémorisé
+     * jusqu'à la prochaine modification de ce client.
+     */
+    public FactureEtiquetee charger(Long id, Function<Long, FactureDto> chargement) {
+        long generationLecture = generation.get();
+        FactureDto facture = LecturePrimaire.executer(() -> chargement.apply(id));
+        String etag = calculer(facture);
+        etags.put(facture.getId(), new Entree(facture.getClientId(), etag));
+        if (generation.get() != generationLecture) {
+            etags.invalidate(facture.getId());
+        }
+        return new FactureEtiquetee(facture, etag);
+    }
+
+    /**
+     * Retire les ETags des factures d'un client, immédiatement et à nouveau à la fin de la transaction courante
+     */
+    public void invaliderClient(Long clientId) {
+        retirer(clientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    retirer(clientId);
+                }
+            });
+        }
+    }
+
+    /**
+     * ETag d'une autre représentation de la même facture (PDF...)
+     */
+    public static String variante(String etag, String representation) {
+        return etag.substring(0, etag.length() - 1) + "-" + representation + "\"";
+    }
+
+    /**
+     * Vérifie si l'en-tête If-None-Match désigne l'ETag (comparaison faible, comme le prévoit RFC 9110)
+     */
+    public static boolean correspond(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(valeur -> valeur.startsWith("W/") ? valeur.substring(2) : valeur)
+                .anyMatch(valeur -> valeur.equals("*") || valeur.equals(etag));
+    }
+
+    private void retirer(Long clientId) {
+        generation.incrementAndGet();
+        etags.asMap().values().removeIf(entree -> clientId.equals(entree.clientId()));
+    }
+
+    /**
+     * Empreinte SHA-256 des champs exposés de la facture, tronquée à 128 bits
+     */
+    static String calculer(FactureDto facture) {
+        StringBuilder contenu = new StringBuilder(256);
+        ajouter(contenu, facture.getId(), facture.getNumero(), facture.getDate(), facture.getClientId(),
+                facture.getTotalHT(), facture.getTotalTVA(), facture.getTotalTTC());
+        ClientDto client = facture.getClient();
+        if (client != null) {
+            ajouter(contenu, client.getId(), client.getNom(), client.getEmail(), client.getSiret(),
+                    client.getDateCreation());
+        }
+        if (facture.getLignes() != null) {
+            for (LigneFactureDto ligne : facture.getLignes()) {
+                ajouter(contenu, ligne.getId(), ligne.getDescription(), ligne.getQuantite(),
+                        ligne.getPrixUnitaireHT(), ligne.getTauxTVA(), ligne.getTotalHT(), ligne.getTotalTVA(),
+                        ligne.getTotalTTC());
+            }
+        }
+        try {
+            byte[] empreinte = MessageDigest.getInstance("SHA-256")
+                    .digest(contenu.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(empreinte, 16)) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponible", ex);
+        }
+    }
+
+    private static void ajouter(StringBuilder contenu, Object... valeurs) {
+        for (Object valeur : valeurs) {
+            contenu.append(valeur).append(SEPARATEUR);
+        }
+    }
+
+    /**
+     * Facture lue et son ETag
+     */
+    public record FactureEtiquetee(FactureDto facture, String etag) {}
+
+    private record Entree(Long clientId, String etag) {}
+}
@@ -1,24 +1,54 @@
 package com.arimayi.billing.service;
 
 import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureBatchItemDto;
+import com.arimayi.billing.dto.FactureBatchResultDto;
 import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.FactureResumeDto;
 import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.PageDto;
+import com.arimayi.billing.dto.VentilationTVADto;
 import com.arimayi.billing.entity.Client;
 import com.arimayi.billing.entity.Facture;
 import com.arimayi.billing.entity.LigneFacture;
 import com.arimayi.billing.exception.ResourceNotFoundException;
+import com.arimayi.billing.exception.InvalidFactureException;
 import com.arimayi.billing.exception.InvalidTVAException;
 import com.arimayi.billing.repository.ClientRepository;
 import com.arimayi.billing.repository.FactureRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service pour la gestion des factures
@@ -33,21 +63,168 @@ public class FactureService {
     @Autowired
     private ClientRepository clientRepository;
     
-    // Taux de TVA autorisés
-    private static final List<BigDecimal> TAUX_TVA_AUTORISES = Arrays.asList(
-        BigDecimal.ZERO,
-        new BigDecimal("5.5"),
-        new BigDecimal("10"),
-        new BigDecimal("20")
-    );
+    @Autowired
+    private CacheClients cacheClients;
+    
+    @Autowired
+    private NumerotationFactureService numerotationFactureService;
+    
+    @Autowired
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    @Autowired
+    private IndexRechercheFactures indexRecherche;
+    
+    @Autowired
+    private RegistreTauxTVA registreTauxTVA;
+    
+    @Autowired
+    private CurseurPagination curseurPagination;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Durées de création, de numérotation et de conversion en DTO (exposées sur /actuator/prometheus)
+    private Timer dureeCreation;
+    private Timer dureeNumerotation;
+    private Timer dureeConversion;
+    
+    // Nombre de factures persistées par transaction lors d'une création par lot
+    @Value("${billing.batch.chunk-size:500}")
+    private int tailleLot = 500;
+    
+    // Nombre maximal de factures d'une requête de création par lot
+    @Value("${billing.batch.max-size:1000}")
+    private int tailleMaxLot = 1000;
+    
+    // Nombre maximal de factures renvoyées par la liste complète (obsolète, remplacée par la pagination)
+    @Value("${billing.pagination.list-max:1000}")
+    private int listeMax = 1000;
+    
+    // Nombre maximal de résultats d'une recherche plein texte
+    static final int RECHERCHE_LIMITE_MAX = 100;
+    
+    @PostConstruct
+    void initialiserMesures() {
+        dureeCreation = Timer.builder("billing.factures.creation")
+                .description("Création d'une facture, hors validation de la transaction")
+                .register(meterRegistry);
+        dureeNumerotation = Timer.builder("billing.factures.numerotation")
+                .description("Allocation d'un numéro de facture")
+                .register(meterRegistry);
+        dureeConversion = Timer.builder("billing.factures.conversion")
+                .description("Conversion d'une facture en DTO, chargement différé des lignes compris")
+                .register(meterRegistry);
+    }
     
     /**
-     * Récupère toutes les factures
+     * Récupère les factures triées par date puis ID, au plus billing.pagination.list-max ;
+     * nextCursor est renseigné si la liste est tronquée et se poursuit avec getFacturesPage
+     *
+     * @deprecated charge jusqu'à list-max factures en une fois : utiliser getFacturesPage
      */
+    @Deprecated
     @Transactional(readOnly = true)
-    public List<FactureDto> getAllFactures() {
-        return factureRepository.findAll().stream()
+    public PageDto<FactureDto> getAllFactures() {
+        return pageFactures(null, listeMax);
+    }
+    
+    /**
+     * Récupère une page de factures triées par date puis ID, à partir du curseur "after"
+     */
+    @Transactional(readOnly = true)
+    public PageDto<FactureDto> getFacturesPage(String after, int size) {
+        return pageFactures(after, CurseurPagination.bornerTaille(size));
+    }
+    
+    private PageDto<FactureDto> pageFactures(String after, int taille) {
+        Limit limite = Limit.of(taille + 1);
+        
+        List<Facture> factures = after == null
+                ? factureRepository.findFirstPage(limite)
+                : curseurPagination.decoder(after, 2, cles -> factureRepository.findPageAfter(
+                        LocalDate.parse(cles[0]), Long.valueOf(cles[1]), limite));
+        
+        String nextCursor = null;
+        if (factures.size() > taille) {
+            factures = factures.subList(0, taille);
+            Facture derniere = factures.get(taille - 1);
+            nextCursor = curseurPagination.encoder(derniere.getDate(), derniere.getId());
+        }
+        
+        return new PageDto<>(factures.stream()
                 .map(this::convertToDto)
+                .collect(Collectors.toList()), nextCursor);
+    }
+    
+    /**
+     * Récupère une page de résumés de factures triés par date puis ID, à partir du curseur "after"
+     */
+    @Transactional(readOnly = true)
+    public PageDto<FactureResumeDto> getResumesPage(String after, int size) {
+        int taille = CurseurPagination.bornerTaille(size);
+        Limit limite = Limit.of(taille + 1);
+        
+        List<FactureResumeDto> resumes = after == null
+                ? factureRepository.findResumesFirstPage(limite)
+                : curseurPagination.decoder(after, 2, cles -> factureRepository.findResumesPageAfter(
+                        LocalDate.parse(cles[0]), Long.valueOf(cles[1]), limite));
+        
+        String nextCursor = null;
+        if (resumes.size() > taille) {
+            resumes = resumes.subList(0, taille);
+            FactureResumeDto dernier = resumes.get(taille - 1);
+            nextCursor = curseurPagination.encoder(dernier.date(), dernier.id());
+        }
+        return new PageDto<>(resumes, nextCursor);
+    }
+    
+    /**
+     * Récupère les résumés des factures d'un client
+     */
+    @Transactional(readOnly = true)
+    public List<FactureResumeDto> getResumesByClient(Long clientId) {
+        if (!cacheClients.existsById(clientId)) {
+            throw new ResourceNotFoundException("Client non trouvé avec l'ID: " + clientId);
+        }
+        return factureRepository.findResumesByClientId(clientId);
+    }
+    
+    /**
+     * Récupère les résumés des factures entre deux dates
+     */
+    @Transactional(readOnly = true)
+    public List<FactureResumeDto> getResumesByDateRange(LocalDate dateDebut, LocalDate dateFin) {
+        return factureRepository.findResumesByDateBetween(dateDebut, dateFin);
+    }
+    
+    /**
+     * Recherche plein texte dans les descriptions des lignes et les noms des clients ;
+     * résumés des factures trouvées, de la plus pertinente à la moins pertinente
+     */
+    @Transactional(readOnly = true)
+    public List<FactureResumeDto> rechercherFactures(String requete, int limite) {
+        List<Long> ids = indexRecherche.rechercher(requete, Math.max(1, Math.min(limite, RECHERCHE_LIMITE_MAX)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, FactureResumeDto> resumes = factureRepository.findResumesByIdIn(ids).stream()
+                .collect(Collectors.toMap(FactureResumeDto::id, Function.identity()));
+        return ids.stream()
+                .map(resumes::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
@@ -65,39 +242,136 @@ public class FactureService {
      * Crée une nouvelle facture
      */
     public FactureDto createFacture(FactureDto factureDto) {
+        return dureeCreation.record(() -> creerFacture(factureDto));
+    }
+    
+    private FactureDto creerFacture(FactureDto factureDto) {
         // Vérification de l'existence du client
-        Client client = clientRepository.findById(factureDto.getClientId())
+        Client client = cacheClients.findById(factureDto.getClientId())
                 .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec l'ID: " + factureDto.getClientId()));
         
         // Validation des taux de TVA
         validateTauxTVA(factureDto.getLignes());
         
         // Création de la facture
-        Facture facture = new Facture(factureDto.getDate(), client);
-        facture.setNumero(generateNumeroFacture(factureDto.getDate()));
-        
-        // Ajout des lignes
-        List<LigneFacture> lignes = factureDto.getLignes().stream()
-                .map(ligneDto -> {
-                    LigneFacture ligne = convertLigneDtoToEntity(ligneDto);
-                    ligne.setFacture(facture);
-                    return ligne;
-                })
-                .collect(Collectors.toList());
-        
-        facture.setLignes(lignes);
-        facture.calculerTotaux();
+        Facture facture = construireFacture(factureDto, client, generateNumeroFacture(factureDto.getDate()));
         
         Facture savedFacture = factureRepository.save(facture);
+        cumulChiffreAffairesService.ajouter(List.of(savedFacture));
+        indexRecherche.indexerApresValidation(List.of(savedFacture));
         return convertToDto(savedFacture);
     }
     
+    /**
+     * Crée une liste de factures par lots transactionnels successifs.
+     * Chaque facture est validée individuellement et son résultat est rapporté par index.
+     *
+     * @throws InvalidFactureException si le lot dépasse billing.batch.max-size factures
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FactureBatchResultDto createFacturesBatch(List<FactureDto> factureDtos) {
+        if (factureDtos.size() > tailleMaxLot) {
+            throw new InvalidFactureException("Lot de " + factureDtos.size() + " factures : au plus "
+                    + tailleMaxLot + " factures par requête");
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<FactureBatchItemDto> resultats = new ArrayList<>(factureDtos.size());
+        
+        for (int debut = 0; debut < factureDtos.size(); debut += tailleLot) {
+            int fin = Math.min(debut + tailleLot, factureDtos.size());
+            resultats.addAll(persisterLot(transactionTemplate, factureDtos, debut, fin));
+        }
+        
+        return new FactureBatchResultDto(resultats);
+    }
+    
+    /**
+     * Persiste un lot dans une transaction ; en cas d'échec en base, rejoue chaque facture
+     * séparément afin d'isoler celle qui pose problème
+     */
+    private List<FactureBatchItemDto> persisterLot(TransactionTemplate transactionTemplate,
+                                                   List<FactureDto> factureDtos, int debut, int fin) {
+        try {
+            return transactionTemplate.execute(status -> creerLot(factureDtos, debut, fin));
+        } catch (DataAccessException ex) {
+            if (fin - debut == 1) {
+                return List.of(FactureBatchItemDto.echec(debut,
+                        "Erreur de persistance: " + ex.getMostSpecificCause().getMessage()));
+            }
+            List<FactureBatchItemDto> resultats = new ArrayList<>(fin - debut);
+            for (int index = debut; index < fin; index++) {
+                resultats.addAll(persisterLot(transactionTemplate, factureDtos, index, index + 1));
+            }
+            return resultats;
+        }
+    }
+    
+    /**
+     * Valide, numérote et persiste les factures [debut, fin[ dans la transaction courante
+     */
+    private List<FactureBatchItemDto> creerLot(List<FactureDto> factureDtos, int debut, int fin) {
+        FactureBatchItemDto[] resultats = new FactureBatchItemDto[fin - debut];
+        Map<Integer, Facture> factures = new LinkedHashMap<>();
+        
+        // Chargement des clients du lot en une seule requête
+        Map<Long, Client> clients = clientRepository.findAllById(factureDtos.subList(debut, fin).stream()
+                        .filter(Objects::nonNull)
+                        .map(FactureDto::getClientId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        
+        for (int index = debut; index < fin; index++) {
+            FactureDto factureDto = factureDtos.get(index);
+            try {
+                validerFacture(factureDto);
+                Client client = clients.get(factureDto.getClientId());
+                if (client == null) {
+                    throw new ResourceNotFoundException("Client non trouvé avec l'ID: " + factureDto.getClientId());
+                }
+                validateTauxTVA(factureDto.getLignes());
+                
+                factures.put(index, construireFacture(factureDto, client, generateNumeroFacture(factureDto.getDate())));
+            } catch (ResourceNotFoundException | InvalidFactureException | InvalidTVAException ex) {
+                resultats[index - debut] = FactureBatchItemDto.echec(index, ex.getMessage());
+            }
+        }
+        
+        factureRepository.saveAll(factures.values());
+        cumulChiffreAffairesService.ajouter(factures.values());
+        indexRecherche.indexerApresValidation(factures.values());
+        entityManager.flush();
+        entityManager.clear();
+        
+        factures.forEach((index, facture) ->
+                resultats[index - debut] = FactureBatchItemDto.succes(index, facture.getId(), facture.getNumero()));
+        return Arrays.asList(resultats);
+    }
+    
+    /**
+     * Applique les contraintes de validation du DTO (équivalent de @Valid pour un élément de lot)
+     */
+    private void validerFacture(FactureDto factureDto) {
+        if (factureDto == null) {
+            throw new InvalidFactureException("Facture absente (null)");
+        }
+        Set<ConstraintViolation<FactureDto>> violations = validator.validate(factureDto);
+        if (!violations.isEmpty()) {
+            throw new InvalidFactureException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+    
     /**
      * Recherche les factures par client
      */
     @Transactional(readOnly = true)
     public List<FactureDto> getFacturesByClient(Long clientId) {
-        if (!clientRepository.existsById(clientId)) {
+        if (!cacheClients.existsById(clientId)) {
             throw new ResourceNotFoundException("Client non trouvé avec l'ID: " + clientId);
         }
         
@@ -126,6 +400,33 @@ public class FactureService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Exporte les factures entre deux dates au format NDJSON (une facture par ligne), en flux :
+     * le contexte de persistance est vidé régulièrement pour que la mémoire reste constante
+     */
+    @Transactional(readOnly = true)
+    public void exportFacturesNdjson(LocalDate dateDebut, LocalDate dateFin, OutputStream sortie) throws IOException {
+        SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(sortie);
+        
+        try (Stream<Facture> factures = factureRepository.streamByDateBetween(dateDebut, dateFin)) {
+            int lues = 0;
+            for (Facture facture : (Iterable<Facture>) factures::iterator) {
+                writer.write(convertToDto(facture));
+                if (++lues % FactureRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+            if (lues > 0) {
+                sortie.write('\n');
+            }
+        }
+        writer.flush();
+    }
+    
     /**
      * Exporte une facture au format JSON
      */
@@ -138,27 +439,50 @@ public class FactureService {
      * Génère un numéro de facture unique
      */
     private String generateNumeroFacture(LocalDate date) {
-        int annee = date.getYear();
-        Long count = factureRepository.countByYear(annee);
-        return String.format("FAC-%d-%04d", annee, count + 1);
+        return dureeNumerotation.record(() -> numerotationFactureService.allouerNumero(date));
     }
     
     /**
-     * Valide les taux de TVA
+     * Valide les taux de TVA (20 et 20.00 désignent le même taux)
      */
     private void validateTauxTVA(List<LigneFactureDto> lignes) {
         for (LigneFactureDto ligne : lignes) {
-            if (!TAUX_TVA_AUTORISES.contains(ligne.getTauxTVA())) {
+            if (!registreTauxTVA.estAutorise(ligne.getTauxTVA())) {
                 throw new InvalidTVAException("Taux de TVA non autorisé: " + ligne.getTauxTVA() + 
-                    ". Taux autorisés: 0%, 5.5%, 10%, 20%");
+                    ". Taux autorisés: " + registreTauxTVA.description());
             }
         }
     }
     
+    /**
+     * Construit une facture et ses lignes à partir du DTO, totaux et ventilation par taux de TVA calculés
+     */
+    private Facture construireFacture(FactureDto factureDto, Client client, String numero) {
+        Facture facture = new Facture(factureDto.getDate(), client);
+        facture.setNumero(numero);
+        
+        // Ajout des lignes
+        List<LigneFacture> lignes = factureDto.getLignes().stream()
+                .map(ligneDto -> {
+                    LigneFacture ligne = convertLigneDtoToEntity(ligneDto);
+                    ligne.setFacture(facture);
+                    return ligne;
+                })
+                .collect(Collectors.toList());
+        
+        facture.setLignes(lignes);
+        facture.calculerTotaux();
+        return facture;
+    }
+    
     /**
      * Convertit une entité Facture en DTO
      */
     private FactureDto convertToDto(Facture facture) {
+        return dureeConversion.record(() -> convertirEnDto(facture));
+    }
+    
+    private FactureDto convertirEnDto(Facture facture) {
         FactureDto dto = new FactureDto();
         dto.setId(facture.getId());
         dto.setNumero(facture.getNumero());
@@ -168,6 +492,11 @@ public class FactureService {
         dto.setTotalHT(facture.getTotalHT());
         dto.setTotalTVA(facture.getTotalTVA());
         dto.setTotalTTC(facture.getTotalTTC());
+        if (facture.getVentilationTVA() != null) {
+            dto.setVentilationTVA(facture.getVentilationTVA().stream()
+                    .map(taux -> new VentilationTVADto(taux.tauxTVA(), taux.baseHT(), taux.montantTVA()))
+                    .collect(Collectors.toList()));
+        }
         
         List<LigneFactureDto> lignesDto = facture.getLignes().stream()
                 .map(this::convertLigneEntityToDto)
@@ -210,11 +539,6 @@ public class FactureService {
      * Convertit un DTO LigneFacture en entité
      */
     private LigneFacture convertLigneDtoToEntity(LigneFactureDto dto) {
-        LigneFacture ligne = new LigneFacture();
-        ligne.setDescription(dto.getDescription());
-        ligne.setQuantite(dto.getQuantite());
-        ligne.setPrixUnitaireHT(dto.getPrixUnitaireHT());
-        ligne.setTauxTVA(dto.getTauxTVA());
-        return ligne;
+        return new LigneFacture(dto.getDescription(), dto.getQuantite(), dto.getPrixUnitaireHT(), dto.getTauxTVA());
     }
 }
@@ -0,0 +1,178 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.exception.IdempotencyKeyException;
+import com.arimayi.billing.exception.RequestInProgressException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Créations de factures par clé d'idempotence (en-tête Idempotency-Key), pour les clients qui rejouent
+ * une requête après un délai dépassé. La première requête d'une clé crée la facture ; les requêtes
+ * identiques reçues pendant son exécution en attendent le résultat, celles reçues après le rejouent
+ * sans recréer la facture. Une création en échec n'est pas mémorisée : la requête suivante la retente.
+ * Les clés sont propres à chaque utilisateur et oubliées après billing.idempotency.ttl.
+ * Les exécutions en cours sont suivies hors du cache borné : une éviction ne peut pas en oublier une
+ * et laisser une requête rejouée recréer la facture.
+ */
+@Component
+public class IdempotenceFactures {
+
+    private static final int LONGUEUR_MAX_CLE = 255;
+    private static final char SEPARATEUR = '\u001F';
+
+    @Value("${billing.idempotency.max-size:10000}")
+    private long tailleMax = 10_000;
+
+    @Value("${billing.idempotency.ttl:24h}")
+    private Duration duree = Duration.ofHours(24);
+
+    // Attente maximale du résultat d'une première exécution encore en cours
+    @Value("${billing.idempotency.wait-timeout:30s}")
+    private Duration attenteMax = Duration.ofSeconds(30);
+
+    // Résultats des créations terminées, rejoués jusqu'à leur expiration ou leur éviction
+    private Cache<String, Termine> terminees;
+
+    // Créations en cours, retirées à la fin de leur exécution quelle qu'en soit l'issue
+    private final ConcurrentMap<String, Execution> enCours = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initialiser() {
+        terminees = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(duree)
+                .build();
+    }
+
+    /**
+     * Crée la facture à la première requête d'une clé, ou retourne le résultat de cette première requête
+     */
+    public Resultat creer(String utilisateur, String cle, FactureDto demande, Supplier<FactureDto> creation) {
+        if (cle.isBlank() || cle.length() > LONGUEUR_MAX_CLE) {
+            throw new IdempotencyKeyException(
+                    "La clé d'idempotence doit comporter de 1 à " + LONGUEUR_MAX_CLE + " caractères");
+        }
+        String empreinte = empreinte(demande);
+        String identifiant = utilisateur + SEPARATEUR + cle;
+        FactureDto rejouee = rejouer(identifiant, empreinte, cle);
+        if (rejouee != null) {
+            return new Resultat(rejouee, true);
+        }
+        Execution execution = new Execution(empreinte, new CompletableFuture<>());
+        Execution premiere = enCours.putIfAbsent(identifiant, execution);
+        if (premiere != null) {
+            verifierEmpreinte(premiere.empreinte(), empreinte, cle);
+            return new Resultat(attendre(premiere, cle), true);
+        }
+        try {
+            // Une exécution a pu se terminer entre la recherche du résultat et l'inscription de celle-ci
+            rejouee = rejouer(identifiant, empreinte, cle);
+            if (rejouee != null) {
+                execution.resultat().complete(rejouee);
+                return new Resultat(rejouee, true);
+            }
+            FactureDto facture = creation.get();
+            terminees.put(identifiant, new Termine(empreinte, facture));
+            execution.resultat().complete(facture);
+            return new Resultat(facture, false);
+        } catch (Throwable ex) {
+            // Erreurs comprises : les requêtes en attente ne doivent pas attendre jusqu'à leur délai
+            execution.resultat().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            enCours.remove(identifiant, execution);
+        }
+    }
+
+    private FactureDto rejouer(String identifiant, String empreinte, String cle) {
+        Termine termine = terminees.getIfPresent(identifiant);
+        if (termine == null) {
+            return null;
+        }
+        verifierEmpreinte(termine.empreinte(), empreinte, cle);
+        return termine.facture();
+    }
+
+    private static void verifierEmpreinte(String premiere, String empreinte, String cle) {
+        if (!premiere.equals(empreinte)) {
+            throw new IdempotencyKeyException(
+                    "La clé d'idempotence " + cle + " a déjà été utilisée pour une autre facture");
+        }
+    }
+
+    private FactureDto attendre(Execution premiere, String cle) {
+        try {
+            return premiere.resultat().get(attenteMax.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            // Les requêtes regroupées partagent l'erreur de la première exécution
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error erreur) {
+                throw erreur;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new RequestInProgressException("La requête de clé d'idempotence " + cle + " est en cours de traitement");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException("La requête de clé d'idempotence " + cle + " est en cours de traitement", ex);
+        }
+    }
+
+    /**
+     * Empreinte SHA-256 des champs de la demande, pour refuser la réutilisation d'une clé avec un autre contenu
+     */
+    static String empreinte(FactureDto demande) {
+        StringBuilder contenu = new StringBuilder(256);
+        contenu.append(demande.getDate()).append(SEPARATEUR).append(demande.getClientId()).append(SEPARATEUR);
+        if (demande.getLignes() != null) {
+            for (LigneFactureDto ligne : demande.getLignes()) {
+                contenu.append(ligne.getDescription()).append(SEPARATEUR)
+                        .append(normaliser(ligne.getQuantite())).append(SEPARATEUR)
+                        .append(normaliser(ligne.getPrixUnitaireHT())).append(SEPARATEUR)
+                        .append(normaliser(ligne.getTauxTVA())).append(SEPARATEUR);
+            }
+        }
+        try {
+            byte[] empreinte = MessageDigest.getInstance("SHA-256")
+                    .digest(contenu.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(empreinte);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponible", ex);
+        }
+    }
+
+    // 10, 10.0 et 10.00 désignent le même montant
+    private static String normaliser(BigDecimal valeur) {
+        return valeur != null ? valeur.stripTrailingZeros().toPlainString() : null;
+    }
+
+    /**
+     * Facture créée, et indication qu'elle provient d'une exécution antérieure de la même clé
+     */
+    public record Resultat(FactureDto facture, boolean rejoue) {}
+
+    private record Execution(String empreinte, CompletableFuture<FactureDto> resultat) {}
+
+    private record Termine(String empreinte, FactureDto facture) {}
+}
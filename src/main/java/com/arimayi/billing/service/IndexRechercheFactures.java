@@ -0,0 +1,298 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.DescriptionLigneDto;
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.recherche.AnalyseurFrancais;
+import com.arimayi.billing.repository.ClientRepository;
+import com.arimayi.billing.repository.LigneFactureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Index inversé en mémoire des descriptions de lignes et des noms de clients, pour la recherche plein texte
+ * des factures. Chaque terme (voir {@link AnalyseurFrancais}) donne les factures qui le contiennent ;
+ * un terme de la requête correspond aussi aux termes qu'il préfixe (« alph » trouve « Alpha »).
+ * Tous les termes de la requête doivent être trouvés, dans les lignes ou dans le nom du client ;
+ * les factures sont classées par pertinence (termes rares et répétés d'abord, correspondance exacte avant préfixe).
+ * L'index est construit au démarrage et mis à jour après la validation des transactions qui créent des
+ * factures ou modifient des clients.
+ */
+@Component
+public class IndexRechercheFactures {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexRechercheFactures.class);
+
+    // Nombre maximal de termes de l'index retenus pour un préfixe, et poids d'une correspondance par préfixe
+    private static final int EXPANSIONS_MAX = 64;
+    private static final double POIDS_PREFIXE = 0.5;
+
+    @Autowired
+    private LigneFactureRepository ligneFactureRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Écritures (mises à jour et reconstruction) ; les recherches lisent sans verrou
+    private final ReentrantLock verrou = new ReentrantLock();
+    private volatile Contenu contenu = new Contenu();
+
+    /**
+     * Reconstruit l'index depuis la base (au démarrage de l'application)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruire() {
+        verrou.lock();
+        try {
+            long debut = System.nanoTime();
+            Contenu nouveau = new Contenu();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Client client : clientRepository.findAll()) {
+                    nouveau.indexerClient(client.getId(), client.getNom());
+                }
+                // Lignes triées par facture : chaque facture est indexée dès que ses lignes ont été lues
+                try (Stream<DescriptionLigneDto> lignes = ligneFactureRepository.streamDescriptions()) {
+                    List<DescriptionLigneDto> facture = new ArrayList<>();
+                    lignes.forEach(ligne -> {
+                        if (!facture.isEmpty() && !facture.get(0).factureId().equals(ligne.factureId())) {
+                            nouveau.indexerFacture(facture);
+                            facture.clear();
+                        }
+                        facture.add(ligne);
+                    });
+                    if (!facture.isEmpty()) {
+                        nouveau.indexerFacture(facture);
+                    }
+                }
+            });
+            contenu = nouveau;
+            log.info("Index de recherche construit : {} factures, {} termes en {} ms", nouveau.termesFactures.size(),
+                    nouveau.lignes.size() + nouveau.clients.size(), (System.nanoTime() - debut) / 1_000_000);
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Indexe des factures qui viennent d'être persistées, une fois la transaction courante validée
+     */
+    public void indexerApresValidation(Collection<Facture> factures) {
+        List<List<DescriptionLigneDto>> lignes = new ArrayList<>(factures.size());
+        for (Facture facture : factures) {
+            lignes.add(facture.getLignes().stream()
+                    .map(ligne -> new DescriptionLigneDto(facture.getId(), facture.getClient().getId(), ligne.getDescription()))
+                    .toList());
+        }
+        apresValidation(() -> lignes.forEach(contenu::indexerFacture));
+    }
+
+    /**
+     * Indexe le nom (nouveau ou modifié) d'un client, une fois la transaction courante validée
+     */
+    public void indexerClientApresValidation(Long clientId, String nom) {
+        apresValidation(() -> contenu.indexerClient(clientId, nom));
+    }
+
+    /**
+     * Retire un client et ses factures (supprimées avec lui), une fois la transaction courante validée
+     */
+    public void retirerClientApresValidation(Long clientId) {
+        apresValidation(() -> contenu.retirerClient(clientId));
+    }
+
+    /**
+     * IDs des factures correspondant à la requête, de la plus pertinente à la moins pertinente
+     */
+    public List<Long> rechercher(String requete, int limite) {
+        Set<String> termes = new LinkedHashSet<>(AnalyseurFrancais.termes(requete));
+        if (termes.isEmpty()) {
+            return List.of();
+        }
+        Contenu index = contenu;
+        Map<Long, Double> scores = null;
+        for (String terme : termes) {
+            Map<Long, Double> parTerme = index.scores(terme);
+            if (scores == null) {
+                scores = parTerme;
+            } else {
+                scores.keySet().retainAll(parTerme.keySet());
+                scores.replaceAll((facture, score) -> score + parTerme.get(facture));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(limite)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void apresValidation(Runnable miseAJour) {
+        Runnable sousVerrou = () -> {
+            verrou.lock();
+            try {
+                miseAJour.run();
+            } finally {
+                verrou.unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sousVerrou.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sousVerrou.run();
+            }
+        });
+    }
+
+    /**
+     * Structures de l'index ; modifiées sous verrou, lues sans verrou
+     */
+    private static final class Contenu {
+        // Terme des lignes -> facture -> nombre d'occurrences
+        final ConcurrentSkipListMap<String, Map<Long, Integer>> lignes = new ConcurrentSkipListMap<>();
+        // Terme des noms de clients -> clients
+        final ConcurrentSkipListMap<String, Set<Long>> clients = new ConcurrentSkipListMap<>();
+        final Map<Long, Set<Long>> facturesParClient = new ConcurrentHashMap<>();
+        final Map<Long, List<String>> termesClients = new ConcurrentHashMap<>();
+        final Map<Long, Set<String>> termesFactures = new ConcurrentHashMap<>();
+
+        /**
+         * Indexe les lignes d'une facture ; sans effet si elle est déjà indexée (validée pendant une reconstruction)
+         */
+        void indexerFacture(List<DescriptionLigneDto> lignesFacture) {
+            if (lignesFacture.isEmpty()) {
+                return;
+            }
+            Long factureId = lignesFacture.get(0).factureId();
+            Set<String> termesFacture = ConcurrentHashMap.newKeySet();
+            if (termesFactures.putIfAbsent(factureId, termesFacture) != null) {
+                return;
+            }
+            facturesParClient.computeIfAbsent(lignesFacture.get(0).clientId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(factureId);
+            for (DescriptionLigneDto ligne : lignesFacture) {
+                for (String terme : AnalyseurFrancais.termes(ligne.description())) {
+                    termesFacture.add(terme);
+                    lignes.computeIfAbsent(terme, t -> new ConcurrentHashMap<>()).merge(factureId, 1, Integer::sum);
+                }
+            }
+        }
+
+        void indexerClient(Long clientId, String nom) {
+            retirerNom(clientId);
+            List<String> termes = AnalyseurFrancais.termes(nom);
+            for (String terme : termes) {
+                clients.computeIfAbsent(terme, t -> ConcurrentHashMap.newKeySet()).add(clientId);
+            }
+            termesClients.put(clientId, termes);
+        }
+
+        void retirerClient(Long clientId) {
+            retirerNom(clientId);
+            Set<Long> factures = facturesParClient.remove(clientId);
+            if (factures == null) {
+                return;
+            }
+            for (Long factureId : factures) {
+                Set<String> termes = termesFactures.remove(factureId);
+                for (String terme : termes) {
+                    Map<Long, Integer> postings = lignes.get(terme);
+                    if (postings != null) {
+                        postings.remove(factureId);
+                        if (postings.isEmpty()) {
+                            lignes.remove(terme, postings);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void retirerNom(Long clientId) {
+            List<String> anciens = termesClients.remove(clientId);
+            if (anciens == null) {
+                return;
+            }
+            for (String terme : anciens) {
+                Set<Long> postings = clients.get(terme);
+                if (postings != null) {
+                    postings.remove(clientId);
+                    if (postings.isEmpty()) {
+                        clients.remove(terme, postings);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Score de chaque facture pour un terme de la requête : meilleure correspondance parmi les lignes
+         * et le nom du client, pondérée par la rareté (idf) du terme de l'index
+         */
+        Map<Long, Double> scores(String terme) {
+            double nombreFactures = termesFactures.size() + 1;
+            Map<Long, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Integer>> entree : prefixes(lignes, terme)) {
+                double poids = poids(entree.getKey(), terme) * idf(nombreFactures, entree.getValue().size());
+                entree.getValue().forEach((facture, occurrences) ->
+                        scores.merge(facture, poids * (1 + Math.log(occurrences)), Math::max));
+            }
+            for (Map.Entry<String, Set<Long>> entree : prefixes(clients, terme)) {
+                Set<Long> factures = new HashSet<>();
+                for (Long client : entree.getValue()) {
+                    factures.addAll(facturesParClient.getOrDefault(client, Set.of()));
+                }
+                double poids = poids(entree.getKey(), terme) * idf(nombreFactures, factures.size());
+                factures.forEach(facture -> scores.merge(facture, poids, Math::max));
+            }
+            return scores;
+        }
+
+        private static <V> List<Map.Entry<String, V>> prefixes(NavigableMap<String, V> termes, String prefixe) {
+            return termes.subMap(prefixe, true, prefixe + Character.MAX_VALUE, false).entrySet().stream()
+                    .limit(EXPANSIONS_MAX)
+                    .toList();
+        }
+
+        private static double poids(String termeIndex, String termeRequete) {
+            return termeIndex.equals(termeRequete) ? 1.0 : POIDS_PREFIXE;
+        }
+
+        private static double idf(double nombreFactures, int frequence) {
+            return 1 + Math.log(nombreFactures / (frequence + 1));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.repository.ClientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index en mémoire des emails et SIRET des clients, pour répondre sans requête aux vérifications d'unicité
+ * négatives. Une valeur absente de l'index est libre ; une valeur présente doit être confirmée en base
+ * (elle peut provenir d'une transaction annulée). Les contraintes d'unicité de la base restent la garantie finale.
+ */
+@Component
+public class IndexUniciteClients {
+    
+    @Autowired
+    private ClientRepository clientRepository;
+    
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+    private final Set<String> sirets = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock verrou = new ReentrantLock();
+    private volatile boolean charge;
+    
+    /**
+     * Indique si l'email est peut-être déjà utilisé (false : certainement libre)
+     */
+    public boolean emailPeutExister(String email) {
+        charger();
+        return emails.contains(email);
+    }
+    
+    /**
+     * Indique si le SIRET est peut-être déjà utilisé (false : certainement libre)
+     */
+    public boolean siretPeutExister(String siret) {
+        charger();
+        return sirets.contains(siret);
+    }
+    
+    /**
+     * Ajoute les valeurs d'un client dès son écriture en base, avant la validation de la transaction
+     */
+    public void ajouter(String email, String siret) {
+        charger();
+        emails.add(email);
+        sirets.add(siret);
+    }
+    
+    /**
+     * Retire les valeurs d'un client une fois la transaction courante validée
+     */
+    public void retirerApresValidation(String email, String siret) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            retirer(email, siret);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                retirer(email, siret);
+            }
+        });
+    }
+    
+    private void retirer(String email, String siret) {
+        if (email != null) {
+            emails.remove(email);
+        }
+        if (siret != null) {
+            sirets.remove(siret);
+        }
+    }
+    
+    /**
+     * Charge l'index depuis la base à la première utilisation
+     * (ReentrantLock : pas de blocage du thread porteur d'un thread virtuel pendant la requête)
+     */
+    private void charger() {
+        if (charge) {
+            return;
+        }
+        verrou.lock();
+        try {
+            if (!charge) {
+                emails.addAll(clientRepository.findAllEmails());
+                sirets.addAll(clientRepository.findAllSirets());
+                charge = true;
+            }
+        } finally {
+            verrou.unlock();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.arimayi.billing.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service d'attribution des numéros de facture (FAC-AAAA-NNNN).
+ * Chaque nœud réserve en base des blocs de numéros par année puis les distribue en mémoire ;
+ * un numéro dont la transaction est annulée, ou la fin d'un bloc non utilisée à l'arrêt, est enregistré en base
+ * et réattribué en priorité, par ce nœud, un autre nœud ou après un redémarrage, pour éviter les trous.
+ */
+@Service
+public class NumerotationFactureService {
+
+    private static final Logger log = LoggerFactory.getLogger(NumerotationFactureService.class);
+
+    @Autowired
+    private ReservationNumeros reservationNumeros;
+
+    // Nombre de numéros réservés en base à chaque aller-retour
+    @Value("${billing.numbering.block-size:50}")
+    private int tailleBloc = 50;
+
+    private final Map<Integer, CompteurAnnuel> compteurs = new ConcurrentHashMap<>();
+
+    /**
+     * Attribue le prochain numéro de facture pour l'année de la date donnée.
+     * Si la transaction courante est annulée, le numéro est restitué.
+     */
+    public String allouerNumero(LocalDate date) {
+        int annee = date.getYear();
+        CompteurAnnuel compteur = compteurs.computeIfAbsent(annee, CompteurAnnuel::new);
+        long numero = compteur.prendre();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        compteur.liberer(numero);
+                    }
+                }
+            });
+        }
+
+        return formaterNumero(annee, numero);
+    }
+
+    /**
+     * Formate un numéro de facture
+     */
+    public static String formaterNumero(int annee, long numero) {
+        return String.format("FAC-%d-%04d", annee, numero);
+    }
+
+    /**
+     * Restitue en base la partie non utilisée des blocs (numéros libérés si un autre nœud a réservé après nous)
+     */
+    @PreDestroy
+    public void restituerBlocs() {
+        compteurs.values().forEach(CompteurAnnuel::restituer);
+    }
+
+    /**
+     * Plage de numéros [prochain, fin] réservée par ce nœud
+     */
+    private static final class Bloc {
+        private final AtomicLong prochain;
+        private final long fin;
+
+        Bloc(long debut, long fin) {
+            this.prochain = new AtomicLong(debut);
+            this.fin = fin;
+        }
+    }
+
+    /**
+     * État en mémoire de la numérotation d'une année.
+     * Les accès en base se font sous un ReentrantLock plutôt que synchronized,
+     * qui bloquerait le thread porteur d'un thread virtuel pendant la requête
+     */
+    private final class CompteurAnnuel {
+        private final int annee;
+        private final ConcurrentSkipListSet<Long> liberes = new ConcurrentSkipListSet<>();
+        private final ReentrantLock verrou = new ReentrantLock();
+        private volatile Bloc bloc = new Bloc(1, 0);
+
+        CompteurAnnuel(int annee) {
+            this.annee = annee;
+        }
+
+        long prendre() {
+            while (true) {
+                // Les numéros libérés sont réattribués en priorité, du plus petit au plus grand
+                Long libere = liberes.pollFirst();
+                if (libere != null) {
+                    if (reservationNumeros.reprendre(annee, libere)) {
+                        return libere;
+                    }
+                    continue;
+                }
+                Bloc courant = bloc;
+                long numero = courant.prochain.getAndIncrement();
+                if (numero <= courant.fin) {
+                    return numero;
+                }
+                verrou.lock();
+                try {
+                    if (bloc == courant) {
+                        ReservationNumeros.BlocReserve reserve = reservationNumeros.reserverBloc(annee, tailleBloc);
+                        liberes.addAll(reserve.liberes());
+                        bloc = new Bloc(reserve.debut(), reserve.fin());
+                    }
+                } finally {
+                    verrou.unlock();
+                }
+            }
+        }
+
+        void liberer(long numero) {
+            try {
+                reservationNumeros.liberer(annee, numero);
+                liberes.add(numero);
+            } catch (DataAccessException ex) {
+                log.warn("Numéro {} de l'année {} non enregistré comme libéré, il ne sera pas réattribué",
+                        numero, annee, ex);
+            }
+        }
+
+        void restituer() {
+            verrou.lock();
+            try {
+                Bloc courant = bloc;
+                long prochain = courant.prochain.getAndSet(courant.fin + 1);
+                if (prochain > courant.fin) {
+                    return;
+                }
+                try {
+                    reservationNumeros.restituer(annee, prochain, courant.fin);
+                } catch (DataAccessException ex) {
+                    log.warn("Impossible de restituer les numéros {} à {} de l'année {}", prochain, courant.fin, annee, ex);
+                }
+            } finally {
+                verrou.unlock();
+            }
+        }
+    }
+}
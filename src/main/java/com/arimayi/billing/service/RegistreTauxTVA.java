@@ -0,0 +1,200 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.calcul.CalculMontants;
+import com.arimayi.billing.entity.TauxTVA;
+import com.arimayi.billing.exception.InvalidTVAException;
+import com.arimayi.billing.repository.TauxTVARepository;
+import com.arimayi.billing.routage.LecturePrimaire;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Taux de TVA autorisés, conservés dans la table taux_tva et remplaçables sans redémarrage.
+ * La table est initialisée avec billing.tva.taux si elle est vide ; chaque nœud la relit toutes les
+ * billing.tva.refresh-interval, si bien qu'un remplacement fait sur un nœud atteint les autres dans ce délai.
+ * Les taux sont indexés par leur valeur en centièmes de pourcent : 20, 20.0 et 20.00 désignent le même taux
+ * et la vérification d'un taux est une recherche dans une table de hachage.
+ */
+@Component
+public class RegistreTauxTVA {
+
+    static final String TAUX_PAR_DEFAUT = "0,5.5,10,20";
+
+    private static final Logger log = LoggerFactory.getLogger(RegistreTauxTVA.class);
+    private static final BigDecimal TAUX_MAX = BigDecimal.valueOf(100);
+
+    @Autowired
+    private TauxTVARepository tauxTVARepository;
+
+    @Value("${billing.tva.taux:" + TAUX_PAR_DEFAUT + "}")
+    private String tauxConfigures = TAUX_PAR_DEFAUT;
+
+    @Value("${billing.tva.refresh-interval:30s}")
+    private Duration intervalleRechargement = Duration.ofSeconds(30);
+
+    // Remplacé d'un bloc : les lectures voient l'ancienne ou la nouvelle liste, jamais un mélange
+    private volatile Taux taux = indexer(lire(TAUX_PAR_DEFAUT));
+
+    private ScheduledExecutorService planificateur;
+
+    @PostConstruct
+    void initialiser() {
+        taux = indexer(lire(tauxConfigures));
+        recharger();
+        log.info("Taux de TVA autorisés : {}", taux.description());
+        planificateur = Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "rechargement-taux-tva");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalle = intervalleRechargement.toMillis();
+        planificateur.scheduleWithFixedDelay(this::rechargerPeriodiquement, intervalle, intervalle, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+        }
+    }
+
+    /**
+     * Indique si le taux fait partie des taux autorisés, quelle que soit son échelle
+     */
+    public boolean estAutorise(BigDecimal tauxTVA) {
+        if (tauxTVA == null) {
+            return false;
+        }
+        long centiemes = CalculMontants.versUnites(tauxTVA.stripTrailingZeros());
+        return centiemes != CalculMontants.NON_REPRESENTABLE && taux.parCentiemes().containsKey(centiemes);
+    }
+
+    /**
+     * Taux autorisés, croissants, à 2 décimales
+     */
+    public List<BigDecimal> getTaux() {
+        return taux.liste();
+    }
+
+    /**
+     * Liste lisible des taux autorisés, pour les messages d'erreur
+     */
+    public String description() {
+        return taux.description();
+    }
+
+    /**
+     * Remplace les taux autorisés dans la table ; ce nœud les applique à la validation de la transaction,
+     * les autres au rechargement suivant. Les factures déjà créées ne sont pas modifiées.
+     *
+     * @throws InvalidTVAException si la liste est vide ou contient un taux hors de 0-100 % ou à plus de 2 décimales
+     */
+    @Transactional
+    public List<BigDecimal> remplacer(Collection<BigDecimal> nouveaux) {
+        Taux remplacement = indexer(nouveaux);
+        tauxTVARepository.deleteAllInBatch();
+        tauxTVARepository.saveAll(remplacement.liste().stream().map(TauxTVA::new).toList());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appliquer(remplacement);
+                }
+            });
+        } else {
+            appliquer(remplacement);
+        }
+        return remplacement.liste();
+    }
+
+    /**
+     * Relit les taux de la table, sur la base principale ; la table vide est initialisée avec billing.tva.taux
+     */
+    public void recharger() {
+        List<TauxTVA> lus = LecturePrimaire.executer(tauxTVARepository::findAll);
+        if (lus.isEmpty()) {
+            try {
+                tauxTVARepository.saveAll(taux.liste().stream().map(TauxTVA::new).toList());
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                // Un autre nœud a initialisé la table en même temps
+                lus = LecturePrimaire.executer(tauxTVARepository::findAll);
+            }
+        }
+        Taux relus = indexer(lus.stream().map(TauxTVA::getTaux).toList());
+        if (!relus.liste().equals(taux.liste())) {
+            appliquer(relus);
+        }
+    }
+
+    private void rechargerPeriodiquement() {
+        try {
+            recharger();
+        } catch (DataAccessException | InvalidTVAException ex) {
+            log.warn("Rechargement des taux de TVA impossible, taux conservés : {}", ex.getMessage());
+        }
+    }
+
+    private void appliquer(Taux remplacement) {
+        taux = remplacement;
+        log.info("Taux de TVA autorisés remplacés : {}", remplacement.description());
+    }
+
+    private static List<BigDecimal> lire(String configuration) {
+        List<BigDecimal> liste = new ArrayList<>();
+        for (String valeur : configuration.split(",")) {
+            try {
+                liste.add(new BigDecimal(valeur.trim()));
+            } catch (NumberFormatException ex) {
+                throw new InvalidTVAException("Taux de TVA illisible dans billing.tva.taux : " + valeur, ex);
+            }
+        }
+        return liste;
+    }
+
+    private static Taux indexer(Collection<BigDecimal> liste) {
+        if (liste == null || liste.isEmpty()) {
+            throw new InvalidTVAException("Au moins un taux de TVA doit être autorisé");
+        }
+        TreeMap<Long, BigDecimal> parCentiemes = new TreeMap<>();
+        for (BigDecimal valeur : liste) {
+            long centiemes = valeur != null
+                    ? CalculMontants.versUnites(valeur.stripTrailingZeros())
+                    : CalculMontants.NON_REPRESENTABLE;
+            if (centiemes == CalculMontants.NON_REPRESENTABLE
+                    || valeur.signum() < 0 || valeur.compareTo(TAUX_MAX) > 0) {
+                throw new InvalidTVAException("Taux de TVA invalide : " + valeur
+                        + ". Un taux est compris entre 0 et 100 % avec au plus 2 décimales");
+            }
+            parCentiemes.put(centiemes, CalculMontants.versMontant(centiemes));
+        }
+        String description = parCentiemes.values().stream()
+                .map(valeur -> valeur.stripTrailingZeros().toPlainString() + "%")
+                .collect(Collectors.joining(", "));
+        return new Taux(Map.copyOf(parCentiemes), List.copyOf(parCentiemes.values()), description);
+    }
+
+    private record Taux(Map<Long, BigDecimal> parCentiemes, List<BigDecimal> liste, String description) {}
+}
@@ -0,0 +1,102 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.pdf.FacturePdf;
+import com.arimayi.billing.pdf.GabaritFacturePdf;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service de rendu des factures en PDF. Les rendus s'exécutent sur un pool borné, hors des threads
+ * de requête ; au-delà de la file d'attente, une demande est rejetée (RejectedExecutionException).
+ * Les PDF sont mis en cache par ETag de facture : une facture n'est plus modifiée après sa création,
+ * et une modification de son client change son ETag, donc la clé de son PDF.
+ * Un rendu en cours est partagé entre les demandes simultanées.
+ */
+@Service
+public class RenduPdfService {
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @Autowired
+    private EtagsFactures etagsFactures;
+    
+    @Value("${billing.pdf.emetteur:AriMayi}")
+    private String emetteur = "AriMayi";
+    
+    // 0 : un thread de rendu par processeur
+    @Value("${billing.pdf.workers:0}")
+    private int nombreWorkers;
+    
+    @Value("${billing.pdf.queue-capacity:200}")
+    private int capaciteFile = 200;
+    
+    @Value("${billing.pdf.cache.max-size:64MB}")
+    private DataSize tailleCache = DataSize.ofMegabytes(64);
+    
+    private GabaritFacturePdf gabarit;
+    private ThreadPoolExecutor workers;
+    private AsyncCache<String, FacturePdf> rendus;
+    
+    @PostConstruct
+    void initialiser() {
+        gabarit = new GabaritFacturePdf(emetteur);
+        int threads = nombreWorkers > 0 ? nombreWorkers : Runtime.getRuntime().availableProcessors();
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), new FabriqueThreads());
+        rendus = Caffeine.newBuilder()
+                .maximumWeight(tailleCache.toBytes())
+                .weigher((String etag, FacturePdf pdf) -> pdf.contenu().length)
+                .buildAsync();
+    }
+    
+    @PreDestroy
+    void arreter() {
+        workers.shutdown();
+    }
+    
+    /**
+     * Retourne le PDF d'une facture, depuis le cache ou rendu sur le pool de rendu
+     */
+    public CompletableFuture<FacturePdf> rendre(Long id) {
+        String etag = etagsFactures.etag(id);
+        CompletableFuture<FacturePdf> rendu = etag != null ? rendus.getIfPresent(etag) : null;
+        if (rendu != null) {
+            return rendu;
+        }
+        // Chargement hors du cache : la fonction passée à get() ne fait que soumettre le rendu
+        EtagsFactures.FactureEtiquetee lue = etagsFactures.charger(id, factureService::getFactureById);
+        FactureDto facture = lue.facture();
+        String etagLu = lue.etag();
+        return rendus.get(etagLu, (cle, executor) -> CompletableFuture.supplyAsync(
+                () -> new FacturePdf(etagLu, gabarit.rendre(facture)), workers));
+    }
+    
+    /**
+     * Threads de rendu nommés, en démon pour ne pas retenir l'arrêt de la JVM
+     */
+    private static final class FabriqueThreads implements ThreadFactory {
+        private final AtomicInteger compteur = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable tache) {
+            Thread thread = new Thread(tache, "rendu-pdf-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
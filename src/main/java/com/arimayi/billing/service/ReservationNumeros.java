@@ -0,0 +1,137 @@
+package com.arimayi.billing.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Accès aux tables compteurs_facture et numeros_liberes par un petit pool de connexions dédié.
+ * La réservation d'un bloc a lieu pendant la transaction de la facture : avec le pool principal, elle
+ * demanderait une seconde connexion au pool déjà tenu par les requêtes en cours et pourrait l'épuiser.
+ * Dépend de la fabrique d'EntityManager, qui crée les tables, pour n'être arrêté qu'avant leur suppression.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ReservationNumeros {
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${billing.numbering.pool-size:2}")
+    private int taillePool = 2;
+
+    @Value("${billing.numbering.connection-timeout:5s}")
+    private Duration attenteConnexion = Duration.ofSeconds(5);
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initialiser() {
+        pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("numerotation");
+        pool.setMaximumPoolSize(taillePool);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(attenteConnexion.toMillis());
+        meterRegistry.ifAvailable(registre -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registre)));
+        jdbcTemplate = new JdbcTemplate(pool);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(pool));
+    }
+
+    @PreDestroy
+    void fermer() {
+        pool.close();
+    }
+
+    /**
+     * Réserve les numéros suivants de l'année ; à la première utilisation, le compteur reprend
+     * les factures déjà émises. Renvoie aussi les numéros libérés de l'année, à réattribuer en priorité.
+     */
+    public BlocReserve reserverBloc(int annee, int taille) {
+        try {
+            return transactionTemplate.execute(status -> reserverBlocEnBase(annee, taille));
+        } catch (DuplicateKeyException ex) {
+            // Un autre nœud a créé le compteur de l'année en même temps : la ligne existe désormais
+            return transactionTemplate.execute(status -> reserverBlocEnBase(annee, taille));
+        }
+    }
+
+    private BlocReserve reserverBlocEnBase(int annee, int taille) {
+        List<Long> dernier = jdbcTemplate.queryForList(
+                "SELECT dernier_numero FROM compteurs_facture WHERE annee = ? FOR UPDATE", Long.class, annee);
+        long depart;
+        if (dernier.isEmpty()) {
+            depart = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM factures WHERE EXTRACT(YEAR FROM date) = ?", Long.class, annee);
+            jdbcTemplate.update("INSERT INTO compteurs_facture (annee, dernier_numero) VALUES (?, ?)",
+                    annee, depart + taille);
+        } else {
+            depart = dernier.get(0);
+            jdbcTemplate.update("UPDATE compteurs_facture SET dernier_numero = ? WHERE annee = ?",
+                    depart + taille, annee);
+        }
+        List<Long> liberes = jdbcTemplate.queryForList(
+                "SELECT numero FROM numeros_liberes WHERE annee = ? ORDER BY numero", Long.class, annee);
+        return new BlocReserve(depart + 1, depart + taille, liberes);
+    }
+
+    /**
+     * Enregistre un numéro libéré, pour qu'il soit réattribué par ce nœud, un autre ou après un redémarrage
+     */
+    public void liberer(int annee, long numero) {
+        try {
+            jdbcTemplate.update("INSERT INTO numeros_liberes (annee, numero) VALUES (?, ?)", annee, numero);
+        } catch (DuplicateKeyException ex) {
+            // Déjà enregistré
+        }
+    }
+
+    /**
+     * Retire un numéro libéré de la table ; faux s'il a déjà été repris par un autre nœud
+     */
+    public boolean reprendre(int annee, long numero) {
+        return jdbcTemplate.update("DELETE FROM numeros_liberes WHERE annee = ? AND numero = ?", annee, numero) == 1;
+    }
+
+    /**
+     * Restitue les numéros [prochain, fin] non utilisés d'un bloc : le compteur est abaissé si aucun autre nœud
+     * n'a réservé depuis, sinon les numéros sont enregistrés comme libérés
+     */
+    public void restituer(int annee, long prochain, long fin) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> dernier = jdbcTemplate.queryForList(
+                    "SELECT dernier_numero FROM compteurs_facture WHERE annee = ? FOR UPDATE", Long.class, annee);
+            if (!dernier.isEmpty() && dernier.get(0) == fin) {
+                jdbcTemplate.update("UPDATE compteurs_facture SET dernier_numero = ? WHERE annee = ?", prochain - 1, annee);
+            } else {
+                jdbcTemplate.batchUpdate("INSERT INTO numeros_liberes (annee, numero) VALUES (?, ?)",
+                        LongStream.rangeClosed(prochain, fin).mapToObj(numero -> new Object[]{annee, numero}).toList());
+            }
+        });
+    }
+
+    /**
+     * Plage de numéros [debut, fin] réservée, et numéros libérés de l'année
+     */
+    public record BlocReserve(long debut, long fin, List<Long> liberes) {}
+}
@@ -1,20 +1,33 @@
 -- Insertion de données de test
 
 -- Clients de test
-INSERT INTO clients (nom, email, siret, date_creation) VALUES 
-('Entreprise Alpha', 'contact@alpha.com', '12345678901234', CURRENT_TIMESTAMP),
-('Société Beta', 'info@beta.fr', '23456789012345', CURRENT_TIMESTAMP),
-('Compagnie Gamma', 'admin@gamma.org', '34567890123456', CURRENT_TIMESTAMP);
+INSERT INTO clients (id, nom, email, siret, date_creation) VALUES 
+(1, 'Entreprise Alpha', 'contact@alpha.com', '12345678901234', CURRENT_TIMESTAMP),
+(2, 'Société Beta', 'info@beta.fr', '23456789012345', CURRENT_TIMESTAMP),
+(3, 'Compagnie Gamma', 'admin@gamma.org', '34567890123456', CURRENT_TIMESTAMP);
 
 -- Factures de test
-INSERT INTO factures (numero, date, client_id, total_ht, total_tva, total_ttc) VALUES 
-('FAC-2024-0001', '2024-01-15', 1, 1000.00, 200.00, 1200.00),
-('FAC-2024-0002', '2024-01-20', 2, 500.00, 100.00, 600.00),
-('FAC-2024-0003', '2024-02-01', 1, 750.00, 150.00, 900.00);
+-- (ventilation_tva : base HT et TVA par taux, au format "taux:base:tva;...")
+INSERT INTO factures (id, numero, date, client_id, total_ht, total_tva, total_ttc, ventilation_tva) VALUES 
+(1, 'FAC-2024-0001', '2024-01-15', 1, 1000.00, 200.00, 1200.00, '20.00:1000.00:200.00'),
+(2, 'FAC-2024-0002', '2024-01-20', 2, 500.00, 100.00, 600.00, '20.00:500.00:100.00'),
+(3, 'FAC-2024-0003', '2024-02-01', 1, 750.00, 150.00, 900.00, '20.00:750.00:150.00');
 
 -- Lignes de facture de test
-INSERT INTO lignes_facture (description, quantite, prix_unitaire_ht, taux_tva, facture_id) VALUES 
-('Développement application web', 10.00, 80.00, 20.00, 1),
-('Formation utilisateurs', 5.00, 40.00, 20.00, 1),
-('Consultation technique', 8.00, 62.50, 20.00, 2),
-('Maintenance mensuelle', 3.00, 250.00, 20.00, 3);
+INSERT INTO lignes_facture (id, description, quantite, prix_unitaire_ht, taux_tva, total_ht, total_tva, total_ttc, facture_id) VALUES 
+(1, 'Développement application web', 10.00, 80.00, 20.00, 800.00, 160.00, 960.00, 1),
+(2, 'Formation utilisateurs', 5.00, 40.00, 20.00, 200.00, 40.00, 240.00, 1),
+(3, 'Consultation technique', 8.00, 62.50, 20.00, 500.00, 100.00, 600.00, 2),
+(4, 'Maintenance mensuelle', 3.00, 250.00, 20.00, 750.00, 150.00, 900.00, 3);
+
+-- Cumuls mensuels de chiffre d'affaires par client (même calcul que CumulChiffreAffairesRepository.reconstruire)
+INSERT INTO revenue_rollup (client_id, year_month, slot, total_ht, total_tva, total_ttc, invoice_count)
+SELECT client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date), 0,
+       SUM(total_ht), SUM(total_tva), SUM(total_ttc), COUNT(*)
+FROM factures
+GROUP BY client_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date);
+
+-- Les séquences (allocationSize = 50) doivent démarrer après les identifiants insérés ci-dessus
+ALTER SEQUENCE clients_seq RESTART WITH 101;
+ALTER SEQUENCE factures_seq RESTART WITH 101;
+ALTER SEQUENCE lignes_facture_seq RESTART WITH 101;
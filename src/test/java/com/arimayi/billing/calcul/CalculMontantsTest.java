@@ -0,0 +1,196 @@
+package com.arimayi.billing.calcul;
+
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.entity.LigneFacture;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'équivalence entre le calcul en centimes et le calcul historique en BigDecimal
+ */
+class CalculMontantsTest {
+
+    private static final BigDecimal[] TAUX = {
+        BigDecimal.ZERO, new BigDecimal("5.5"), new BigDecimal("10"), new BigDecimal("20"),
+        new BigDecimal("20.00"), new BigDecimal("2.1"), new BigDecimal("8.5"), new BigDecimal("19.6")
+    };
+
+    @Test
+    void ligne_ExhaustiveGrid_ShouldMatchBigDecimalReference() {
+        for (long quantite = 1; quantite <= 500; quantite++) {
+            for (long prix = 0; prix <= 3_000; prix += 13) {
+                for (BigDecimal taux : TAUX) {
+                    verifierLigne(BigDecimal.valueOf(quantite, 2), BigDecimal.valueOf(prix, 2), taux);
+                }
+            }
+        }
+    }
+
+    @Test
+    void ligne_RandomValues_ShouldMatchBigDecimalReference() {
+        Random random = new Random(20240115L);
+        for (int i = 0; i < 200_000; i++) {
+            // Quantités et prix jusqu'à 99 999 999,99 (précision des colonnes), échelles de 0 à 3 décimales
+            BigDecimal quantite = BigDecimal.valueOf(1 + (long) (random.nextDouble() * 9_999_999_999L), 2)
+                    .setScale(random.nextInt(4), RoundingMode.DOWN).max(new BigDecimal("0.01"));
+            BigDecimal prix = BigDecimal.valueOf((long) (Math.pow(random.nextDouble(), 3) * 9_999_999_999L),
+                    random.nextInt(4));
+            verifierLigne(quantite, prix, TAUX[random.nextInt(TAUX.length)]);
+        }
+    }
+
+    @Test
+    void ligne_Overflow_ShouldFallBackToBigDecimal() {
+        verifierLigne(new BigDecimal("99999999.99"), new BigDecimal("99999999.99"), new BigDecimal("20"));
+        verifierLigne(new BigDecimal("1.005"), new BigDecimal("0.5"), new BigDecimal("5.5"));
+        verifierLigne(new BigDecimal("3"), new BigDecimal("33.33"), new BigDecimal("5.555"));
+    }
+
+    @Test
+    void ligne_Setters_ShouldRecomputeTotals() {
+        LigneFacture ligne = new LigneFacture("Ligne", new BigDecimal("2"), new BigDecimal("100.00"),
+                new BigDecimal("20"));
+
+        ligne.setQuantite(new BigDecimal("3"));
+        assertEquals(new BigDecimal("300.00"), ligne.getTotalHT());
+        ligne.setPrixUnitaireHT(new BigDecimal("10.00"));
+        assertEquals(new BigDecimal("30.00"), ligne.getTotalHT());
+        ligne.setTauxTVA(new BigDecimal("5.5"));
+        assertEquals(new BigDecimal("1.65"), ligne.getTotalTVA());
+        assertEquals(165L, ligne.getTotalTVACentimes());
+        assertEquals(new BigDecimal("31.65"), ligne.getTotalTTC());
+
+        LigneFacture incomplete = new LigneFacture();
+        incomplete.setQuantite(BigDecimal.ONE);
+        assertNull(incomplete.getTotalHT());
+        incomplete.setPrixUnitaireHT(new BigDecimal("8.00"));
+        incomplete.setTauxTVA(BigDecimal.TEN);
+        assertEquals(new BigDecimal("8.80"), incomplete.getTotalTTC());
+    }
+
+    @Test
+    void facture_RandomLines_ShouldMatchBigDecimalReference() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 20_000; i++) {
+            Facture facture = new Facture();
+            List<LigneFacture> lignes = new ArrayList<>();
+            BigDecimal totalHT = BigDecimal.ZERO;
+            BigDecimal totalTVA = BigDecimal.ZERO;
+            for (int n = 1 + random.nextInt(20); n > 0; n--) {
+                BigDecimal quantite = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+                BigDecimal prix = BigDecimal.valueOf(random.nextInt(5_000_000), 2);
+                BigDecimal taux = TAUX[random.nextInt(TAUX.length)];
+                lignes.add(new LigneFacture("Ligne", quantite, prix, taux));
+                totalHT = totalHT.add(totalHTReference(quantite, prix));
+                totalTVA = totalTVA.add(totalTVAReference(totalHTReference(quantite, prix), taux));
+            }
+            facture.setLignes(lignes);
+
+            facture.calculerTotaux();
+
+            assertEquals(totalHT, facture.getTotalHT());
+            assertEquals(totalTVA, facture.getTotalTVA());
+            assertEquals(totalHT.add(totalTVA), facture.getTotalTTC());
+        }
+    }
+
+    @Test
+    void arrondir_ShouldRoundHalfAwayFromZero() {
+        assertEquals(2, CalculMontants.arrondir(150, 100));
+        assertEquals(1, CalculMontants.arrondir(149, 100));
+        assertEquals(-2, CalculMontants.arrondir(-150, 100));
+        assertEquals(-1, CalculMontants.arrondir(-149, 100));
+        assertEquals(0, CalculMontants.arrondir(0, 10_000));
+    }
+
+    @Test
+    void versUnites_ShouldRejectValuesThatNeedRounding() {
+        assertEquals(550, CalculMontants.versUnites(new BigDecimal("5.5")));
+        assertEquals(2000, CalculMontants.versUnites(new BigDecimal("20.00")));
+        assertEquals(CalculMontants.NON_REPRESENTABLE, CalculMontants.versUnites(new BigDecimal("5.555")));
+        assertEquals(CalculMontants.NON_REPRESENTABLE, CalculMontants.versUnites(new BigDecimal("1E+30")));
+        assertEquals(CalculMontants.NON_REPRESENTABLE, CalculMontants.versUnites(null));
+    }
+
+    @Test
+    void calculEnCentimes_ShouldNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long somme = calculerEnBoucle(100_000);
+
+        long avant = threads.getThreadAllocatedBytes(thread);
+        somme += calculerEnBoucle(1_000_000);
+        long alloue = threads.getThreadAllocatedBytes(thread) - avant;
+
+        assertTrue(somme != 0);
+        assertTrue(alloue < 1_024, "Octets alloués par le calcul en centimes : " + alloue);
+    }
+
+    @Test
+    void entites_ShouldOnlyAllocateBigDecimalConversions() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        LigneFacture ligne = new LigneFacture("Ligne", new BigDecimal("3"), new BigDecimal("12.34"), new BigDecimal("20"));
+        Facture facture = new Facture();
+        facture.setLignes(new ArrayList<>(List.of(ligne,
+                new LigneFacture("Livre", BigDecimal.ONE, new BigDecimal("15.00"), new BigDecimal("5.5")))));
+        for (int i = 0; i < 200_000; i++) {
+            ligne.calculerTotaux();
+            facture.calculerTotaux();
+        }
+
+        long avant = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++) {
+            ligne.calculerTotaux();
+        }
+        long parLigne = (threads.getThreadAllocatedBytes(thread) - avant) / 100_000;
+        avant = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++) {
+            facture.calculerTotaux();
+        }
+        long parFacture = (threads.getThreadAllocatedBytes(thread) - avant) / 100_000;
+
+        // Ligne : conversion des 3 opérandes et des 3 totaux enregistrés (BigDecimal de 40 octets environ)
+        assertTrue(parLigne <= 400, "Octets alloués par LigneFacture.calculerTotaux : " + parLigne);
+        // Facture : 3 totaux, plus la ventilation (table des taux, 3 BigDecimal par taux)
+        assertTrue(parFacture <= 1_024, "Octets alloués par Facture.calculerTotaux : " + parFacture);
+    }
+
+    private static long calculerEnBoucle(int iterations) {
+        long somme = 0;
+        for (int i = 1; i <= iterations; i++) {
+            long ht = CalculMontants.totalHT(i % 10_000, 12_345);
+            somme += ht + CalculMontants.totalTVA(ht, i % 2 == 0 ? 2_000 : 550);
+        }
+        return somme;
+    }
+
+    private static void verifierLigne(BigDecimal quantite, BigDecimal prix, BigDecimal taux) {
+        LigneFacture ligne = new LigneFacture("Ligne", quantite, prix, taux);
+        BigDecimal totalHT = totalHTReference(quantite, prix);
+        BigDecimal totalTVA = totalTVAReference(totalHT, taux);
+        String contexte = quantite + " x " + prix + " à " + taux + " %";
+
+        assertEquals(totalHT, ligne.getTotalHT(), contexte);
+        assertEquals(totalTVA, ligne.getTotalTVA(), contexte);
+        assertEquals(totalHT.add(totalTVA), ligne.getTotalTTC(), contexte);
+    }
+
+    // Calcul historique de LigneFacture, conservé comme référence
+    private static BigDecimal totalHTReference(BigDecimal quantite, BigDecimal prix) {
+        return quantite.multiply(prix).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal totalTVAReference(BigDecimal totalHT, BigDecimal taux) {
+        return totalHT.multiply(taux.divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,68 @@
+package com.arimayi.billing.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour EncodeurMotDePasseEnCache
+ */
+@ExtendWith(MockitoExtension.class)
+class EncodeurMotDePasseEnCacheTest {
+    
+    private static final String EMPREINTE = "$2a$10$empreinte";
+    
+    @Mock
+    private PasswordEncoder bcrypt;
+    
+    private EncodeurMotDePasseEnCache encodeur;
+    
+    @BeforeEach
+    void setUp() {
+        encodeur = new EncodeurMotDePasseEnCache(bcrypt, 100, Duration.ofMinutes(5));
+    }
+    
+    @Test
+    void matches_SecondSuccess_ShouldBeServedFromCache() {
+        // Given
+        when(bcrypt.matches("admin123", EMPREINTE)).thenReturn(true);
+        
+        // When & Then
+        assertTrue(encodeur.matches("admin123", EMPREINTE));
+        assertTrue(encodeur.matches("admin123", EMPREINTE));
+        verify(bcrypt, times(1)).matches("admin123", EMPREINTE);
+    }
+    
+    @Test
+    void matches_Failure_ShouldNeverBeCached() {
+        // Given
+        when(bcrypt.matches("mauvais", EMPREINTE)).thenReturn(false);
+        
+        // When & Then
+        assertFalse(encodeur.matches("mauvais", EMPREINTE));
+        assertFalse(encodeur.matches("mauvais", EMPREINTE));
+        verify(bcrypt, times(2)).matches("mauvais", EMPREINTE);
+    }
+    
+    @Test
+    void matches_ChangedHashOrInvalidation_ShouldVerifyAgain() {
+        // Given
+        when(bcrypt.matches("admin123", EMPREINTE)).thenReturn(true);
+        when(bcrypt.matches("admin123", "$2a$10$nouvelle")).thenReturn(false);
+        encodeur.matches("admin123", EMPREINTE);
+        
+        // When & Then
+        assertFalse(encodeur.matches("admin123", "$2a$10$nouvelle"));
+        encodeur.invalider();
+        assertTrue(encodeur.matches("admin123", EMPREINTE));
+        verify(bcrypt, times(2)).matches("admin123", EMPREINTE);
+    }
+}
@@ -0,0 +1,40 @@
+package com.arimayi.billing.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la vérification du plafond d'écritures simultanées par LimitationEcrituresConfig
+ */
+class LimitationEcrituresConfigTest {
+
+    private final LimitationEcrituresConfig config = new LimitationEcrituresConfig();
+
+    @Test
+    void limiteurEcritures_BelowPoolSize_ShouldBeCreated() {
+        // When & Then
+        assertNotNull(config.limiteurEcritures(new SimpleMeterRegistry(), 5, 20, 2, 10, 5,
+                Duration.ofMillis(100), 10));
+    }
+
+    @Test
+    void limiteurEcritures_AtOrAbovePoolSize_ShouldFailAtStartup() {
+        // When & Then
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                config.limiteurEcritures(new SimpleMeterRegistry(), 5, 20, 2, 10, 10, Duration.ofMillis(100), 10));
+        assertTrue(ex.getMessage().contains("maximum-pool-size=10"));
+        assertThrows(IllegalStateException.class, () ->
+                config.limiteurEcritures(new SimpleMeterRegistry(), 5, 20, 2, 10, 20, Duration.ofMillis(100), 10));
+    }
+
+    @Test
+    void limiteurEcritures_NoConcurrentWrite_ShouldFailAtStartup() {
+        // When & Then
+        assertThrows(IllegalStateException.class, () ->
+                config.limiteurEcritures(new SimpleMeterRegistry(), 5, 20, 2, 10, 0, Duration.ofMillis(100), 10));
+    }
+}
@@ -0,0 +1,65 @@
+package com.arimayi.billing.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration des en-têtes de cache des factures, avec la chaîne de sécurité de l'application :
+ * aucune facture ne doit pouvoir être conservée par un cache partagé
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CacheFacturesIntegrationTest {
+    
+    private static final String NO_STORE = "no-cache, no-store, max-age=0, must-revalidate";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void getFactureById_ShouldOnlyBeCachedByTheClient() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/factures/1").with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, must-revalidate, private"));
+    }
+    
+    @Test
+    void exportFactureJson_ShouldKeepNoStoreHeaders() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/factures/1/export").with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, NO_STORE))
+                .andExpect(header().string(HttpHeaders.PRAGMA, "no-cache"));
+    }
+    
+    @Test
+    void exportFacturePdf_ShouldKeepNoStoreHeaders() throws Exception {
+        // Given
+        MvcResult rendu = mockMvc.perform(get("/api/factures/1/export").param("format", "pdf")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // When & Then
+        mockMvc.perform(asyncDispatch(rendu))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, NO_STORE))
+                .andExpect(header().string(HttpHeaders.PRAGMA, "no-cache"));
+    }
+}
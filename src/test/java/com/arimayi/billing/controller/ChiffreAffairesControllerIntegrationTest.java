@@ -0,0 +1,46 @@
+package com.arimayi.billing.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration des droits sur les cumuls de chiffre d'affaires : reconstruction réservée aux administrateurs
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChiffreAffairesControllerIntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void reconstruireCumuls_AsUser_ShouldReturn403() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/chiffre-affaires/cumuls/reconstruction").with(httpBasic("user", "user123")))
+                .andExpect(status().isForbidden());
+    }
+    
+    @Test
+    void reconstruireCumuls_AsAdmin_ShouldRebuildAndVerify() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/chiffre-affaires/cumuls/reconstruction").with(httpBasic("admin", "admin123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.coherent").value(true));
+    }
+    
+    @Test
+    void verifierCumuls_AsUser_ShouldReturnVerification() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/chiffre-affaires/cumuls/verification").with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.coherent").value(true));
+    }
+}
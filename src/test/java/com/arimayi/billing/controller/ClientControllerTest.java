@@ -1,6 +1,7 @@
 package com.arimayi.billing.controller;
 
 import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.PageDto;
 import com.arimayi.billing.service.ClientService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -54,7 +55,7 @@ class ClientControllerTest {
     @WithMockUser
     void getAllClients_ShouldReturnClientsList() throws Exception {
         // Given
-        List<ClientDto> clients = Arrays.asList(testClientDto);
+        PageDto<ClientDto> clients = new PageDto<>(Arrays.asList(testClientDto), null);
         when(clientService.getAllClients()).thenReturn(clients);
         
         // When & Then
@@ -66,6 +67,21 @@ class ClientControllerTest {
                 .andExpect(jsonPath("$[0].nom").value("Test Client"));
     }
     
+    @Test
+    @WithMockUser
+    void getClientsPage_ShouldReturnItemsAndNextCursor() throws Exception {
+        // Given
+        PageDto<ClientDto> page = new PageDto<>(Arrays.asList(testClientDto), "MQ");
+        when(clientService.getClientsPage(eq("MA"), eq(1))).thenReturn(page);
+        
+        // When & Then
+        mockMvc.perform(get("/api/clients/page").param("after", "MA").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("MQ"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+    
     @Test
     @WithMockUser
     void createClient_WithValidData_ShouldReturnCreatedClient() throws Exception {
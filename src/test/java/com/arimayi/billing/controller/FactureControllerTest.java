@@ -0,0 +1,288 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.config.FormatsBinairesConfig;
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.PageDto;
+import com.arimayi.billing.service.EtagsFactures;
+import com.arimayi.billing.service.FactureService;
+import com.arimayi.billing.service.IdempotenceFactures;
+import com.arimayi.billing.service.RenduPdfService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests des requêtes conditionnelles (ETag, If-None-Match), de la négociation de format
+ * et des clés d'idempotence de FactureController
+ */
+@WebMvcTest(FactureController.class)
+@Import({EtagsFactures.class, IdempotenceFactures.class, FormatsBinairesConfig.class})
+class FactureControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EtagsFactures etagsFactures;
+    
+    @MockBean
+    private FactureService factureService;
+    
+    @MockBean
+    private RenduPdfService renduPdfService;
+    
+    private FactureDto testFactureDto;
+    
+    @BeforeEach
+    void setUp() {
+        ClientDto client = new ClientDto("Entreprise Alpha", "contact@alpha.com", "12345678901234");
+        client.setId(1L);
+        LigneFactureDto ligne = new LigneFactureDto("Développement application web", new BigDecimal("10.00"),
+                new BigDecimal("80.00"), new BigDecimal("20.00"));
+        testFactureDto = new FactureDto(LocalDate.of(2024, 1, 15), 1L, List.of(ligne));
+        testFactureDto.setId(1L);
+        testFactureDto.setNumero("FAC-2024-0001");
+        testFactureDto.setClient(client);
+        testFactureDto.setTotalHT(new BigDecimal("800.00"));
+        testFactureDto.setTotalTVA(new BigDecimal("160.00"));
+        testFactureDto.setTotalTTC(new BigDecimal("960.00"));
+        etagsFactures.invaliderClient(1L);
+    }
+    
+    @Test
+    @WithMockUser
+    void getAllFactures_AcceptSmile_ShouldReturnSmileBody() throws Exception {
+        // Given
+        when(factureService.getAllFactures()).thenReturn(new PageDto<>(List.of(testFactureDto), null));
+        
+        // When
+        byte[] corps = mockMvc.perform(get("/api/factures").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        // Then
+        JsonNode factures = new ObjectMapper(new SmileFactory()).readTree(corps);
+        assertEquals("FAC-2024-0001", factures.get(0).get("numero").asText());
+        assertEquals("2024-01-15", factures.get(0).get("date").asText());
+        assertEquals("Entreprise Alpha", factures.get(0).get("client").get("nom").asText());
+    }
+    
+    @Test
+    @WithMockUser
+    void getAllFactures_AcceptCbor_ShouldReturnCborBody() throws Exception {
+        // Given
+        when(factureService.getAllFactures()).thenReturn(new PageDto<>(List.of(testFactureDto), null));
+        
+        // When
+        byte[] corps = mockMvc.perform(get("/api/factures").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        // Then
+        JsonNode factures = new ObjectMapper(new CBORFactory()).readTree(corps);
+        assertEquals("FAC-2024-0001", factures.get(0).get("numero").asText());
+        assertEquals(960.00, factures.get(0).get("totalTTC").asDouble());
+    }
+    
+    @Test
+    @WithMockUser
+    void getAllFactures_NoAcceptHeader_ShouldDefaultToJson() throws Exception {
+        // Given
+        when(factureService.getAllFactures()).thenReturn(new PageDto<>(List.of(testFactureDto), null));
+        
+        // When & Then
+        mockMvc.perform(get("/api/factures"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].numero").value("FAC-2024-0001"));
+    }
+    
+    @Test
+    @WithMockUser
+    void getFactureById_ShouldReturnEtagAndCacheControl() throws Exception {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        
+        // When & Then
+        mockMvc.perform(get("/api/factures/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, must-revalidate, private"))
+                .andExpect(jsonPath("$.numero").value("FAC-2024-0001"));
+    }
+    
+    @Test
+    @WithMockUser
+    void getFactureById_MatchingEtag_ShouldReturn304WithoutLoading() throws Exception {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        String etag = mockMvc.perform(get("/api/factures/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        
+        // When & Then
+        mockMvc.perform(get("/api/factures/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(factureService, times(1)).getFactureById(1L);
+    }
+    
+    @Test
+    @WithMockUser
+    void getFactureById_ClientChanged_ShouldReturnNewEtag() throws Exception {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        String etag = mockMvc.perform(get("/api/factures/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        testFactureDto.getClient().setNom("Entreprise Beta");
+        
+        // When
+        etagsFactures.invaliderClient(1L);
+        
+        // Then
+        mockMvc.perform(get("/api/factures/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.client.nom").value("Entreprise Beta"));
+        verify(factureService, times(2)).getFactureById(1L);
+    }
+    
+    @Test
+    @WithMockUser
+    void getFactureById_AcceptCbor_ShouldReturnFormatEtagAndVaryAccept() throws Exception {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        String etagJson = mockMvc.perform(get("/api/factures/1"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etagJson);
+        
+        // When & Then : l'ETag JSON ne valide pas la représentation CBOR
+        String etagCbor = mockMvc.perform(get("/api/factures/1").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, etagJson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(EtagsFactures.variante(etagJson, "cbor"), etagCbor);
+        
+        mockMvc.perform(get("/api/factures/1").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, etagCbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etagCbor))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/api/factures/1").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etagCbor))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etagJson));
+    }
+    
+    @Test
+    @WithMockUser
+    void exportFactureJson_AcceptSmile_ShouldReturnSmileEtag() throws Exception {
+        // Given
+        when(factureService.exportFactureJson(1L)).thenReturn(testFactureDto);
+        
+        // When
+        String etagSmile = mockMvc.perform(get("/api/factures/1/export").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // Then
+        assertEquals(EtagsFactures.variante(etagsFactures.etag(1L), "x-jackson-smile"), etagSmile);
+    }
+    
+    @Test
+    void format_ShouldFollowAcceptQualities() {
+        // When & Then
+        assertEquals(MediaType.APPLICATION_JSON, FactureController.format(null));
+        assertEquals(MediaType.APPLICATION_JSON, FactureController.format("*/*"));
+        assertEquals(MediaType.APPLICATION_CBOR, FactureController.format("application/json;q=0.5, application/cbor"));
+        assertEquals(MediaType.valueOf("application/x-jackson-smile"),
+                FactureController.format("application/*;q=0.2, application/x-jackson-smile"));
+        assertEquals(MediaType.APPLICATION_JSON, FactureController.format("application/cbor;q=0, */*;q=0.1"));
+        assertNull(FactureController.format("text/html"));
+    }
+    
+    @Test
+    @WithMockUser
+    void createFacture_RetriedWithIdempotencyKey_ShouldReplayWithoutRecreating() throws Exception {
+        // Given
+        when(factureService.createFacture(any(FactureDto.class))).thenReturn(testFactureDto);
+        String corps = demande("Développement application web");
+        mockMvc.perform(post("/api/factures").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(corps)
+                        .header("Idempotency-Key", "erp-42"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+        
+        // When & Then
+        mockMvc.perform(post("/api/factures").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(corps)
+                        .header("Idempotency-Key", "erp-42"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.numero").value("FAC-2024-0001"));
+        verify(factureService, times(1)).createFacture(any(FactureDto.class));
+    }
+    
+    @Test
+    @WithMockUser
+    void createFacture_IdempotencyKeyReusedForOtherInvoice_ShouldReturn422() throws Exception {
+        // Given
+        when(factureService.createFacture(any(FactureDto.class))).thenReturn(testFactureDto);
+        mockMvc.perform(post("/api/factures").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(demande("Développement application web"))
+                        .header("Idempotency-Key", "erp-43"))
+                .andExpect(status().isCreated());
+        
+        // When & Then
+        mockMvc.perform(post("/api/factures").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(demande("Maintenance application web"))
+                        .header("Idempotency-Key", "erp-43"))
+                .andExpect(status().isUnprocessableEntity());
+        verify(factureService, times(1)).createFacture(any(FactureDto.class));
+    }
+    
+    private static String demande(String description) {
+        return """
+                {"date":"2024-01-15","clientId":1,"lignes":[{"description":"%s","quantite":10,"prixUnitaireHT":80,"tauxTVA":20}]}
+                """.formatted(description);
+    }
+}
@@ -0,0 +1,152 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.dto.FactureBatchResultDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.service.FactureService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration de la pagination par curseur : parcours complet avec des dates à égalité,
+ * curseurs modifiés ou abîmés et listes complètes bornées
+ */
+@SpringBootTest(properties = "billing.pagination.list-max=5")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaginationIntegrationTest {
+    
+    private static final int NOMBRE_FACTURES = 11;
+    private static final LocalDate DATE = LocalDate.of(2033, 4, 1);
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @BeforeAll
+    void setUp() {
+        // Trois dates seulement : la plupart des limites de page tombent entre deux factures de même date
+        List<FactureDto> factures = new ArrayList<>();
+        for (int i = 0; i < NOMBRE_FACTURES; i++) {
+            LigneFactureDto ligne = new LigneFactureDto("Prestation " + i, BigDecimal.ONE,
+                    new BigDecimal("10.00"), new BigDecimal("20"));
+            factures.add(new FactureDto(DATE.plusDays(i % 3), 1L, List.of(ligne)));
+        }
+        FactureBatchResultDto resultat = factureService.createFacturesBatch(factures);
+        assertEquals(NOMBRE_FACTURES, resultat.getNombreSucces());
+    }
+    
+    @Test
+    @WithMockUser
+    void facturesPage_WalkWithTiedDates_ShouldReturnEachInvoiceOnceInOrder() throws Exception {
+        // Given
+        List<JsonNode> lues = new ArrayList<>();
+        String curseur = null;
+        int pages = 0;
+        
+        // When
+        do {
+            MockHttpServletRequestBuilder requete = get("/api/factures/page").param("size", "4");
+            if (curseur != null) {
+                requete.param("after", curseur);
+            }
+            JsonNode page = lire(requete);
+            page.get("items").forEach(lues::add);
+            curseur = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertEquals(curseur != null, page.get("hasNext").asBoolean());
+            pages++;
+        } while (curseur != null && pages < 20);
+        
+        // Then : 3 factures initiales + 11 créées, sans doublon ni oubli, triées par (date, ID)
+        assertNull(curseur);
+        assertEquals(4, pages);
+        assertEquals(3 + NOMBRE_FACTURES, lues.size());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < lues.size(); i++) {
+            assertTrue(ids.add(lues.get(i).get("id").asLong()));
+            if (i > 0) {
+                LocalDate precedente = LocalDate.parse(lues.get(i - 1).get("date").asText());
+                LocalDate date = LocalDate.parse(lues.get(i).get("date").asText());
+                assertTrue(precedente.isBefore(date) || precedente.equals(date)
+                        && lues.get(i - 1).get("id").asLong() < lues.get(i).get("id").asLong());
+            }
+        }
+    }
+    
+    @Test
+    @WithMockUser
+    void facturesPage_TamperedOrGarbledCursor_ShouldReturn400() throws Exception {
+        // Given : curseur valide dont la clé est remplacée, signature conservée
+        String curseur = lire(get("/api/factures/page").param("size", "2")).get("nextCursor").asText();
+        String signature = curseur.substring(curseur.lastIndexOf('.'));
+        String modifie = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-01-15|1".getBytes(StandardCharsets.UTF_8)) + signature;
+        
+        // When & Then
+        for (String invalide : List.of(modifie, curseur.substring(0, curseur.length() - 2), "MjAyNC0wMS0xNXwx",
+                "n'importe quoi", curseur.replace('.', '-'))) {
+            mockMvc.perform(get("/api/factures/page").param("after", invalide))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/clients/page").param("after", curseur))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/factures/page").param("after", curseur))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @WithMockUser
+    void allFactures_ShouldBeBoundedAndLinkToPagination() throws Exception {
+        // When
+        String liens = mockMvc.perform(get("/api/factures"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("</api/factures/page>; rel=\"successor-version\"")))
+                .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+        
+        // Then : la suite de la liste commence après la cinquième facture
+        String suivante = liens.substring(liens.indexOf("?after=") + 7, liens.indexOf(">; rel=\"next\""));
+        JsonNode page = lire(get("/api/factures/page").param("after", suivante).param("size", "200"));
+        assertEquals(3 + NOMBRE_FACTURES - 5, page.get("items").size());
+        mockMvc.perform(get("/api/clients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(header().string(HttpHeaders.LINK, "</api/clients/page>; rel=\"successor-version\""));
+    }
+    
+    private JsonNode lire(MockHttpServletRequestBuilder requete) throws Exception {
+        String corps = mockMvc.perform(requete)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(corps);
+    }
+}
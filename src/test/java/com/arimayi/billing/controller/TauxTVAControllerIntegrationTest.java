@@ -0,0 +1,97 @@
+package com.arimayi.billing.controller;
+
+import com.arimayi.billing.entity.TauxTVA;
+import com.arimayi.billing.repository.TauxTVARepository;
+import com.arimayi.billing.service.RegistreTauxTVA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration des taux de TVA : droits de remplacement, conservation en base et rechargement
+ */
+@SpringBootTest(properties = "billing.tva.refresh-interval=1h")
+@AutoConfigureMockMvc
+class TauxTVAControllerIntegrationTest {
+    
+    private static final List<BigDecimal> TAUX_INITIAUX = List.of(new BigDecimal("0.00"), new BigDecimal("5.50"),
+            new BigDecimal("10.00"), new BigDecimal("20.00"));
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private RegistreTauxTVA registreTauxTVA;
+    
+    @Autowired
+    private TauxTVARepository tauxTVARepository;
+    
+    @AfterEach
+    void tearDown() {
+        registreTauxTVA.remplacer(TAUX_INITIAUX);
+    }
+    
+    @Test
+    void remplacerTaux_AsUser_ShouldReturn403() throws Exception {
+        // When & Then
+        mockMvc.perform(put("/api/taux-tva").with(httpBasic("user", "user123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2.1, 20]"))
+                .andExpect(status().isForbidden());
+        assertEquals(TAUX_INITIAUX, registreTauxTVA.getTaux());
+        assertEquals(TAUX_INITIAUX, tauxEnBase());
+    }
+    
+    @Test
+    void remplacerTaux_AsAdmin_ShouldPersistRates() throws Exception {
+        // When
+        mockMvc.perform(put("/api/taux-tva").with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2.1, 20]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        
+        // Then
+        List<BigDecimal> attendus = List.of(new BigDecimal("2.10"), new BigDecimal("20.00"));
+        assertEquals(attendus, registreTauxTVA.getTaux());
+        assertEquals(attendus, tauxEnBase());
+    }
+    
+    @Test
+    void recharger_RatesReplacedByAnotherNode_ShouldApplyThem() throws Exception {
+        // Given : remplacement écrit dans la table par un autre nœud
+        tauxTVARepository.deleteAllInBatch();
+        tauxTVARepository.saveAll(List.of(new TauxTVA(new BigDecimal("8.50")), new TauxTVA(new BigDecimal("20.00"))));
+        
+        // When
+        registreTauxTVA.recharger();
+        
+        // Then
+        mockMvc.perform(get("/api/taux-tva").with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(8.5))
+                .andExpect(jsonPath("$[1]").value(20.0));
+        assertFalse(registreTauxTVA.estAutorise(BigDecimal.TEN));
+    }
+    
+    private List<BigDecimal> tauxEnBase() {
+        return tauxTVARepository.findAll().stream()
+                .map(TauxTVA::getTaux)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+}
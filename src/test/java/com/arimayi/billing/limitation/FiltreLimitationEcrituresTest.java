@@ -0,0 +1,123 @@
+package com.arimayi.billing.limitation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de la limitation des écritures (seau à jetons par utilisateur, écritures simultanées)
+ */
+class FiltreLimitationEcrituresTest {
+    
+    private final AtomicLong horloge = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private FiltreLimitationEcritures filtre;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        LimiteurEcritures limiteur = new LimiteurEcritures(
+                Map.of("factures", new LimiteurEcritures.Debit(1, 2), "clients", new LimiteurEcritures.Debit(1, 1)),
+                1, Duration.ZERO, meterRegistry, horloge::get);
+        filtre = new FiltreLimitationEcritures(limiteur, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+    
+    @Test
+    void writesBeyondBurst_ShouldReturn429WithRetryAfter() throws Exception {
+        // Given
+        assertEquals(200, executer("POST", "/api/factures", "erp").getStatus());
+        assertEquals(200, executer("POST", "/api/factures", "erp").getStatus());
+        
+        // When
+        MockHttpServletResponse response = executer("POST", "/api/factures", "erp");
+        
+        // Then
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("\"status\":429"));
+        assertEquals(1.0, meterRegistry.get("billing.limitation.rejets")
+                .tags("groupe", "factures", "utilisateur", "erp", "motif", LimiteurEcritures.MOTIF_DEBIT)
+                .counter().count());
+    }
+    
+    @Test
+    void bucket_ShouldRefillOverTime() throws Exception {
+        // Given
+        executer("POST", "/api/clients", "erp");
+        assertEquals(429, executer("POST", "/api/clients", "erp").getStatus());
+        
+        // When
+        horloge.addAndGet(Duration.ofSeconds(1).toNanos());
+        
+        // Then
+        assertEquals(200, executer("POST", "/api/clients", "erp").getStatus());
+    }
+    
+    @Test
+    void buckets_ShouldBeKeptPerUserAndGroup() throws Exception {
+        // Given
+        executer("POST", "/api/clients", "erp");
+        assertEquals(429, executer("PUT", "/api/clients/1", "erp").getStatus());
+        
+        // When & Then
+        assertEquals(200, executer("POST", "/api/clients", "admin").getStatus());
+        assertEquals(200, executer("POST", "/api/factures", "erp").getStatus());
+    }
+    
+    @Test
+    void reads_ShouldNotBeLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, executer("GET", "/api/clients", "erp").getStatus());
+        }
+    }
+    
+    @Test
+    void concurrentWritesBeyondLimit_ShouldReturn503() throws Exception {
+        // Given : une écriture en cours occupe la seule place
+        AtomicReference<MockHttpServletResponse> imbriquee = new AtomicReference<>();
+        FilterChain chaine = (request, response) -> imbriquee.set(executer("POST", "/api/factures", "admin"));
+        
+        // When
+        filtre.doFilter(requete("POST", "/api/factures", "erp"), new MockHttpServletResponse(), chaine);
+        
+        // Then
+        assertEquals(503, imbriquee.get().getStatus());
+        assertEquals("1", imbriquee.get().getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("billing.limitation.rejets")
+                .tags("utilisateur", "admin", "motif", LimiteurEcritures.MOTIF_CONCURRENCE).counter().count());
+        assertEquals(200, executer("POST", "/api/factures", "admin").getStatus());
+        assertEquals(0.0, meterRegistry.get("billing.limitation.ecritures.en.cours").gauge().value());
+    }
+    
+    private MockHttpServletResponse executer(String methode, String chemin, String utilisateur)
+            throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtre.doFilter(requete(methode, chemin, utilisateur), response, new MockFilterChain());
+        return response;
+    }
+    
+    private static MockHttpServletRequest requete(String methode, String chemin, String utilisateur) {
+        MockHttpServletRequest request = new MockHttpServletRequest(methode, chemin);
+        request.setUserPrincipal(UsernamePasswordAuthenticationToken.authenticated(utilisateur, null, List.of()));
+        return request;
+    }
+}
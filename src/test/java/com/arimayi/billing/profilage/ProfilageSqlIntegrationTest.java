@@ -0,0 +1,73 @@
+package com.arimayi.billing.profilage;
+
+import com.arimayi.billing.service.FactureService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d'intégration du profilage SQL : profil par requête HTTP et totaux en en-têtes
+ */
+@SpringBootTest(properties = "billing.sql.profiler.headers=true")
+@AutoConfigureMockMvc
+class ProfilageSqlIntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ProfileurSql profileurSql;
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @Test
+    @WithMockUser
+    void request_ShouldReturnSqlTotalsInHeaders() throws Exception {
+        mockMvc.perform(get("/api/factures/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(FiltreProfilageSql.ENTETE_NOMBRE, "2"))
+                .andExpect(header().string(FiltreProfilageSql.ENTETE_DUREE, startsWith("sql;dur=")));
+    }
+    
+    @Test
+    void profil_ShouldRecordEachStatementWithParameterShape() {
+        // Given
+        profileurSql.demarrer(true);
+        
+        // When
+        factureService.getFactureById(1L);
+        ProfilSql profil = profileurSql.terminer();
+        
+        // Then
+        assertEquals(2, profil.getRequetes());
+        assertEquals(2, profil.getMesures().size());
+        assertTrue(profil.getDureeNanos() > 0);
+        ProfilSql.MesureSql chargement = profil.getMesures().get(0);
+        assertTrue(chargement.sql().startsWith("select"), chargement.sql());
+        assertEquals("[Long]", chargement.parametres());
+        assertNull(profileurSql.terminer());
+    }
+    
+    @Test
+    void profil_NotSampled_ShouldOnlyCount() {
+        // Given
+        profileurSql.demarrer(false);
+        
+        // When
+        factureService.getFactureById(1L);
+        ProfilSql profil = profileurSql.terminer();
+        
+        // Then
+        assertEquals(2, profil.getRequetes());
+        assertTrue(profil.getMesures().isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.arimayi.billing.routage;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.exception.ResourceNotFoundException;
+import com.arimayi.billing.service.ClientService;
+import com.arimayi.billing.service.EtagsFactures;
+import com.arimayi.billing.service.FactureService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration du routage lecture/écriture sur deux bases H2 (profil replicas).
+ * La réplication et les vérifications de santé sont déclenchées par les tests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:billing-routage",
+        "billing.datasource.replicas.urls=jdbc:h2:mem:billing-routage-replica;DB_CLOSE_DELAY=-1",
+        "billing.datasource.replication.interval=1h",
+        "billing.datasource.replicas.health-check-interval=1h",
+        "billing.datasource.replicas.max-lag=1h"
+})
+@ActiveProfiles("replicas")
+class RoutageSourceDeDonneesIntegrationTest {
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @Autowired
+    private ClientService clientService;
+    
+    @Autowired
+    private EtagsFactures etagsFactures;
+    
+    @Autowired
+    private ReplicationSimulee replicationSimulee;
+    
+    @Autowired
+    private SurveillanceReplicas surveillanceReplicas;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        replicationSimulee.synchroniser();
+        surveillanceReplicas.verifier();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void replica_ShouldServeReplicatedData() {
+        // When
+        FactureDto facture = factureService.getFactureById(1L);
+        
+        // Then
+        assertTrue(surveillanceReplicas.isDisponible(0));
+        assertEquals(1L, facture.getId());
+    }
+    
+    @Test
+    void readOnlyRead_BeforeReplication_ShouldNotSeeNewInvoice() throws Exception {
+        // Given
+        Long id = factureService.createFacture(nouvelleFacture()).getId();
+        
+        // When & Then : la lecture est servie par le réplica, pas encore à jour
+        assertThrows(ResourceNotFoundException.class, () -> factureService.getFactureById(id));
+        replicationSimulee.synchroniser();
+        assertEquals(id, factureService.getFactureById(id).getId());
+    }
+    
+    @Test
+    void readOnlyRead_AfterOwnWrite_ShouldSeeNewInvoice() {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        
+        // When
+        Long id = factureService.createFacture(nouvelleFacture()).getId();
+        
+        // Then : lecture sur la base principale pendant la fenêtre qui suit l'écriture
+        assertEquals(id, factureService.getFactureById(id).getId());
+    }
+    
+    @Test
+    void cacheLoads_AfterAnotherUsersUpdate_ShouldNotCacheReplicaState() throws Exception {
+        // Given : client 2 et l'ETag de sa facture 2 en cache, puis modification du client par alice
+        ClientDto avant = clientService.getClientById(2L);
+        String etagAvant = etagsFactures.charger(2L, factureService::getFactureById).etag();
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        clientService.updateClient(2L, new ClientDto("Beta Renommee", avant.getEmail(), avant.getSiret()));
+        
+        // When : bob relit avant la réplication ; le réplica a encore l'ancien nom
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("bob", null, List.of()));
+        ClientDto relu = clientService.getClientById(2L);
+        EtagsFactures.FactureEtiquetee factureRelue = etagsFactures.charger(2L, factureService::getFactureById);
+        
+        // Then : les caches sont remplis depuis la base principale
+        assertEquals("Beta Renommee", relu.getNom());
+        assertEquals("Beta Renommee", factureRelue.facture().getClient().getNom());
+        assertNotEquals(etagAvant, factureRelue.etag());
+        assertEquals(factureRelue.etag(), etagsFactures.etag(2L));
+        assertEquals("Beta Renommee", clientService.getClientById(2L).getNom());
+        
+        // Les lectures non mises en cache restent servies par le réplica
+        assertEquals(avant.getNom(), factureService.getFactureById(2L).getClient().getNom());
+    }
+    
+    private static FactureDto nouvelleFacture() {
+        LigneFactureDto ligne = new LigneFactureDto("Prestation", BigDecimal.ONE, new BigDecimal("100.00"),
+                new BigDecimal("20"));
+        return new FactureDto(LocalDate.of(2024, 6, 1), 1L, List.of(ligne));
+    }
+}
@@ -0,0 +1,122 @@
+package com.arimayi.billing.routage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires du choix de la source de données par SourceDeDonneesRoutee
+ */
+@ExtendWith(MockitoExtension.class)
+class SourceDeDonneesRouteeTest {
+    
+    @Mock
+    private DataSource primaire;
+    
+    @Mock
+    private DataSource replica;
+    
+    @Mock
+    private SurveillanceReplicas surveillance;
+    
+    private EcrituresRecentes ecrituresRecentes;
+    private SourceDeDonneesRoutee source;
+    
+    @BeforeEach
+    void setUp() {
+        ecrituresRecentes = new EcrituresRecentes(Duration.ofMinutes(1));
+        source = new SourceDeDonneesRoutee(primaire, List.of(replica), surveillance, ecrituresRecentes);
+        TransactionSynchronizationManager.initSynchronization();
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void readOnlyTransaction_ShouldUseAvailableReplica() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(surveillance.choisir()).thenReturn(0);
+        
+        // When & Then
+        assertEquals(0, source.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void readOnlyTransaction_NoReplicaAvailable_ShouldUsePrimary() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(surveillance.choisir()).thenReturn(null);
+        
+        // When & Then
+        assertEquals(SourceDeDonneesRoutee.PRIMAIRE, source.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void writeTransaction_ShouldUsePrimaryAndOpenReadYourWritesWindowOnCommit() {
+        // When
+        Object cle = source.determineCurrentLookupKey();
+        assertFalse(ecrituresRecentes.estRecente("alice"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        
+        // Then
+        assertEquals(SourceDeDonneesRoutee.PRIMAIRE, cle);
+        assertTrue(ecrituresRecentes.estRecente("alice"));
+        verifyNoInteractions(surveillance);
+    }
+    
+    @Test
+    void readOnlyTransaction_AfterOwnWrite_ShouldUsePrimary() {
+        // Given
+        ecrituresRecentes.enregistrer("alice");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // When & Then
+        assertEquals(SourceDeDonneesRoutee.PRIMAIRE, source.determineCurrentLookupKey());
+        verifyNoInteractions(surveillance);
+    }
+    
+    @Test
+    void readOnlyTransaction_OtherUserWrote_ShouldUseReplica() {
+        // Given
+        ecrituresRecentes.enregistrer("bob");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(surveillance.choisir()).thenReturn(0);
+        
+        // When & Then
+        assertEquals(0, source.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void readOnlyTransaction_CacheLoad_ShouldUsePrimary() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // When
+        Object cle = LecturePrimaire.executer(source::determineCurrentLookupKey);
+        
+        // Then
+        assertEquals(SourceDeDonneesRoutee.PRIMAIRE, cle);
+        assertFalse(LecturePrimaire.estDemandee());
+        verifyNoInteractions(surveillance);
+    }
+}
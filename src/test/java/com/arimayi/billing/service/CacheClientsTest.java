@@ -0,0 +1,116 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.CacheStatistiquesDto;
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour CacheClients
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheClientsTest {
+    
+    @Mock
+    private ClientRepository clientRepository;
+    
+    @InjectMocks
+    private CacheClients cacheClients;
+    
+    private Client testClient;
+    
+    @BeforeEach
+    void setUp() {
+        cacheClients.initialiser();
+        testClient = new Client("Test Client", "test@example.com", "12345678901234");
+        testClient.setId(1L);
+    }
+    
+    @Test
+    void findById_SecondCall_ShouldBeServedFromCache() {
+        // Given
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(testClient));
+        
+        // When
+        Optional<Client> premier = cacheClients.findById(1L);
+        Optional<Client> second = cacheClients.findById(1L);
+        
+        // Then
+        assertEquals("Test Client", premier.orElseThrow().getNom());
+        assertSame(premier.orElseThrow(), second.orElseThrow());
+        verify(clientRepository, times(1)).findById(1L);
+        
+        CacheStatistiquesDto stats = cacheClients.statistiques().get(0);
+        assertEquals(1, stats.getSucces());
+        assertEquals(1, stats.getEchecs());
+    }
+    
+    @Test
+    void findById_UnknownClient_ShouldNotBeCached() {
+        // Given
+        when(clientRepository.findById(2L)).thenReturn(Optional.empty());
+        
+        // When & Then
+        assertFalse(cacheClients.existsById(2L));
+        assertFalse(cacheClients.existsById(2L));
+        verify(clientRepository, times(2)).findById(2L);
+    }
+    
+    @Test
+    void findByEmail_ShouldAlsoFillIdCache() {
+        // Given
+        when(clientRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testClient));
+        
+        // When
+        Optional<Client> client = cacheClients.findByEmail("test@example.com");
+        
+        // Then
+        assertTrue(client.isPresent());
+        assertTrue(cacheClients.findById(1L).isPresent());
+        verify(clientRepository, never()).findById(1L);
+    }
+    
+    @Test
+    void invalider_ShouldForceReload() {
+        // Given
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(testClient));
+        when(clientRepository.findBySiret("12345678901234")).thenReturn(Optional.of(testClient));
+        cacheClients.findBySiret("12345678901234");
+        
+        // When
+        cacheClients.invalider(testClient);
+        testClient.setNom("Nouveau nom");
+        
+        // Then
+        assertEquals("Nouveau nom", cacheClients.findById(1L).orElseThrow().getNom());
+        cacheClients.findBySiret("12345678901234");
+        verify(clientRepository, times(2)).findBySiret("12345678901234");
+    }
+    
+    @Test
+    void findById_InvalidatedDuringLoad_ShouldNotCacheStaleValue() {
+        // Given
+        when(clientRepository.findById(1L)).thenAnswer(invocation -> {
+            cacheClients.invalider(testClient);
+            return Optional.of(testClient);
+        }).thenReturn(Optional.of(testClient));
+        
+        // When
+        cacheClients.findById(1L);
+        cacheClients.findById(1L);
+        cacheClients.findById(1L);
+        
+        // Then
+        verify(clientRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,206 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.ChiffreAffairesClientDto;
+import com.arimayi.billing.dto.ChiffreAffairesMensuelDto;
+import com.arimayi.billing.dto.ChiffreAffairesTauxDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.VerificationCumulsDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.arimayi.billing.support.CompteurRequetesSql.verifierBudget;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration pour ChiffreAffairesService et CumulChiffreAffairesService :
+ * une seule requête d'agrégation par appel, cumuls mensuels cohérents avec les factures
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.arimayi.billing.support.CompteurRequetesSql")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChiffreAffairesServiceIntegrationTest {
+    
+    private static final LocalDate DEBUT = LocalDate.of(2032, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2033, 12, 31);
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @Autowired
+    private ChiffreAffairesService chiffreAffairesService;
+    
+    @Autowired
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int taillePool;
+    
+    @BeforeAll
+    void setUp() {
+        // 24 factures, une par mois sur deux ans, alternées entre les clients 1 et 2
+        List<FactureDto> factures = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            LigneFactureDto ligne = new LigneFactureDto("Prestation " + i, new BigDecimal("2"),
+                    new BigDecimal("100.00"), new BigDecimal("20"));
+            LigneFactureDto ligneReduite = new LigneFactureDto("Livre " + i, BigDecimal.ONE,
+                    new BigDecimal("15.00"), new BigDecimal("5.5"));
+            factures.add(new FactureDto(DEBUT.plusMonths(i), (long) (i % 2) + 1, Arrays.asList(ligne, ligneReduite)));
+        }
+        assertEquals(24, factureService.createFacturesBatch(factures).getNombreSucces());
+    }
+    
+    @Test
+    void getParMois_ShouldAggregateInSingleQuery() {
+        List<ChiffreAffairesMensuelDto> mois = verifierBudget(1, () -> chiffreAffairesService.getParMois(DEBUT, FIN));
+        
+        assertEquals(24, mois.size());
+        assertEquals(2032, mois.get(0).annee());
+        assertEquals(1, mois.get(0).mois());
+        assertEquals(12, mois.get(23).mois());
+        assertEquals(1L, mois.get(0).nombreFactures());
+        assertEquals(0, new BigDecimal("215.00").compareTo(mois.get(0).totalHT()));
+        assertEquals(0, new BigDecimal("255.83").compareTo(mois.get(0).totalTTC()));
+    }
+    
+    @Test
+    void getParClient_ShouldAggregateInSingleQuery() {
+        List<ChiffreAffairesClientDto> clients = verifierBudget(1, () -> chiffreAffairesService.getParClient(DEBUT, FIN));
+        
+        assertEquals(2, clients.size());
+        assertEquals(12L, clients.get(0).nombreFactures());
+        assertEquals(0, new BigDecimal("2580.00").compareTo(clients.get(0).totalHT()));
+        assertEquals(0, new BigDecimal("489.96").compareTo(clients.get(1).totalTVA()));
+    }
+    
+    @Test
+    void getParTauxTVA_ShouldAggregateLinesInSingleQuery() {
+        List<ChiffreAffairesTauxDto> taux = verifierBudget(1, () -> chiffreAffairesService.getParTauxTVA(DEBUT, FIN));
+        
+        assertEquals(2, taux.size());
+        assertEquals(0, new BigDecimal("5.5").compareTo(taux.get(0).tauxTVA()));
+        assertEquals(0, new BigDecimal("360.00").compareTo(taux.get(0).totalHT()));
+        assertEquals(0, new BigDecimal("19.92").compareTo(taux.get(0).totalTVA()));
+        assertEquals(0, new BigDecimal("4800.00").compareTo(taux.get(1).totalHT()));
+        assertEquals(48L, taux.get(0).nombreLignes() + taux.get(1).nombreLignes());
+    }
+    
+    @Test
+    void getParMois_PartialMonths_ShouldMatchRollup() {
+        // Période décalée d'un jour : lue dans les factures et non dans les cumuls
+        List<ChiffreAffairesMensuelDto> factures = chiffreAffairesService.getParMois(DEBUT.minusDays(1), FIN.plusDays(1));
+        List<ChiffreAffairesMensuelDto> cumuls = chiffreAffairesService.getParMois(DEBUT, FIN);
+        
+        assertEquals(cumuls.size(), factures.size());
+        for (int i = 0; i < cumuls.size(); i++) {
+            assertEquals(cumuls.get(i).nombreFactures(), factures.get(i).nombreFactures());
+            assertEquals(0, cumuls.get(i).totalTTC().compareTo(factures.get(i).totalTTC()));
+        }
+    }
+    
+    @Test
+    void createFacture_ShouldKeepRollupConsistent() {
+        // Given
+        LigneFactureDto ligne = new LigneFactureDto("Prestation", BigDecimal.ONE, new BigDecimal("99.99"), new BigDecimal("10"));
+        
+        // When
+        factureService.createFacture(new FactureDto(DEBUT.plusYears(5), 3L, List.of(ligne)));
+        
+        // Then
+        VerificationCumulsDto verification = cumulChiffreAffairesService.verifier();
+        assertTrue(verification.isCoherent(), () -> String.join("\n", verification.getEcarts()));
+        assertEquals(1L, chiffreAffairesService.getParClient(DEBUT.plusYears(5), DEBUT.plusYears(5).withDayOfMonth(31))
+                .get(0).nombreFactures());
+    }
+    
+    @Test
+    void createFacture_ConcurrentFirstInvoicesOfMonth_ShouldCreateSlotsInInvoiceTransaction() throws Exception {
+        // Given : autant de créations simultanées que de connexions du pool, toutes premières factures du mois
+        LocalDate mois = DEBUT.plusYears(6);
+        LigneFactureDto ligne = new LigneFactureDto("Prestation", BigDecimal.ONE, new BigDecimal("10.00"), new BigDecimal("20"));
+        ExecutorService executor = Executors.newFixedThreadPool(taillePool);
+        CountDownLatch depart = new CountDownLatch(1);
+        
+        // When
+        List<Future<FactureDto>> creations = new ArrayList<>();
+        for (int i = 0; i < taillePool; i++) {
+            creations.add(executor.submit(() -> {
+                depart.await();
+                return factureService.createFacture(new FactureDto(mois, 3L, List.of(ligne)));
+            }));
+        }
+        depart.countDown();
+        for (Future<FactureDto> creation : creations) {
+            assertNotNull(creation.get(10, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+        
+        // Then
+        VerificationCumulsDto verification = cumulChiffreAffairesService.verifier();
+        assertTrue(verification.isCoherent(), () -> String.join("\n", verification.getEcarts()));
+        assertEquals((long) taillePool, chiffreAffairesService.getParClient(mois, mois.withDayOfMonth(31))
+                .get(0).nombreFactures());
+    }
+    
+    @Test
+    void reconstruire_DuringConcurrentCreations_ShouldMatchInvoiceTotals() throws Exception {
+        // Given : des créations de factures en continu sur plusieurs threads, réparties sur 3 clients et 4 mois
+        LocalDate mois = DEBUT.plusYears(7);
+        LigneFactureDto ligne = new LigneFactureDto("Prestation", BigDecimal.ONE, new BigDecimal("12.34"), new BigDecimal("20"));
+        int createurs = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(createurs);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<?>> creations = new ArrayList<>();
+        for (int t = 0; t < createurs; t++) {
+            int createur = t;
+            creations.add(executor.submit(() -> {
+                depart.await();
+                for (int i = 0; i < 40; i++) {
+                    factureService.createFacture(new FactureDto(mois.plusMonths(i % 4), (long) (createur + i) % 3 + 1,
+                            List.of(ligne)));
+                }
+                return null;
+            }));
+        }
+        
+        // When : reconstructions répétées pendant les créations
+        depart.countDown();
+        for (int i = 0; i < 10; i++) {
+            cumulChiffreAffairesService.reconstruire();
+        }
+        for (Future<?> creation : creations) {
+            creation.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Then : cumuls identiques aux totaux GROUP BY des factures, sans delta perdu ni compté deux fois
+        VerificationCumulsDto verification = cumulChiffreAffairesService.verifier();
+        assertTrue(verification.isCoherent(), () -> String.join("\n", verification.getEcarts()));
+        assertEquals(createurs * 40L, chiffreAffairesService.getParMois(mois, mois.plusMonths(3).withDayOfMonth(30)).stream()
+                .mapToLong(ChiffreAffairesMensuelDto::nombreFactures).sum());
+    }
+    
+    @Test
+    void reconstruire_ShouldRebuildConsistentRollup() {
+        VerificationCumulsDto verification = cumulChiffreAffairesService.reconstruire();
+        
+        assertTrue(verification.isCoherent(), () -> String.join("\n", verification.getEcarts()));
+        assertTrue(verification.getNombreCumuls() >= 24);
+        assertEquals(24, chiffreAffairesService.getParMois(DEBUT, FIN).size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.exception.DuplicateResourceException;
+import com.arimayi.billing.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ClientService
+ */
+@ExtendWith(MockitoExtension.class)
+class ClientServiceTest {
+    
+    @Mock
+    private ClientRepository clientRepository;
+    
+    @Mock
+    private CacheClients cacheClients;
+    
+    @Mock
+    private IndexUniciteClients indexUnicite;
+    
+    @Mock
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    @Mock
+    private EtagsFactures etagsFactures;
+    
+    @Mock
+    private IndexRechercheFactures indexRecherche;
+    
+    @InjectMocks
+    private ClientService clientService;
+    
+    private ClientDto testClientDto;
+    
+    @BeforeEach
+    void setUp() {
+        testClientDto = new ClientDto("Nouveau Client", "nouveau@example.com", "98765432109876");
+        lenient().when(clientRepository.saveAndFlush(any(Client.class))).thenAnswer(invocation -> {
+            Client client = invocation.getArgument(0);
+            client.setId(2L);
+            return client;
+        });
+    }
+    
+    @Test
+    void createClient_UnknownValues_ShouldSkipExistenceQueries() {
+        // When
+        ClientDto result = clientService.createClient(testClientDto);
+        
+        // Then
+        assertEquals(2L, result.getId());
+        verify(clientRepository, never()).existsByEmail(anyString());
+        verify(clientRepository, never()).existsBySiret(anyString());
+        verify(indexUnicite).ajouter("nouveau@example.com", "98765432109876");
+    }
+    
+    @Test
+    void createClient_IndexedEmail_ShouldConfirmInDatabase() {
+        // Given
+        testClientDto.setEmail("test@example.com");
+        when(indexUnicite.emailPeutExister("test@example.com")).thenReturn(true);
+        when(clientRepository.existsByEmail("test@example.com")).thenReturn(true);
+        
+        // When & Then
+        assertThrows(DuplicateResourceException.class, () -> clientService.createClient(testClientDto));
+        verify(clientRepository, never()).saveAndFlush(any(Client.class));
+        verify(indexUnicite, never()).ajouter(anyString(), anyString());
+    }
+    
+    @Test
+    void createClient_ConcurrentInsert_ShouldTranslateConstraintViolation() {
+        // Given
+        when(clientRepository.saveAndFlush(any(Client.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UK_CLIENTS_SIRET_INDEX_A ON PUBLIC.CLIENTS(SIRET)\"")));
+        
+        // When & Then
+        DuplicateResourceException exception = assertThrows(DuplicateResourceException.class,
+                () -> clientService.createClient(testClientDto));
+        assertEquals("Un client avec ce SIRET existe déjà: 98765432109876", exception.getMessage());
+        verify(indexUnicite, never()).ajouter(anyString(), anyString());
+    }
+    
+    @Test
+    void updateClient_ChangedEmail_ShouldReleaseOldValue() {
+        // Given
+        Client existant = new Client("Test Client", "test@example.com", "12345678901234");
+        existant.setId(1L);
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(existant));
+        testClientDto.setSiret("12345678901234");
+        
+        // When
+        clientService.updateClient(1L, testClientDto);
+        
+        // Then
+        verify(indexUnicite, never()).siretPeutExister(anyString());
+        verify(indexUnicite).ajouter("nouveau@example.com", "12345678901234");
+        verify(indexUnicite).retirerApresValidation("test@example.com", null);
+        verify(cacheClients).invalider(existant);
+        verify(etagsFactures).invaliderClient(1L);
+    }
+}
@@ -0,0 +1,144 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.FactureBatchResultDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.FactureResumeDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.PageDto;
+import com.arimayi.billing.dto.VentilationTVADto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.arimayi.billing.support.CompteurRequetesSql.verifierBudget;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration pour FactureService : nombre de requêtes SQL borné quel que soit le nombre de factures
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.arimayi.billing.support.CompteurRequetesSql")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FactureServiceIntegrationTest {
+    
+    private static final int NOMBRE_FACTURES = 40;
+    private static final LocalDate DATE = LocalDate.of(2031, 3, 15);
+    
+    @Autowired
+    private FactureService factureService;
+    
+    @BeforeAll
+    void setUp() {
+        List<FactureDto> factures = new ArrayList<>();
+        for (int i = 0; i < NOMBRE_FACTURES; i++) {
+            LigneFactureDto ligne = new LigneFactureDto("Prestation " + i, new BigDecimal("2"),
+                    new BigDecimal("100.00"), new BigDecimal("20"));
+            LigneFactureDto ligneReduite = new LigneFactureDto("Livre " + i, BigDecimal.ONE,
+                    new BigDecimal("15.00"), new BigDecimal("5.5"));
+            factures.add(new FactureDto(DATE.plusDays(i % 3), (long) (i % 3) + 1, Arrays.asList(ligne, ligneReduite)));
+        }
+        FactureBatchResultDto resultat = factureService.createFacturesBatch(factures);
+        assertEquals(NOMBRE_FACTURES, resultat.getNombreSucces());
+    }
+    
+    @Test
+    void getAllFactures_ShouldNotIssueOneQueryPerInvoice() {
+        List<FactureDto> factures = verifierBudget(2, () -> factureService.getAllFactures()).getItems();
+        
+        assertTrue(factures.size() >= NOMBRE_FACTURES);
+        assertTrue(factures.stream().allMatch(facture -> facture.getClient() != null && !facture.getLignes().isEmpty()));
+    }
+    
+    @Test
+    void getFacturesByClient_ShouldNotIssueOneQueryPerInvoice() {
+        List<FactureDto> factures = verifierBudget(3, () -> factureService.getFacturesByClient(1L));
+        
+        assertTrue(factures.size() >= NOMBRE_FACTURES / 3);
+    }
+    
+    @Test
+    void getFacturesByDate_ShouldNotIssueOneQueryPerInvoice() {
+        List<FactureDto> factures = verifierBudget(2, () -> factureService.getFacturesByDate(DATE));
+        
+        assertEquals(14, factures.size());
+        assertEquals(2, factures.get(0).getLignes().size());
+    }
+    
+    @Test
+    void getFacturesByDateRange_ShouldNotIssueOneQueryPerInvoice() {
+        List<FactureDto> factures = verifierBudget(2,
+                () -> factureService.getFacturesByDateRange(DATE, DATE.plusDays(2)));
+        
+        assertEquals(NOMBRE_FACTURES, factures.size());
+    }
+    
+    @Test
+    void getFacturesPage_ShouldNotIssueOneQueryPerInvoice() {
+        PageDto<FactureDto> page = verifierBudget(2, () -> factureService.getFacturesPage(null, 20));
+        
+        assertEquals(20, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+    }
+    
+    @Test
+    void getFactureById_ShouldLoadClientAndLinesInTwoQueries() {
+        Long id = factureService.getFacturesByDate(DATE).get(0).getId();
+        
+        FactureDto facture = verifierBudget(2, () -> factureService.getFactureById(id));
+        
+        assertEquals(2, facture.getLignes().size());
+    }
+    
+    @Test
+    void getFactureById_ShouldReadPersistedVatBreakdownWithInvoice() {
+        // Given
+        FactureDto creee = factureService.createFacture(new FactureDto(DATE.minusYears(3), 2L, List.of(
+                new LigneFactureDto("Abonnement presse", new BigDecimal("2"), new BigDecimal("12.00"), new BigDecimal("5.50")),
+                new LigneFactureDto("Conseil", BigDecimal.ONE, new BigDecimal("400.00"), new BigDecimal("20")))));
+        
+        // When
+        FactureDto relue = verifierBudget(2, () -> factureService.getFactureById(creee.getId()));
+        
+        // Then
+        assertEquals(creee.getVentilationTVA(), relue.getVentilationTVA());
+        assertEquals(List.of(
+                new VentilationTVADto(new BigDecimal("5.50"), new BigDecimal("24.00"), new BigDecimal("1.32")),
+                new VentilationTVADto(new BigDecimal("20.00"), new BigDecimal("400.00"), new BigDecimal("80.00"))),
+                relue.getVentilationTVA());
+    }
+    
+    @Test
+    void getResumesByDateRange_ShouldUseSingleProjectionQuery() {
+        List<FactureResumeDto> resumes = verifierBudget(1,
+                () -> factureService.getResumesByDateRange(DATE, DATE.plusDays(2)));
+        
+        assertEquals(NOMBRE_FACTURES, resumes.size());
+        assertEquals("Entreprise Alpha", resumes.get(0).clientNom());
+        assertEquals(new BigDecimal("255.83"), resumes.get(0).totalTTC());
+    }
+    
+    @Test
+    void rechercherFactures_ShouldReturnRankedSummariesInOneQuery() {
+        // Given
+        LigneFactureDto audit = new LigneFactureDto("Audit sécurité du réseau", BigDecimal.ONE,
+                new BigDecimal("1500.00"), new BigDecimal("20"));
+        FactureDto creee = factureService.createFacture(new FactureDto(DATE.minusYears(2), 3L, List.of(audit)));
+        
+        // When
+        List<FactureResumeDto> resultats = verifierBudget(1, () -> factureService.rechercherFactures("AUDIT securite", 10));
+        
+        // Then
+        assertEquals(creee.getId(), resultats.get(0).id());
+        assertEquals("Compagnie Gamma", resultats.get(0).clientNom());
+        assertEquals(creee.getId(), factureService.rechercherFactures("compagnie gam reseau", 10).get(0).id());
+        assertTrue(factureService.rechercherFactures("audit alpha", 10).isEmpty());
+    }
+}
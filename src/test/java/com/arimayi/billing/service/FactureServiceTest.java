@@ -1,27 +1,44 @@
 package com.arimayi.billing.service;
 
+import com.arimayi.billing.dto.FactureBatchResultDto;
 import com.arimayi.billing.dto.FactureDto;
 import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.VentilationTVADto;
 import com.arimayi.billing.entity.Client;
 import com.arimayi.billing.entity.Facture;
 import com.arimayi.billing.exception.ResourceNotFoundException;
+import com.arimayi.billing.exception.InvalidFactureException;
 import com.arimayi.billing.exception.InvalidTVAException;
 import com.arimayi.billing.repository.ClientRepository;
 import com.arimayi.billing.repository.FactureRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,6 +53,36 @@ class FactureServiceTest {
     @Mock
     private ClientRepository clientRepository;
     
+    @Mock
+    private CacheClients cacheClients;
+    
+    @Mock
+    private NumerotationFactureService numerotationFactureService;
+    
+    @Mock
+    private CumulChiffreAffairesService cumulChiffreAffairesService;
+    
+    @Mock
+    private IndexRechercheFactures indexRecherche;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private EntityManager entityManager;
+    
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    @Spy
+    private RegistreTauxTVA registreTauxTVA = new RegistreTauxTVA();
+    
     @InjectMocks
     private FactureService factureService;
     
@@ -44,6 +91,8 @@ class FactureServiceTest {
     
     @BeforeEach
     void setUp() {
+        factureService.initialiserMesures();
+        
         // Création d'un client de test
         testClient = new Client("Test Client", "test@example.com", "12345678901234");
         testClient.setId(1L);
@@ -65,8 +114,8 @@ class FactureServiceTest {
     @Test
     void createFacture_WithValidData_ShouldReturnFactureDto() {
         // Given
-        when(clientRepository.findById(1L)).thenReturn(Optional.of(testClient));
-        when(factureRepository.countByYear(anyInt())).thenReturn(0L);
+        when(cacheClients.findById(1L)).thenReturn(Optional.of(testClient));
+        when(numerotationFactureService.allouerNumero(any(LocalDate.class))).thenReturn("FAC-2024-0001");
         when(factureRepository.save(any(Facture.class))).thenAnswer(invocation -> {
             Facture facture = invocation.getArgument(0);
             facture.setId(1L);
@@ -84,21 +133,25 @@ class FactureServiceTest {
         assertEquals(new BigDecimal("40.00"), result.getTotalTVA());
         assertEquals(new BigDecimal("240.00"), result.getTotalTTC());
         
-        verify(clientRepository).findById(1L);
+        verify(cacheClients).findById(1L);
         verify(factureRepository).save(any(Facture.class));
+        verify(cumulChiffreAffairesService).ajouter(anyList());
+        assertEquals(1, meterRegistry.get("billing.factures.creation").timer().count());
+        assertEquals(1, meterRegistry.get("billing.factures.numerotation").timer().count());
+        assertEquals(1, meterRegistry.get("billing.factures.conversion").timer().count());
     }
     
     @Test
     void createFacture_WithInvalidClient_ShouldThrowException() {
         // Given
-        when(clientRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cacheClients.findById(1L)).thenReturn(Optional.empty());
         
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> {
             factureService.createFacture(testFactureDto);
         });
         
-        verify(clientRepository).findById(1L);
+        verify(cacheClients).findById(1L);
         verify(factureRepository, never()).save(any(Facture.class));
     }
     
@@ -106,17 +159,56 @@ class FactureServiceTest {
     void createFacture_WithInvalidTVA_ShouldThrowException() {
         // Given
         testFactureDto.getLignes().get(0).setTauxTVA(new BigDecimal("15")); // Taux invalide
-        when(clientRepository.findById(1L)).thenReturn(Optional.of(testClient));
+        when(cacheClients.findById(1L)).thenReturn(Optional.of(testClient));
         
         // When & Then
         assertThrows(InvalidTVAException.class, () -> {
             factureService.createFacture(testFactureDto);
         });
         
-        verify(clientRepository).findById(1L);
+        verify(cacheClients).findById(1L);
         verify(factureRepository, never()).save(any(Facture.class));
     }
     
+    @Test
+    void createFacture_WithScaledTVA_ShouldAcceptRate() {
+        // Given
+        testFactureDto.getLignes().get(0).setTauxTVA(new BigDecimal("20.00")); // Échelle de la colonne taux_tva
+        when(cacheClients.findById(1L)).thenReturn(Optional.of(testClient));
+        when(numerotationFactureService.allouerNumero(any(LocalDate.class))).thenReturn("FAC-2024-0001");
+        when(factureRepository.save(any(Facture.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        FactureDto result = factureService.createFacture(testFactureDto);
+        
+        // Then
+        assertEquals(new BigDecimal("40.00"), result.getTotalTVA());
+        verify(factureRepository).save(any(Facture.class));
+    }
+    
+    @Test
+    void createFacture_WithSeveralRates_ShouldComputeBreakdownPerRate() {
+        // Given
+        testFactureDto.setLignes(Arrays.asList(
+                new LigneFactureDto("Livres", new BigDecimal("3"), new BigDecimal("10.00"), new BigDecimal("5.5")),
+                new LigneFactureDto("Service de test", new BigDecimal("2"), new BigDecimal("100.00"), new BigDecimal("20")),
+                new LigneFactureDto("Support", BigDecimal.ONE, new BigDecimal("50.00"), new BigDecimal("20.00"))));
+        when(cacheClients.findById(1L)).thenReturn(Optional.of(testClient));
+        when(numerotationFactureService.allouerNumero(any(LocalDate.class))).thenReturn("FAC-2024-0001");
+        when(factureRepository.save(any(Facture.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        FactureDto result = factureService.createFacture(testFactureDto);
+        
+        // Then
+        assertEquals(List.of(
+                new VentilationTVADto(new BigDecimal("5.50"), new BigDecimal("30.00"), new BigDecimal("1.65")),
+                new VentilationTVADto(new BigDecimal("20.00"), new BigDecimal("250.00"), new BigDecimal("50.00"))),
+                result.getVentilationTVA());
+        assertEquals(new BigDecimal("280.00"), result.getTotalHT());
+        assertEquals(new BigDecimal("51.65"), result.getTotalTVA());
+    }
+    
     @Test
     void getFactureById_WithValidId_ShouldReturnFactureDto() {
         // Given
@@ -149,4 +241,90 @@ class FactureServiceTest {
         
         verify(factureRepository).findById(1L);
     }
+    
+    @Test
+    void createFacturesBatch_ShouldReportEachItem() {
+        // Given
+        FactureDto factureClientInconnu = new FactureDto(LocalDate.of(2024, 3, 1), 99L, testFactureDto.getLignes());
+        FactureDto factureSansLigne = new FactureDto(LocalDate.of(2024, 3, 1), 1L, List.of());
+        FactureDto factureValide = new FactureDto(LocalDate.of(2024, 3, 2), 1L, testFactureDto.getLignes());
+        
+        when(clientRepository.findAllById(any())).thenReturn(List.of(testClient));
+        when(numerotationFactureService.allouerNumero(LocalDate.of(2024, 3, 2))).thenReturn("FAC-2024-0004");
+        when(factureRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<Facture> factures = invocation.getArgument(0);
+            factures.forEach(facture -> facture.setId(10L));
+            return List.of();
+        });
+        
+        // When
+        FactureBatchResultDto result = factureService.createFacturesBatch(
+                Arrays.asList(factureClientInconnu, factureSansLigne, factureValide));
+        
+        // Then
+        assertEquals(1, result.getNombreSucces());
+        assertEquals(2, result.getNombreEchecs());
+        assertFalse(result.getResultats().get(0).isSucces());
+        assertFalse(result.getResultats().get(1).isSucces());
+        assertTrue(result.getResultats().get(2).isSucces());
+        assertEquals("FAC-2024-0004", result.getResultats().get(2).getNumero());
+        
+        verify(clientRepository, never()).findById(any());
+        verify(entityManager).flush();
+    }
+    
+    @Test
+    void createFacturesBatch_NullItemOrLine_ShouldReportItemFailures() {
+        // Given
+        FactureDto factureLigneNulle = new FactureDto(LocalDate.of(2024, 3, 1), 1L, Arrays.asList((LigneFactureDto) null));
+        FactureDto factureValide = new FactureDto(LocalDate.of(2024, 3, 2), 1L, testFactureDto.getLignes());
+        
+        when(clientRepository.findAllById(any())).thenReturn(List.of(testClient));
+        when(numerotationFactureService.allouerNumero(LocalDate.of(2024, 3, 2))).thenReturn("FAC-2024-0005");
+        
+        // When
+        FactureBatchResultDto result = factureService.createFacturesBatch(
+                Arrays.asList(null, factureLigneNulle, factureValide));
+        
+        // Then
+        assertEquals(1, result.getNombreSucces());
+        assertEquals(2, result.getNombreEchecs());
+        assertEquals("Facture absente (null)", result.getResultats().get(0).getErreur());
+        assertTrue(result.getResultats().get(1).getErreur().contains("Une ligne de facture ne peut pas être vide"));
+        assertTrue(result.getResultats().get(2).isSucces());
+    }
+    
+    @Test
+    void createFacturesBatch_AboveMaxSize_ShouldThrowException() {
+        // Given
+        ReflectionTestUtils.setField(factureService, "tailleMaxLot", 2);
+        
+        // When & Then
+        InvalidFactureException ex = assertThrows(InvalidFactureException.class, () ->
+                factureService.createFacturesBatch(List.of(testFactureDto, testFactureDto, testFactureDto)));
+        assertTrue(ex.getMessage().contains("au plus 2 factures"));
+        verifyNoInteractions(clientRepository, factureRepository);
+    }
+    
+    @Test
+    void exportFacturesNdjson_ShouldWriteOneInvoicePerLine() throws Exception {
+        // Given
+        LocalDate debut = LocalDate.of(2024, 1, 1);
+        LocalDate fin = LocalDate.of(2024, 12, 31);
+        Facture premiere = new Facture(LocalDate.of(2024, 1, 15), testClient);
+        premiere.setNumero("FAC-2024-0001");
+        Facture seconde = new Facture(LocalDate.of(2024, 2, 1), testClient);
+        seconde.setNumero("FAC-2024-0002");
+        when(factureRepository.streamByDateBetween(debut, fin)).thenReturn(Stream.of(premiere, seconde));
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        
+        // When
+        factureService.exportFacturesNdjson(debut, fin, sortie);
+        
+        // Then
+        String[] lignes = sortie.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lignes.length);
+        assertEquals("FAC-2024-0001", objectMapper.readValue(lignes[0], FactureDto.class).getNumero());
+        assertEquals("FAC-2024-0002", objectMapper.readValue(lignes[1], FactureDto.class).getNumero());
+    }
 }
@@ -0,0 +1,194 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.exception.IdempotencyKeyException;
+import com.arimayi.billing.exception.InvalidTVAException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour IdempotenceFactures
+ */
+class IdempotenceFacturesTest {
+    
+    private IdempotenceFactures idempotenceFactures;
+    private AtomicInteger creations;
+    
+    @BeforeEach
+    void setUp() {
+        idempotenceFactures = new IdempotenceFactures();
+        idempotenceFactures.initialiser();
+        creations = new AtomicInteger();
+    }
+    
+    @Test
+    void creer_SameKeyTwice_ShouldReplayWithoutRecreating() {
+        // When
+        IdempotenceFactures.Resultat premier = idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture);
+        IdempotenceFactures.Resultat second = idempotenceFactures.creer("erp", "cle-1", demande("80"), this::creerFacture);
+        
+        // Then
+        assertEquals(1, creations.get());
+        assertFalse(premier.rejoue());
+        assertTrue(second.rejoue());
+        assertSame(premier.facture(), second.facture());
+    }
+    
+    @Test
+    void creer_SameKeyOtherUser_ShouldCreateAgain() {
+        // When
+        idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture);
+        IdempotenceFactures.Resultat autre = idempotenceFactures.creer("admin", "cle-1", demande("80.00"), this::creerFacture);
+        
+        // Then
+        assertEquals(2, creations.get());
+        assertFalse(autre.rejoue());
+    }
+    
+    @Test
+    void creer_SameKeyOtherContent_ShouldThrowException() {
+        // Given
+        idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture);
+        
+        // When & Then
+        assertThrows(IdempotencyKeyException.class,
+                () -> idempotenceFactures.creer("erp", "cle-1", demande("90.00"), this::creerFacture));
+        assertEquals(1, creations.get());
+    }
+    
+    @Test
+    void creer_FailedExecution_ShouldBeRetried() {
+        // Given
+        assertThrows(InvalidTVAException.class, () -> idempotenceFactures.creer("erp", "cle-1", demande("80.00"), () -> {
+            throw new InvalidTVAException("Taux de TVA non autorisé");
+        }));
+        
+        // When
+        IdempotenceFactures.Resultat resultat = idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture);
+        
+        // Then
+        assertFalse(resultat.rejoue());
+        assertEquals(1, creations.get());
+    }
+    
+    @Test
+    void creer_ConcurrentDuplicate_ShouldWaitForFirstExecution() throws Exception {
+        // Given
+        CountDownLatch demarree = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        CompletableFuture<IdempotenceFactures.Resultat> premier = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), () -> {
+                    demarree.countDown();
+                    try {
+                        liberee.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return creerFacture();
+                }));
+        assertTrue(demarree.await(5, TimeUnit.SECONDS));
+        
+        // When
+        CompletableFuture<IdempotenceFactures.Resultat> doublon = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture));
+        Thread.sleep(100);
+        assertFalse(doublon.isDone());
+        liberee.countDown();
+        
+        // Then
+        assertSame(premier.get(5, TimeUnit.SECONDS).facture(), doublon.get(5, TimeUnit.SECONDS).facture());
+        assertTrue(doublon.get().rejoue());
+        assertEquals(1, creations.get());
+    }
+    
+    @Test
+    void creer_ErrorInFirstExecution_ShouldReleaseWaitersAndAllowRetry() throws Exception {
+        // Given
+        CountDownLatch demarree = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        CompletableFuture<IdempotenceFactures.Resultat> premier = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), () -> {
+                    demarree.countDown();
+                    try {
+                        liberee.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new StackOverflowError();
+                }));
+        assertTrue(demarree.await(5, TimeUnit.SECONDS));
+        CompletableFuture<IdempotenceFactures.Resultat> doublon = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture));
+        Thread.sleep(100);
+        
+        // When
+        liberee.countDown();
+        
+        // Then : l'erreur est partagée sans attendre le délai, puis la clé est libérée
+        ExecutionException erreur = assertThrows(ExecutionException.class, () -> doublon.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, erreur.getCause());
+        assertThrows(ExecutionException.class, () -> premier.get(5, TimeUnit.SECONDS));
+        IdempotenceFactures.Resultat resultat = idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture);
+        assertFalse(resultat.rejoue());
+        assertEquals(1, creations.get());
+    }
+    
+    @Test
+    void creer_InFlightKey_ShouldNotBeEvicted() throws Exception {
+        // Given : cache des résultats limité à une clé, création de cle-1 en cours
+        ReflectionTestUtils.setField(idempotenceFactures, "tailleMax", 1L);
+        idempotenceFactures.initialiser();
+        CountDownLatch demarree = new CountDownLatch(1);
+        CountDownLatch liberee = new CountDownLatch(1);
+        CompletableFuture<IdempotenceFactures.Resultat> premier = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), () -> {
+                    demarree.countDown();
+                    try {
+                        liberee.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return creerFacture();
+                }));
+        assertTrue(demarree.await(5, TimeUnit.SECONDS));
+        
+        // When : d'autres clés remplissent le cache pendant la création
+        for (int i = 2; i <= 50; i++) {
+            idempotenceFactures.creer("erp", "cle-" + i, demande("80.00"), this::creerFacture);
+        }
+        CompletableFuture<IdempotenceFactures.Resultat> doublon = CompletableFuture.supplyAsync(() ->
+                idempotenceFactures.creer("erp", "cle-1", demande("80.00"), this::creerFacture));
+        Thread.sleep(100);
+        liberee.countDown();
+        
+        // Then : le doublon attend la première exécution au lieu de recréer la facture
+        assertSame(premier.get(5, TimeUnit.SECONDS).facture(), doublon.get(5, TimeUnit.SECONDS).facture());
+        assertTrue(doublon.get().rejoue());
+        assertEquals(50, creations.get());
+    }
+    
+    private FactureDto creerFacture() {
+        FactureDto facture = new FactureDto();
+        facture.setId((long) creations.incrementAndGet());
+        return facture;
+    }
+    
+    private static FactureDto demande(String prixUnitaireHT) {
+        LigneFactureDto ligne = new LigneFactureDto("Prestation", new BigDecimal("10"), new BigDecimal(prixUnitaireHT),
+                new BigDecimal("20"));
+        return new FactureDto(LocalDate.of(2024, 1, 15), 1L, List.of(ligne));
+    }
+}
@@ -0,0 +1,127 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.entity.Client;
+import com.arimayi.billing.entity.Facture;
+import com.arimayi.billing.entity.LigneFacture;
+import com.arimayi.billing.recherche.AnalyseurFrancais;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour IndexRechercheFactures (hors transaction : les mises à jour sont appliquées immédiatement)
+ */
+class IndexRechercheFacturesTest {
+    
+    private IndexRechercheFactures index;
+    private Client alpha;
+    private Client beta;
+    
+    @BeforeEach
+    void setUp() {
+        index = new IndexRechercheFactures();
+        alpha = client(1L, "Entreprise Alpha");
+        beta = client(2L, "Société Beta");
+        index.indexerClientApresValidation(alpha.getId(), alpha.getNom());
+        index.indexerClientApresValidation(beta.getId(), beta.getNom());
+        index.indexerApresValidation(List.of(
+                facture(10L, alpha, "Audit sécurité du réseau", "Formation utilisateurs"),
+                facture(11L, beta, "Audit de performance"),
+                facture(12L, beta, "Sécurisation des accès", "Audit sécurité applicative", "Rapport d'audit")));
+    }
+    
+    @Test
+    void termes_ShouldFoldAccentsAndDropStopWordsAndPlurals() {
+        assertEquals(List.of("audit", "securite", "oeuvre", "prestation", "process"),
+                AnalyseurFrancais.termes("L'audit de SÉCURITÉ, œuvres & prestations (process)"));
+    }
+    
+    @Test
+    void rechercher_ShouldMatchAllTermsWithoutAccents() {
+        // When
+        List<Long> resultats = index.rechercher("audit securite", 10);
+        
+        // Then
+        assertEquals(List.of(12L, 10L), resultats);
+    }
+    
+    @Test
+    void rechercher_ShouldMatchPartialClientName() {
+        // When & Then
+        assertEquals(List.of(12L, 11L), index.rechercher("soc bet", 10));
+        assertEquals(List.of(11L), index.rechercher("beta performances", 10));
+    }
+    
+    @Test
+    void rechercher_ExactTermShouldRankBeforePrefix() {
+        // Given
+        index.indexerApresValidation(List.of(facture(13L, alpha, "Format A4")));
+        
+        // When
+        List<Long> resultats = index.rechercher("format", 10);
+        
+        // Then : « format » n'est qu'un préfixe de « formation » (facture 10)
+        assertEquals(List.of(13L, 10L), resultats);
+    }
+    
+    @Test
+    void rechercher_ShouldRespectLimit() {
+        assertEquals(1, index.rechercher("audit", 1).size());
+        assertTrue(index.rechercher("", 10).isEmpty());
+        assertTrue(index.rechercher("inconnu", 10).isEmpty());
+    }
+    
+    @Test
+    void renamedClient_ShouldBeFoundUnderNewNameOnly() {
+        // When
+        index.indexerClientApresValidation(2L, "Groupe Delta");
+        
+        // Then
+        assertTrue(index.rechercher("beta", 10).isEmpty());
+        assertEquals(List.of(12L, 11L), index.rechercher("delta", 10));
+    }
+    
+    @Test
+    void removedClient_ShouldRemoveItsInvoices() {
+        // When
+        index.retirerClientApresValidation(2L);
+        
+        // Then
+        assertEquals(List.of(10L), index.rechercher("audit", 10));
+    }
+    
+    @Test
+    void invoiceIndexedTwice_ShouldCountOnce() {
+        // Given
+        Facture doublon = facture(15L, alpha, "Hébergement hébergement");
+        index.indexerApresValidation(List.of(doublon));
+        index.indexerApresValidation(List.of(facture(16L, alpha, "Hébergement")));
+        
+        // When
+        index.indexerApresValidation(List.of(doublon));
+        
+        // Then : deux occurrences dans la facture 15, une seule dans la 16
+        assertEquals(List.of(15L, 16L), index.rechercher("hebergement", 10));
+    }
+    
+    private static Client client(Long id, String nom) {
+        Client client = new Client(nom, nom.toLowerCase().replace(' ', '.') + "@example.com", "12345678901234");
+        client.setId(id);
+        return client;
+    }
+    
+    private static Facture facture(Long id, Client client, String... descriptions) {
+        Facture facture = new Facture(LocalDate.of(2024, 1, 15), client);
+        facture.setId(id);
+        facture.setLignes(Arrays.stream(descriptions)
+                .map(description -> new LigneFacture(description, BigDecimal.ONE, BigDecimal.TEN, new BigDecimal("20")))
+                .toList());
+        return facture;
+    }
+}
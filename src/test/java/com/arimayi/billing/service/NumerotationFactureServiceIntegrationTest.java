@@ -0,0 +1,72 @@
+package com.arimayi.billing.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d'intégration pour NumerotationFactureService : réservation des blocs hors du pool principal
+ */
+@SpringBootTest
+class NumerotationFactureServiceIntegrationTest {
+    
+    @Autowired
+    private NumerotationFactureService numerotationFactureService;
+    
+    @Autowired
+    private ReservationNumeros reservationNumeros;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size}")
+    private int taillePool;
+    
+    @Test
+    void allouerNumero_WithMainPoolExhausted_ShouldReserveBlockOnDedicatedPool() throws Exception {
+        // Given : toutes les connexions du pool principal sont tenues par des transactions en cours
+        List<Connection> connexions = new ArrayList<>();
+        try {
+            for (int i = 0; i < taillePool; i++) {
+                connexions.add(dataSource.getConnection());
+            }
+            
+            // When
+            String numero = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                    () -> numerotationFactureService.allouerNumero(LocalDate.of(2031, 1, 1)));
+            
+            // Then
+            assertEquals("FAC-2031-0001", numero);
+        } finally {
+            for (Connection connexion : connexions) {
+                connexion.close();
+            }
+        }
+    }
+    
+    @Test
+    void liberer_ShouldPersistNumberUntilTakenOnce() {
+        // Given
+        reservationNumeros.liberer(2032, 7);
+        
+        // When
+        ReservationNumeros.BlocReserve bloc = reservationNumeros.reserverBloc(2032, 10);
+        
+        // Then
+        assertEquals(1, bloc.debut());
+        assertEquals(10, bloc.fin());
+        assertEquals(List.of(7L), bloc.liberes());
+        assertTrue(reservationNumeros.reprendre(2032, 7));
+        assertFalse(reservationNumeros.reprendre(2032, 7));
+    }
+}
@@ -0,0 +1,198 @@
+package com.arimayi.billing.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour NumerotationFactureService
+ */
+@ExtendWith(MockitoExtension.class)
+class NumerotationFactureServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private ReservationNumeros reservationNumeros;
+
+    @InjectMocks
+    private NumerotationFactureService noeudA;
+
+    @InjectMocks
+    private NumerotationFactureService noeudB;
+
+    // Nœud démarré après l'arrêt d'un autre
+    @InjectMocks
+    private NumerotationFactureService noeudC;
+
+    // Tables compteurs_facture et numeros_liberes simulées (une seule année)
+    private final AtomicLong dernierNumero = new AtomicLong();
+    private final Set<Long> numerosLiberes = new ConcurrentSkipListSet<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(reservationNumeros.reserverBloc(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int taille = invocation.getArgument(1);
+            synchronized (dernierNumero) {
+                long depart = dernierNumero.getAndAdd(taille);
+                return new ReservationNumeros.BlocReserve(depart + 1, depart + taille, List.copyOf(numerosLiberes));
+            }
+        });
+        lenient().doAnswer(invocation -> numerosLiberes.add(invocation.getArgument(1)))
+                .when(reservationNumeros).liberer(anyInt(), anyLong());
+        lenient().when(reservationNumeros.reprendre(anyInt(), anyLong()))
+                .thenAnswer(invocation -> numerosLiberes.remove(invocation.<Long>getArgument(1)));
+        lenient().doAnswer(invocation -> {
+            long prochain = invocation.getArgument(1);
+            long fin = invocation.getArgument(2);
+            synchronized (dernierNumero) {
+                if (!dernierNumero.compareAndSet(fin, prochain - 1)) {
+                    for (long numero = prochain; numero <= fin; numero++) {
+                        numerosLiberes.add(numero);
+                    }
+                }
+            }
+            return null;
+        }).when(reservationNumeros).restituer(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    void allouerNumero_FirstUse_ShouldUseReservedBlock() {
+        // Given
+        dernierNumero.set(3);
+
+        // When & Then
+        assertEquals("FAC-2024-0004", noeudA.allouerNumero(DATE));
+        assertEquals("FAC-2024-0005", noeudA.allouerNumero(DATE));
+        assertEquals(53L, dernierNumero.get());
+        verify(reservationNumeros, times(1)).reserverBloc(2024, 50);
+    }
+
+    @Test
+    void allouerNumero_AfterRollback_ShouldReuseNumber() {
+        // Given
+        String numeroAnnule = allouerPuisAnnuler(noeudA);
+
+        // When & Then
+        assertEquals("FAC-2024-0001", numeroAnnule);
+        assertEquals(Set.of(1L), numerosLiberes);
+        assertEquals("FAC-2024-0001", noeudA.allouerNumero(DATE));
+        assertEquals("FAC-2024-0002", noeudA.allouerNumero(DATE));
+        assertTrue(numerosLiberes.isEmpty());
+    }
+
+    @Test
+    void allouerNumero_NumberReleasedBeforeRestart_ShouldBeReusedByNewNode() {
+        // Given
+        allouerPuisAnnuler(noeudA);
+        noeudA.restituerBlocs();
+
+        // When & Then
+        assertEquals("FAC-2024-0001", noeudC.allouerNumero(DATE));
+        assertEquals("FAC-2024-0002", noeudC.allouerNumero(DATE));
+    }
+
+    @Test
+    void allouerNumero_NumberAlreadyTakenByOtherNode_ShouldBeSkipped() {
+        // Given
+        allouerPuisAnnuler(noeudA);
+        // Le nœud B réserve après l'annulation : il connaît aussi le numéro libéré et le reprend le premier
+        assertEquals("FAC-2024-0001", noeudB.allouerNumero(DATE));
+
+        // When & Then
+        assertEquals("FAC-2024-0002", noeudA.allouerNumero(DATE));
+    }
+
+    @Test
+    void restituerBlocs_ShouldGiveBackUnusedTail() {
+        // Given
+        noeudA.allouerNumero(DATE);
+        noeudA.allouerNumero(DATE);
+
+        // When
+        noeudA.restituerBlocs();
+
+        // Then
+        assertEquals(2L, dernierNumero.get());
+        assertEquals("FAC-2024-0003", noeudB.allouerNumero(DATE));
+    }
+
+    @Test
+    void restituerBlocs_AfterOtherNodeReserved_ShouldRecordUnusedTailAsReleased() {
+        // Given
+        noeudA.allouerNumero(DATE);
+        noeudB.allouerNumero(DATE);
+
+        // When
+        noeudA.restituerBlocs();
+
+        // Then
+        assertEquals(100L, dernierNumero.get());
+        assertEquals(49, numerosLiberes.size());
+        assertEquals("FAC-2024-0002", noeudC.allouerNumero(DATE));
+    }
+
+    @Test
+    void allouerNumero_ConcurrentNodes_ShouldNeverDuplicate() throws Exception {
+        // Given
+        int threads = 8;
+        int numerosParThread = 25_000;
+        Set<String> numeros = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<?>> taches = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            NumerotationFactureService noeud = t % 2 == 0 ? noeudA : noeudB;
+            taches.add(executor.submit(() -> {
+                for (int i = 0; i < numerosParThread; i++) {
+                    assertTrue(numeros.add(noeud.allouerNumero(DATE)), "Numéro attribué deux fois");
+                }
+            }));
+        }
+        for (Future<?> tache : taches) {
+            tache.get();
+        }
+        executor.shutdown();
+
+        // Then
+        int total = threads * numerosParThread;
+        assertEquals(total, numeros.size());
+        assertTrue(numeros.contains("FAC-2024-0001"));
+        // Seules les fins des deux blocs en cours peuvent rester inutilisées
+        assertTrue(dernierNumero.get() <= total + 2L * 50);
+    }
+
+    private static String allouerPuisAnnuler(NumerotationFactureService noeud) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            String numero = noeud.allouerNumero(DATE);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            return numero;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
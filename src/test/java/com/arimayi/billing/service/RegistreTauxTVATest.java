@@ -0,0 +1,103 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.entity.TauxTVA;
+import com.arimayi.billing.exception.InvalidTVAException;
+import com.arimayi.billing.repository.TauxTVARepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour RegistreTauxTVA
+ */
+@ExtendWith(MockitoExtension.class)
+class RegistreTauxTVATest {
+    
+    @Mock
+    private TauxTVARepository tauxTVARepository;
+    
+    @InjectMocks
+    private RegistreTauxTVA registre;
+    
+    @AfterEach
+    void tearDown() {
+        registre.arreter();
+    }
+    
+    @Test
+    void estAutorise_ShouldIgnoreScale() {
+        // Then
+        assertTrue(registre.estAutorise(new BigDecimal("20")));
+        assertTrue(registre.estAutorise(new BigDecimal("20.00")));
+        assertTrue(registre.estAutorise(new BigDecimal("5.50")));
+        assertTrue(registre.estAutorise(new BigDecimal("0.00")));
+        assertFalse(registre.estAutorise(new BigDecimal("15")));
+        assertFalse(registre.estAutorise(new BigDecimal("5.555")));
+        assertFalse(registre.estAutorise(null));
+        assertEquals("0%, 5.5%, 10%, 20%", registre.description());
+    }
+    
+    @Test
+    void remplacer_ShouldPersistAndSwapAllowedRates() {
+        // When
+        List<BigDecimal> taux = registre.remplacer(List.of(new BigDecimal("21"), new BigDecimal("2.1"),
+                new BigDecimal("21.00")));
+        
+        // Then
+        assertEquals(List.of(new BigDecimal("2.10"), new BigDecimal("21.00")), taux);
+        assertTrue(registre.estAutorise(new BigDecimal("21.0")));
+        assertFalse(registre.estAutorise(new BigDecimal("20")));
+        verify(tauxTVARepository).deleteAllInBatch();
+        verify(tauxTVARepository).saveAll(argThat(lignes -> lignes instanceof List<?> liste && liste.size() == 2));
+    }
+    
+    @Test
+    void remplacer_WithInvalidRate_ShouldKeepPreviousRates() {
+        // When & Then
+        assertThrows(InvalidTVAException.class, () -> registre.remplacer(List.of(new BigDecimal("120"))));
+        assertThrows(InvalidTVAException.class, () -> registre.remplacer(List.of(new BigDecimal("8.125"))));
+        assertThrows(InvalidTVAException.class, () -> registre.remplacer(Arrays.asList(BigDecimal.TEN, null)));
+        assertThrows(InvalidTVAException.class, () -> registre.remplacer(List.of()));
+        assertTrue(registre.estAutorise(new BigDecimal("20")));
+        verifyNoInteractions(tauxTVARepository);
+    }
+    
+    @Test
+    void initialiser_EmptyTable_ShouldSeedConfiguredRates() {
+        // Given
+        when(tauxTVARepository.findAll()).thenReturn(List.of());
+        
+        // When
+        registre.initialiser();
+        
+        // Then
+        verify(tauxTVARepository).saveAll(anyList());
+        assertEquals("0%, 5.5%, 10%, 20%", registre.description());
+    }
+    
+    @Test
+    void recharger_ShouldApplyRatesReplacedByAnotherNode() {
+        // Given
+        when(tauxTVARepository.findAll()).thenReturn(List.of(new TauxTVA(new BigDecimal("2.10")),
+                new TauxTVA(new BigDecimal("20.00"))));
+        
+        // When
+        registre.recharger();
+        
+        // Then
+        assertEquals(List.of(new BigDecimal("2.10"), new BigDecimal("20.00")), registre.getTaux());
+        assertFalse(registre.estAutorise(BigDecimal.TEN));
+        verify(tauxTVARepository, never()).saveAll(anyList());
+    }
+}
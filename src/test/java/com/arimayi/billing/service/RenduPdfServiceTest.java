@@ -0,0 +1,138 @@
+package com.arimayi.billing.service;
+
+import com.arimayi.billing.dto.ClientDto;
+import com.arimayi.billing.dto.FactureDto;
+import com.arimayi.billing.dto.LigneFactureDto;
+import com.arimayi.billing.dto.VentilationTVADto;
+import com.arimayi.billing.exception.ResourceNotFoundException;
+import com.arimayi.billing.pdf.FacturePdf;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour RenduPdfService
+ */
+@ExtendWith(MockitoExtension.class)
+class RenduPdfServiceTest {
+    
+    @Mock
+    private FactureService factureService;
+    
+    @Spy
+    private EtagsFactures etagsFactures = new EtagsFactures();
+    
+    @InjectMocks
+    private RenduPdfService renduPdfService;
+    
+    private FactureDto testFactureDto;
+    
+    @BeforeEach
+    void setUp() {
+        etagsFactures.initialiser();
+        renduPdfService.initialiser();
+        
+        LigneFactureDto ligne = new LigneFactureDto("Développement application web", new BigDecimal("20.00"),
+                new BigDecimal("80.00"), new BigDecimal("20.00"));
+        ligne.setTotalHT(new BigDecimal("1600.00"));
+        testFactureDto = new FactureDto(LocalDate.of(2024, 1, 15), 1L, List.of(ligne));
+        testFactureDto.setId(1L);
+        testFactureDto.setNumero("FAC-2024-0001");
+        testFactureDto.setClient(new ClientDto("Entreprise Alpha", "contact@alpha.com", "12345678901234"));
+        testFactureDto.setTotalHT(new BigDecimal("1600.00"));
+        testFactureDto.setTotalTVA(new BigDecimal("320.00"));
+        testFactureDto.setTotalTTC(new BigDecimal("1920.00"));
+        testFactureDto.setVentilationTVA(List.of(new VentilationTVADto(new BigDecimal("20.00"),
+                new BigDecimal("1600.00"), new BigDecimal("320.00"))));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        renduPdfService.arreter();
+    }
+    
+    @Test
+    void rendre_ShouldProducePdfWithInvoiceDetails() throws Exception {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        
+        // When
+        byte[] pdf = renduPdfService.rendre(1L).join().contenu();
+        
+        // Then
+        PdfReader reader = new PdfReader(pdf);
+        // L'extraction peut ajouter une espace autour du séparateur de milliers insécable
+        String texte = new PdfTextExtractor(reader).getTextFromPage(1).replace('\u00A0', ' ').replaceAll(" +", " ");
+        reader.close();
+        assertTrue(texte.contains("Facture FAC-2024-0001"), texte);
+        assertTrue(texte.contains("Entreprise Alpha"), texte);
+        assertTrue(texte.contains("Développement application web"), texte);
+        assertTrue(texte.contains("TVA 20,00 % sur 1 600,00 €"), texte);
+        assertTrue(texte.contains("1 920,00 €"), texte);
+    }
+    
+    @Test
+    void rendre_SecondCall_ShouldBeServedFromCache() {
+        // Given
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto);
+        
+        // When
+        FacturePdf premier = renduPdfService.rendre(1L).join();
+        FacturePdf second = renduPdfService.rendre(1L).join();
+        
+        // Then
+        assertSame(premier, second);
+        verify(factureService, times(1)).getFactureById(1L);
+    }
+    
+    @Test
+    void rendre_AfterClientChange_ShouldRenderNewContent() throws Exception {
+        // Given
+        ClientDto clientModifie = new ClientDto("Entreprise Beta", "contact@alpha.com", "12345678901234");
+        FactureDto factureModifiee = new FactureDto(testFactureDto.getDate(), 1L, testFactureDto.getLignes());
+        factureModifiee.setId(1L);
+        factureModifiee.setNumero("FAC-2024-0001");
+        factureModifiee.setClient(clientModifie);
+        factureModifiee.setTotalHT(testFactureDto.getTotalHT());
+        factureModifiee.setTotalTVA(testFactureDto.getTotalTVA());
+        factureModifiee.setTotalTTC(testFactureDto.getTotalTTC());
+        when(factureService.getFactureById(1L)).thenReturn(testFactureDto, factureModifiee);
+        FacturePdf avant = renduPdfService.rendre(1L).join();
+        
+        // When
+        etagsFactures.invaliderClient(1L);
+        FacturePdf apres = renduPdfService.rendre(1L).join();
+        
+        // Then
+        assertNotEquals(avant.etag(), apres.etag());
+        PdfReader reader = new PdfReader(apres.contenu());
+        String texte = new PdfTextExtractor(reader).getTextFromPage(1);
+        reader.close();
+        assertTrue(texte.contains("Entreprise Beta"), texte);
+    }
+    
+    @Test
+    void rendre_UnknownInvoice_ShouldThrowWithoutCaching() {
+        // Given
+        when(factureService.getFactureById(999L)).thenThrow(new ResourceNotFoundException("Facture non trouvée avec l'ID: 999"));
+        
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> renduPdfService.rendre(999L));
+        assertThrows(ResourceNotFoundException.class, () -> renduPdfService.rendre(999L));
+        verify(factureService, times(2)).getFactureById(999L);
+    }
+}
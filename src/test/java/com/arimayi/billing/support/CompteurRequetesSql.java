@@ -0,0 +1,36 @@
+package com.arimayi.billing.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compteur des requêtes SQL émises par Hibernate, utilisé par les tests pour imposer un budget de requêtes.
+ * À déclarer via la propriété spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class CompteurRequetesSql implements StatementInspector {
+    
+    private static final List<String> REQUETES = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public String inspect(String sql) {
+        REQUETES.add(sql);
+        return sql;
+    }
+    
+    /**
+     * Exécute l'action et échoue si elle émet plus de requêtes que le budget
+     */
+    public static <T> T verifierBudget(int budget, Supplier<T> action) {
+        REQUETES.clear();
+        T resultat = action.get();
+        List<String> emises = List.copyOf(REQUETES);
+        assertTrue(emises.size() <= budget, () -> "Budget de " + budget + " requêtes dépassé ("
+                + emises.size() + ") :\n" + String.join("\n", emises));
+        return resultat;
+    }
+}